@@ -1,7 +1,11 @@
 package Main;
 
+import Service.ArchivadorEliminados;
 import Service.UsuarioServiceImpl;
+import Config.DatabaseConnection;
+import DAO.ArchivoDAO;
 import DAO.CredencialAccesoDAO;
+import DAO.EstadisticasDAO;
 import DAO.UsuarioDAO;
 import java.util.Scanner;
 
@@ -24,6 +28,7 @@ public class AppMenu {
     private final UsuarioServiceImpl usuarioService;
     private final UsuarioDAO usuarioDAO;
     private final CredencialAccesoDAO credencialDAO;
+    private final EstadisticasDAO estadisticasDAO;
 
     /**
      * Constructor principal.
@@ -37,9 +42,16 @@ public class AppMenu {
         // Inicializa la capa DAO
         this.usuarioDAO = new UsuarioDAO();
         this.credencialDAO = new CredencialAccesoDAO();
+        this.estadisticasDAO = new EstadisticasDAO();
 
         // Inicializa la capa Service (pasándole los DAOs que necesita)
-        this.usuarioService = new UsuarioServiceImpl(usuarioDAO, credencialDAO);
+        this.usuarioService = new UsuarioServiceImpl(usuarioDAO, credencialDAO, estadisticasDAO,
+                new ArchivadorEliminados(new ArchivoDAO()));
+
+        // Archivado de bajas antiguas en segundo plano (opcional: -Darchivo.enabled=true)
+        if (Boolean.getBoolean("archivo.enabled")) {
+            usuarioService.iniciarArchivadoEnSegundoPlano();
+        }
 
         // Inicializa el Handler (pasándole las herramientas que necesita)
         this.handler = new MenuHandler(display, usuarioService, scanner);
@@ -76,6 +88,21 @@ public class AppMenu {
                 case "5":
                     handler.eliminarUsuario();
                     break;
+                case "6":
+                    handler.importarUsuarios();
+                    break;
+                case "7":
+                    handler.exportarUsuarios();
+                    break;
+                case "8":
+                    handler.buscarUsuariosPorTexto();
+                    break;
+                case "9":
+                    handler.mostrarEstadisticas();
+                    break;
+                case "10":
+                    handler.archivarEliminados();
+                    break;
                 case "0":
                     running = false; // Termina el bucle
                     break;
@@ -87,5 +114,7 @@ public class AppMenu {
         
         display.mostrarSalida();
         scanner.close(); // Cierra el scanner al salir
+        usuarioService.detenerArchivado(); // Corta el archivado de fondo (si estaba corriendo)
+        DatabaseConnection.cerrarPool(); // Libera las conexiones del pool
     }
 }
@@ -1,11 +1,18 @@
 package Main;
 
+import Config.Migraciones;
+import DAO.VerificadorPlanes;
+
 /**
  * Punto de entrada principal de la aplicación (El "Botón de Encendido").
  *
  * RESPONSABILIDAD:
  * Únicamente arrancar la aplicación, instanciando y ejecutando el
  * orquestador del menú (AppMenu).
+ *
+ * Antes del menú pone el esquema de la BD al día (ver Config.Migraciones) y, con
+ * -Ddb.migraciones.verificarPlanes=true, revisa los planes de las queries (ver DAO.VerificadorPlanes).
+ * Si algo de eso falla, la aplicación no arranca.
  */
 public class Main {
 
@@ -14,6 +21,11 @@ public class Main {
      * @param args Argumentos de línea de comandos (no se usan en este proyecto).
      */
     public static void main(String[] args) {
+
+        // 0. Esquema de la BD al día (fail-fast: sin el esquema correcto la app no puede funcionar)
+        if (!prepararBaseDeDatos()) {
+            return;
+        }
         
         // 1. Crea una instancia del "Director de Orquesta"
         AppMenu menuPrincipal = new AppMenu();
@@ -21,4 +33,27 @@ public class Main {
         // 2. Le da la orden de empezar
         menuPrincipal.run();
     }
+
+    /**
+     * Aplica las migraciones pendientes y, si se pidió, verifica los planes de las queries.
+     * @return false si la aplicación no debe arrancar
+     */
+    private static boolean prepararBaseDeDatos() {
+        try {
+            if (Migraciones.habilitadas()) {
+                Migraciones.Resultado resultado = Migraciones.aplicar();
+                if (!resultado.aplicadas().isEmpty()) {
+                    System.out.println("Migraciones aplicadas: " + resultado.aplicadas()
+                        + " (esquema en V" + resultado.versionActual() + ")");
+                }
+            }
+            if (Boolean.getBoolean("db.migraciones.verificarPlanes")) {
+                VerificadorPlanes.verificar();
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error al preparar la base de datos: " + e.getMessage());
+            return false;
+        }
+    }
 }
@@ -4,7 +4,11 @@
 
 package Main;
 
+import DAO.EstadisticasDAO;
 import Models.Usuario;
+import Service.ArchivadorEliminados;
+import Service.ExportadorUsuarios;
+import Service.ImportadorUsuarios;
 import java.util.List;
 
 /**
@@ -39,10 +43,15 @@ public class MenuDisplay {
     public void mostrarMenuPrincipal() {
         System.out.println("\n--- MENÚ PRINCIPAL ---");
         System.out.println("1. Crear nuevo Usuario (con Credencial)");
-        System.out.println("2. Listar todos los Usuarios");
+        System.out.println("2. Listar Usuarios (por páginas)");
         System.out.println("3. Buscar Usuario por Username");
         System.out.println("4. Actualizar datos de Usuario");
         System.out.println("5. Eliminar Usuario (Baja lógica)");
+        System.out.println("6. Importar Usuarios desde archivo (CSV/JSONL)");
+        System.out.println("7. Exportar Usuarios activos a archivo (CSV/JSONL)");
+        System.out.println("8. Buscar Usuarios por texto (username, nombre o apellido)");
+        System.out.println("9. Estadísticas");
+        System.out.println("10. Archivar bajas antiguas");
         System.out.println("---------------------------------------------");
         System.out.println("0. Salir");
     }
@@ -82,6 +91,19 @@ public class MenuDisplay {
         System.out.print("Ingrese el Username del usuario que desea buscar: ");
     }
 
+    public void pedirTextoBusqueda() {
+        System.out.print("Ingrese el texto a buscar (principio o parte del username, nombre o apellido): ");
+    }
+
+    public void pedirRutaExportacion() {
+        System.out.print("Ingrese la ruta del archivo de salida (.csv o .jsonl): ");
+    }
+
+    public void pedirRutaImportacion() {
+        System.out.println("Columnas: username, email, password, nombre, apellido (obligatorias); activo (opcional: true/false).");
+        System.out.print("Ingrese la ruta del archivo (.csv o .jsonl): ");
+    }
+
     // --- Feedback (Éxito, Error, Info) ---
 
     /**
@@ -124,6 +146,46 @@ public class MenuDisplay {
 
     // --- Visualización de Datos ---
 
+    /**
+     * Una línea de progreso de la importación (se reescribe en el lugar con '\r').
+     */
+    public void mostrarAvanceImportacion(ImportadorUsuarios.Avance avance) {
+        System.out.printf("\r  %5.1f%% | %,d importados | %,d rechazados | %,.0f filas/s   ",
+                avance.porcentaje(), avance.importadas(), avance.rechazadas(), avance.filasPorSegundo());
+    }
+
+    public void mostrarResultadoImportacion(ImportadorUsuarios.Resultado resultado) {
+        System.out.println();
+        if (resultado.reanudada()) {
+            System.out.println("(Se continuó desde el último checkpoint)");
+        }
+        System.out.printf("Importados: %,d | Rechazados: %,d | %.1f s | %,.0f filas/s%n",
+                resultado.importadas(), resultado.rechazadas(), resultado.segundos(), resultado.filasPorSegundo());
+        if (resultado.archivoRechazos() != null) {
+            System.out.println("Detalle de los rechazos: " + resultado.archivoRechazos());
+        }
+    }
+
+    /**
+     * Una línea de progreso del archivado (se reescribe en el lugar con '\r').
+     */
+    public void mostrarAvanceArchivado(ArchivadorEliminados.Avance avance) {
+        System.out.printf("\r  %5.1f%% | %,d usuarios | %,d credenciales | %,d lotes | %,.0f filas/s   ",
+                avance.porcentaje(), avance.usuarios(), avance.credenciales(), avance.lotes(), avance.filasPorSegundo());
+    }
+
+    public void mostrarResultadoArchivado(ArchivadorEliminados.Avance avance, int retencionDias) {
+        System.out.println();
+        System.out.printf("Archivados: %,d usuarios y %,d credenciales dados de baja hace más de %d días | %.1f s | %,.0f filas/s%n",
+                avance.usuarios(), avance.credenciales(), retencionDias, avance.segundos(), avance.filasPorSegundo());
+    }
+
+    public void mostrarResultadoExportacion(ExportadorUsuarios.Resultado resultado) {
+        System.out.printf("%,d usuarios | %,d bytes | %d tramo(s) | %.2f s | %,.0f filas/s%n",
+                resultado.filas(), resultado.bytes(), resultado.tramos(), resultado.segundos(), resultado.filasPorSegundo());
+        System.out.println("Archivo: " + resultado.archivo());
+    }
+
     public void mostrarHeaderListaUsuarios() {
         System.out.println("\n--- LISTA DE USUARIOS ACTIVOS ---");
     }
@@ -149,6 +211,74 @@ public class MenuDisplay {
         }
     }
     
+    /**
+     * Muestra una página de usuarios con su número.
+     * @param usuarios Los usuarios de la página.
+     * @param numeroPagina Número de página (empieza en 1).
+     */
+    public void mostrarPaginaUsuarios(List<Usuario> usuarios, int numeroPagina) {
+        System.out.println("\n--- PÁGINA " + numeroPagina + " ---");
+        for (Usuario u : usuarios) {
+            mostrarResumenUsuario(u);
+        }
+    }
+
+    /**
+     * Muestra las opciones de navegación entre páginas.
+     * @param hayAnterior Si se puede ir a la página anterior.
+     * @param haySiguiente Si (probablemente) hay una página siguiente.
+     */
+    public void mostrarOpcionesPaginacion(boolean hayAnterior, boolean haySiguiente) {
+        System.out.println("---------------------------------");
+        if (haySiguiente) {
+            System.out.println("[S] Página siguiente");
+        }
+        if (hayAnterior) {
+            System.out.println("[A] Página anterior");
+        }
+        System.out.println("[V] Volver al menú principal");
+        System.out.print("Opción: ");
+    }
+
+    /**
+     * Muestra sólo los datos básicos de un Usuario (proyección RESUMEN de las listas).
+     * @param usuario El usuario a mostrar.
+     */
+    public void mostrarResumenUsuario(Usuario usuario) {
+        System.out.println("---------------------------------");
+        System.out.println("  ID: \t\t" + usuario.getId());
+        System.out.println("  Username: \t" + usuario.getUsername());
+        System.out.println("  Email: \t" + usuario.getEmail());
+        System.out.println("  Activo: \t" + (usuario.getActivo() ? "Sí" : "No"));
+        System.out.println("  Credencial: \t" + (usuario.getCredencial() != null ? "Asignada" : "(No asignada)"));
+    }
+
+    /**
+     * Muestra los resultados de una búsqueda por texto, uno por línea y en orden de relevancia.
+     * @param usuarios Los usuarios encontrados.
+     * @param milisegundos Lo que tardó la búsqueda (índice + lectura de los usuarios).
+     */
+    public void mostrarResultadosBusqueda(List<Usuario> usuarios, double milisegundos) {
+        System.out.printf("%n--- %d RESULTADO(S) (%.1f ms) ---%n", usuarios.size(), milisegundos);
+        for (Usuario u : usuarios) {
+            System.out.printf("  %6d | %-20s | %-30s | %s%n", u.getId(), u.getUsername(),
+                    u.getNombre() + " " + u.getApellido(), u.getEmail());
+        }
+    }
+
+    public void mostrarEstadisticas(EstadisticasDAO.Resumen resumen, List<EstadisticasDAO.AltasPorDia> altas) {
+        System.out.println("\n--- ESTADÍSTICAS ---");
+        System.out.printf("  Usuarios:             %d (activos: %d, inactivos: %d)%n",
+                resumen.usuarios(), resumen.activos(), resumen.inactivos());
+        System.out.printf("  Dados de baja:        %d%n", resumen.eliminados());
+        System.out.printf("  Credenciales:         %d (con cambio de contraseña pendiente: %d)%n",
+                resumen.credenciales(), resumen.credencialesConReset());
+        System.out.println("\n  Altas por día:");
+        for (EstadisticasDAO.AltasPorDia a : altas) {
+            System.out.printf("    %s | %6d%n", a.dia(), a.altas());
+        }
+    }
+
     public void mostrarMultiplesUsuarios(List<Usuario> usuarios) {
         if (usuarios.isEmpty()) {
             mostrarAdvertencia("No se encontraron usuarios.");
@@ -2,8 +2,15 @@ package Main;
 
 import Models.CredencialAcceso;
 import Models.Usuario;
+import Service.ArchivadorEliminados;
+import Service.ExportadorUsuarios;
+import Service.HashContrasenia;
+import Service.ImportadorUsuarios;
 import Service.UsuarioServiceImpl; // <-- Importa el "cerebro"
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import java.time.LocalDateTime; // Necesario para los constructores
 import java.util.List;
 import java.util.Scanner;
@@ -20,6 +27,15 @@ import java.util.Scanner;
  */
 public class MenuHandler {
 
+    /** Cantidad de usuarios por página en el listado (Opción 2). */
+    private static final int TAMANIO_PAGINA = 10;
+
+    /** Resultados máximos de la búsqueda por texto (Opción 8). */
+    private static final int MAXIMO_RESULTADOS_BUSQUEDA = 20;
+
+    /** Días de altas que se muestran en las estadísticas (Opción 9). */
+    private static final int DIAS_ESTADISTICAS = 7;
+
     // Dependencias (las recibe en el constructor)
     private final MenuDisplay display;
     private final UsuarioServiceImpl usuarioService;
@@ -53,19 +69,29 @@ public class MenuHandler {
             String apellido = scanner.nextLine();
             display.pedirUsername();
             String username = scanner.nextLine();
+            // Chequeos baratos (sólo el índice) antes de seguir pidiendo datos
+            if (usuarioService.existeUsername(username)) {
+                throw new IllegalArgumentException("El username '" + username.trim() + "' ya está en uso.");
+            }
             display.pedirEmail();
             String email = scanner.nextLine();
+            if (usuarioService.existeEmail(email)) {
+                throw new IllegalArgumentException("El email '" + email.trim() + "' ya está registrado.");
+            }
             
             // 2. Pedir datos de la Credencial
             display.pedirPassword();
             String password = scanner.nextLine();
-            // (Aquí, en un proyecto real, generarías el HASH y el SALT)
-            // Por ahora, lo guardamos en texto plano para la prueba.
+            if (password.isBlank()) {
+                throw new IllegalArgumentException("La contraseña no puede estar vacía.");
+            }
+            // Nunca se guarda en texto plano: PBKDF2 con salt aleatorio
+            HashContrasenia.Resultado hash = HashContrasenia.hashear(password);
             
             // 3. Crear los objetos Modelo (POJOs)
             // Se usan los constructores que ya definimos
             Usuario nuevoUsuario = new Usuario(nombre, apellido, username, email, true, LocalDateTime.now(), 0, false);
-            CredencialAcceso nuevaCredencial = new CredencialAcceso(password, "salt_de_prueba", LocalDateTime.now(), false, 0, 0, false);
+            CredencialAcceso nuevaCredencial = new CredencialAcceso(hash.hash(), hash.salt(), LocalDateTime.now(), false, 0, 0, false);
             
             // 4. Llamar al "cerebro" (Servicio)
             usuarioService.crearUsuarioConCredencial(nuevoUsuario, nuevaCredencial);
@@ -82,23 +108,64 @@ public class MenuHandler {
     }
 
     /**
-     * Lógica para la Opción 2: Listar todos los Usuarios.
+     * Lógica para la Opción 2: Listar Usuarios por páginas.
+     * Usa paginación por clave (el id del último/primero mostrado),
+     * así cada página cuesta lo mismo aunque haya miles de usuarios.
      */
     public void listarUsuarios() {
         display.mostrarHeaderListaUsuarios();
         
         try {
-            // 1. Llamar al servicio
-            List<Usuario> usuarios = usuarioService.getAll();
-            
-            // 2. Usar el display para mostrarlos
-            display.mostrarMultiplesUsuarios(usuarios);
+            // 1. Primera página
+            List<Usuario> pagina = usuarioService.getPagina(0, TAMANIO_PAGINA);
+            if (pagina.isEmpty()) {
+                display.mostrarAdvertencia("No se encontraron usuarios.");
+                pausarHastaEnter();
+                return;
+            }
+
+            // 2. Navegación: Siguiente / Anterior / Volver
+            int numeroPagina = 1;
+            boolean navegando = true;
+            while (navegando) {
+                display.mostrarPaginaUsuarios(pagina, numeroPagina);
+                boolean haySiguiente = pagina.size() == TAMANIO_PAGINA;
+                display.mostrarOpcionesPaginacion(numeroPagina > 1, haySiguiente);
+
+                switch (scanner.nextLine().trim().toUpperCase()) {
+                    case "S":
+                        int ultimoId = pagina.get(pagina.size() - 1).getId();
+                        List<Usuario> siguiente = haySiguiente ? usuarioService.getPagina(ultimoId, TAMANIO_PAGINA) : List.of();
+                        if (siguiente.isEmpty()) {
+                            display.mostrarAdvertencia("Ya está en la última página.");
+                        } else {
+                            pagina = siguiente;
+                            numeroPagina++;
+                        }
+                        break;
+                    case "A":
+                        List<Usuario> anterior = numeroPagina > 1 ? usuarioService.getPaginaAnterior(pagina.get(0).getId(), TAMANIO_PAGINA) : List.of();
+                        if (anterior.isEmpty()) {
+                            display.mostrarAdvertencia("Ya está en la primera página.");
+                        } else {
+                            pagina = anterior;
+                            numeroPagina--;
+                        }
+                        break;
+                    case "V":
+                    case "":
+                        navegando = false;
+                        break;
+                    default:
+                        display.mostrarOpcionInvalida();
+                        break;
+                }
+            }
             
         } catch (Exception e) {
             display.mostrarError("No se pudieron cargar los usuarios: " + e.getMessage());
+            pausarHastaEnter();
         }
-        
-        pausarHastaEnter();
     }
 
     /**
@@ -127,6 +194,45 @@ public class MenuHandler {
         pausarHastaEnter();
     }
 
+    /**
+     * Lógica para la Opción 8: Buscar Usuarios por texto.
+     * Prefijo o parte del username, nombre o apellido (ej: "jua", "perez", "jose gar").
+     */
+    public void buscarUsuariosPorTexto() {
+        display.pedirTextoBusqueda();
+        String texto = scanner.nextLine();
+
+        try {
+            long t0 = System.nanoTime();
+            List<Usuario> usuarios = usuarioService.buscarUsuarios(texto, MAXIMO_RESULTADOS_BUSQUEDA);
+            double milisegundos = (System.nanoTime() - t0) / 1e6;
+
+            if (usuarios.isEmpty()) {
+                display.mostrarAdvertencia("No se encontraron usuarios para '" + texto.trim() + "'.");
+            } else {
+                display.mostrarResultadosBusqueda(usuarios, milisegundos);
+            }
+        } catch (Exception e) {
+            display.mostrarError("Error en la búsqueda: " + e.getMessage());
+        }
+
+        pausarHastaEnter();
+    }
+
+    /**
+     * Lógica para la Opción 9: Estadísticas (conteos y altas de los últimos días).
+     */
+    public void mostrarEstadisticas() {
+        try {
+            display.mostrarEstadisticas(usuarioService.getEstadisticas(),
+                    usuarioService.getAltasPorDia(DIAS_ESTADISTICAS));
+        } catch (Exception e) {
+            display.mostrarError("Error al obtener las estadísticas: " + e.getMessage());
+        }
+
+        pausarHastaEnter();
+    }
+
     /**
      * Lógica para la Opción 4: Actualizar Usuario.
      */
@@ -160,7 +266,12 @@ public class MenuHandler {
             String email = scanner.nextLine();
             if (!email.isBlank()) usuario.setEmail(email);
 
-            // 3. Llamar al servicio para actualizar
+            // 3. Llamar al servicio para actualizar (sólo viajan los campos modificados)
+            if (!usuario.hayCambios()) {
+                display.mostrarExito("Sin cambios: el usuario ID " + id + " no se modificó.");
+                pausarHastaEnter();
+                return;
+            }
             usuarioService.actualizar(usuario);
             display.mostrarExito("Usuario ID " + id + " actualizado correctamente.");
 
@@ -209,6 +320,68 @@ public class MenuHandler {
         pausarHastaEnter();
     }
 
+    /**
+     * Lógica para la Opción 6: Importación masiva desde CSV/JSONL.
+     * Si una importación anterior del mismo archivo se cortó, continúa desde su checkpoint.
+     */
+    public void importarUsuarios() {
+        display.mostrarHeader("IMPORTAR USUARIOS");
+        display.pedirRutaImportacion();
+        Path archivo = Path.of(scanner.nextLine().trim());
+
+        try {
+            if (!Files.isRegularFile(archivo)) {
+                display.mostrarError("No existe el archivo: " + archivo);
+                pausarHastaEnter();
+                return;
+            }
+            ImportadorUsuarios.Resultado resultado = usuarioService.importarUsuarios(archivo, display::mostrarAvanceImportacion);
+            display.mostrarResultadoImportacion(resultado);
+            display.mostrarExito("Importación terminada.");
+        } catch (Exception e) {
+            display.mostrarError("Error al importar (puede reintentar: continuará desde el último lote confirmado): " + e.getMessage());
+        }
+
+        pausarHastaEnter();
+    }
+
+    /**
+     * Lógica para la Opción 7: Exportar usuarios activos a CSV/JSONL.
+     */
+    public void exportarUsuarios() {
+        display.mostrarHeader("EXPORTAR USUARIOS");
+        display.pedirRutaExportacion();
+        Path archivo = Path.of(scanner.nextLine().trim());
+
+        try {
+            ExportadorUsuarios.Resultado resultado = usuarioService.exportarUsuarios(archivo);
+            display.mostrarResultadoExportacion(resultado);
+            display.mostrarExito("Exportación terminada.");
+        } catch (Exception e) {
+            display.mostrarError("Error al exportar: " + e.getMessage());
+        }
+
+        pausarHastaEnter();
+    }
+
+    /**
+     * Lógica para la Opción 10: Archivar ahora las bajas más antiguas que la retención.
+     */
+    public void archivarEliminados() {
+        display.mostrarHeader("ARCHIVAR BAJAS ANTIGUAS");
+        try {
+            ArchivadorEliminados.Avance avance = usuarioService.archivarEliminados(display::mostrarAvanceArchivado);
+            display.mostrarResultadoArchivado(avance, usuarioService.getRetencionArchivadoDias());
+            display.mostrarExito("Archivado terminado.");
+        } catch (IllegalStateException e) {
+            display.mostrarAdvertencia(e.getMessage() + " (en segundo plano). Intente más tarde.");
+        } catch (Exception e) {
+            display.mostrarError("Error al archivar (lo ya archivado queda confirmado): " + e.getMessage());
+        }
+
+        pausarHastaEnter();
+    }
+
     // --- Métodos Helper Internos ---
 
     /**
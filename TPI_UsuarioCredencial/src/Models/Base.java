@@ -1,6 +1,11 @@
 
 package Models;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
 /**
  *
  * @author USER
@@ -9,6 +14,11 @@ public abstract class Base {
     private int id; //Identificador único
     private Boolean eliminado; //Marca en la base de datos cuando un elemento es eliminado de forma lógica
 
+    //Rastreo de cambios (dirty tracking): qué campos cambiaron desde que se leyó/guardó.
+    //Una entidad recién creada con 'new' no está rastreada: para el DAO todos sus campos cuentan como modificados.
+    private boolean rastreado;
+    private Set<String> modificados; //Se crea recién con el primer cambio (leer miles de filas no asigna nada)
+
     //Constructor
     public Base(int id, Boolean eliminado) {
         this.id = id;
@@ -40,6 +50,43 @@ public abstract class Base {
     public Boolean isEliminado(){
         return eliminado;
     }
+
+    //Métodos de rastreo de cambios (los usa el DAO para armar UPDATEs parciales)
+
+    //Marca la entidad como sincronizada con la BD (después de leerla, insertarla o actualizarla)
+    public void marcarLimpio() {
+        rastreado = true;
+        modificados = null;
+    }
+
+    //true si el DAO debe escribir el campo: cambió, o la entidad no está rastreada
+    public boolean isModificado(String campo) {
+        return !rastreado || (modificados != null && modificados.contains(campo));
+    }
+
+    //true si hay algo para escribir (una entidad no rastreada siempre tiene)
+    public boolean hayCambios() {
+        return !rastreado || (modificados != null && !modificados.isEmpty());
+    }
+
+    public boolean isRastreado() {
+        return rastreado;
+    }
+
+    //Campos cambiados desde el último marcarLimpio() (vacío si no está rastreada)
+    public Set<String> getCamposModificados() {
+        return modificados == null ? Collections.emptySet() : Collections.unmodifiableSet(modificados);
+    }
+
+    //Lo llaman los setters de las subclases: sólo registra si el valor realmente cambia
+    protected void registrarCambio(String campo, Object anterior, Object nuevo) {
+        if (rastreado && !Objects.equals(anterior, nuevo)) {
+            if (modificados == null) {
+                modificados = new LinkedHashSet<>();
+            }
+            modificados.add(campo);
+        }
+    }
     
    
     
@@ -8,18 +8,25 @@ import java.time.LocalDateTime;
  * @author USER
  */
 public class CredencialAcceso extends Base{
+    //Nombres de los campos rastreados (ver Base.registrarCambio)
+    public static final String CAMPO_HASH_PASSWORD = "hashPassword";
+    public static final String CAMPO_SALT = "salt";
+    public static final String CAMPO_REQUIERE_RESET = "requiereReset";
+
     private String hashPassword;
     private String salt;
     private LocalDateTime ultimoCambio;
     private Boolean requiereReset;
+    private int idUsuario; //FK al usuario dueño (UNIQUE)
 
     //Constructor
-    public CredencialAcceso(String hashPassword, String salt, LocalDateTime ultimoCambio, Boolean requiereReset, int id, Boolean eliminado) {
+    public CredencialAcceso(String hashPassword, String salt, LocalDateTime ultimoCambio, Boolean requiereReset, int idUsuario, int id, Boolean eliminado) {
         super(id, false);
         this.hashPassword = hashPassword;
         this.salt = salt;
         this.ultimoCambio = ultimoCambio;
         this.requiereReset = requiereReset;
+        this.idUsuario = idUsuario;
     }
     
     //Constructor vacío
@@ -33,6 +40,7 @@ public class CredencialAcceso extends Base{
     }
 
     public void setHashPassword(String hashPassword) {
+        registrarCambio(CAMPO_HASH_PASSWORD, this.hashPassword, hashPassword);
         this.hashPassword = hashPassword;
     }
 
@@ -41,6 +49,7 @@ public class CredencialAcceso extends Base{
     }
 
     public void setSalt(String salt) {
+        registrarCambio(CAMPO_SALT, this.salt, salt);
         this.salt = salt;
     }
 
@@ -57,9 +66,18 @@ public class CredencialAcceso extends Base{
     }
 
     public void setRequiereReset(Boolean requiereReset) {
+        registrarCambio(CAMPO_REQUIERE_RESET, this.requiereReset, requiereReset);
         this.requiereReset = requiereReset;
     }
 
+    public int getIdUsuario() {
+        return idUsuario;
+    }
+
+    public void setIdUsuario(int idUsuario) {
+        this.idUsuario = idUsuario;
+    }
+
     //Método toString
     @Override
     public String toString() {
@@ -8,6 +8,15 @@ import java.time.LocalDateTime;
  * @author USER
  */
 public class Usuario extends Base{
+    //Nombres de los campos rastreados (ver Base.registrarCambio)
+    public static final String CAMPO_NOMBRE = "nombre";
+    public static final String CAMPO_APELLIDO = "apellido";
+    public static final String CAMPO_USERNAME = "username";
+    public static final String CAMPO_EMAIL = "email";
+    public static final String CAMPO_ACTIVO = "activo";
+
+    private String nombre;
+    private String apellido;
     private String username;
     private String email;
     private Boolean activo;
@@ -15,8 +24,10 @@ public class Usuario extends Base{
     private CredencialAcceso credencial; //Relación unidireccional
 
     //Constructor
-    public Usuario(String username, String email, Boolean activo, LocalDateTime fechaRegistro, int id, Boolean eliminado) {
+    public Usuario(String nombre, String apellido, String username, String email, Boolean activo, LocalDateTime fechaRegistro, int id, Boolean eliminado) {
         super(id, false);
+        this.nombre = nombre;
+        this.apellido = apellido;
         this.username = username;
         this.email = email;
         this.activo = activo;
@@ -29,11 +40,30 @@ public class Usuario extends Base{
     }
     
     //Getters y Setters
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        registrarCambio(CAMPO_NOMBRE, this.nombre, nombre);
+        this.nombre = nombre;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+
+    public void setApellido(String apellido) {
+        registrarCambio(CAMPO_APELLIDO, this.apellido, apellido);
+        this.apellido = apellido;
+    }
+
     public String getUsername() {
         return username;
     }
 
     public void setUsername(String username) {
+        registrarCambio(CAMPO_USERNAME, this.username, username);
         this.username = username;
     }
 
@@ -42,6 +72,7 @@ public class Usuario extends Base{
     }
 
     public void setEmail(String email) {
+        registrarCambio(CAMPO_EMAIL, this.email, email);
         this.email = email;
     }
 
@@ -50,6 +81,7 @@ public class Usuario extends Base{
     }
 
     public void setActivo(Boolean activo) {
+        registrarCambio(CAMPO_ACTIVO, this.activo, activo);
         this.activo = activo;
     }
 
@@ -0,0 +1,190 @@
+package Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * "Group commit": junta escrituras chicas de distintos hilos en UNA transacción.
+ *
+ * Motivo:
+ * - Cada commit cuesta un round trip y un fsync del redo log en MySQL. Con muchos hilos
+ *   creando usuarios o actualizando credenciales, el commit domina la latencia.
+ *
+ * Funcionamiento:
+ * - Los callers encolan su trabajo y reciben un CompletableFuture.
+ * - Un hilo "commit-agrupado" toma el primero, espera hasta 'ventanaMs' (o hasta juntar
+ *   'maximoLote') y ejecuta todo el grupo en una transacción de TransactionManager.
+ * - Cada trabajo corre dentro de su propio SAVEPOINT: si falla, sólo se deshace lo suyo
+ *   y su future termina con SU excepción; el resto del grupo se confirma igual.
+ * - Un deadlock deshace la transacción entera: el grupo completo se reintenta (PoliticaReintentos).
+ * - Los futures se completan DESPUÉS del commit (un caller nunca ve "ok" de algo sin confirmar).
+ *   Si falla el commit, todos los trabajos del grupo reciben ese error.
+ * - Cada trabajo corre con el contexto de réplicas de su caller (Replicas.capturar): tras
+ *   el commit, el caller lee lo que escribió desde el primario.
+ *
+ * Configuración (system properties, ver TransactionManager.enGrupo):
+ * - -Ddb.groupCommit.enabled=false (opt-in)
+ * - -Ddb.groupCommit.windowMs=2 (espera máxima para juntar el grupo)
+ * - -Ddb.groupCommit.maxBatch=64 (trabajos por transacción)
+ */
+public final class CommitAgrupado {
+
+    /**
+     * Foto de las métricas del group commit.
+     */
+    public record Estadisticas(long grupos, long trabajos, long fallidos, long commitsFallidos) {
+
+        /** Trabajos por commit (1 = sin agrupamiento). */
+        public double promedioPorGrupo() {
+            return grupos == 0 ? 0 : (double) trabajos / grupos;
+        }
+    }
+
+    /**
+     * Trabajo encolado con el future y el contexto de réplicas de su caller.
+     */
+    private static final class Pendiente<T> {
+        final TransactionManager.Trabajo<T> trabajo;
+        final Replicas.Contexto contexto;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T resultado;
+        Exception error;
+
+        Pendiente(TransactionManager.Trabajo<T> trabajo, Replicas.Contexto contexto) {
+            this.trabajo = trabajo;
+            this.contexto = contexto;
+        }
+
+        void ejecutar() {
+            resultado = null;
+            error = null; // Por si el grupo se está reintentando
+            try {
+                // Con el contexto del caller: sus escrituras marcan SU read-your-writes
+                resultado = Replicas.con(contexto, () -> TransactionManager.anidada(trabajo));
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
+        void completar(Exception errorCommit) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (errorCommit != null) {
+                future.completeExceptionally(errorCommit);
+            } else {
+                future.complete(resultado);
+            }
+        }
+    }
+
+    private final long ventanaNanos;
+    private final int maximoLote;
+    private final BlockingQueue<Pendiente<?>> cola = new LinkedBlockingQueue<>();
+
+    private final LongAdder grupos = new LongAdder();
+    private final LongAdder trabajos = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder commitsFallidos = new LongAdder();
+
+    CommitAgrupado(long ventanaMs, int maximoLote) {
+        if (ventanaMs < 0 || maximoLote < 1) {
+            throw new IllegalArgumentException("Configuración de group commit inválida (windowMs >= 0, maxBatch >= 1)");
+        }
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        this.maximoLote = maximoLote;
+
+        Thread hilo = new Thread(this::bucle, "commit-agrupado");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Encola el trabajo; el future se completa cuando su grupo termina.
+     */
+    <T> CompletableFuture<T> enviar(TransactionManager.Trabajo<T> trabajo) {
+        Pendiente<T> pendiente = new Pendiente<>(trabajo, Replicas.capturar());
+        cola.add(pendiente);
+        return pendiente.future;
+    }
+
+    Estadisticas getEstadisticas() {
+        return new Estadisticas(grupos.sum(), trabajos.sum(), fallidos.sum(), commitsFallidos.sum());
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private void bucle() {
+        List<Pendiente<?>> grupo = new ArrayList<>(maximoLote);
+        while (true) {
+            try {
+                juntar(grupo);
+                ejecutarGrupo(grupo);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Nunca debe matar al hilo: se informa y se sigue con el próximo grupo
+                System.err.println("Error inesperado en el group commit: " + e.getMessage());
+                for (Pendiente<?> pendiente : grupo) {
+                    pendiente.future.completeExceptionally(e);
+                }
+            } finally {
+                grupo.clear();
+            }
+        }
+    }
+
+    /**
+     * Bloquea hasta el primer trabajo y junta más hasta cerrar la ventana o llenar el lote.
+     */
+    private void juntar(List<Pendiente<?>> grupo) throws InterruptedException {
+        grupo.add(cola.take());
+        long limite = System.nanoTime() + ventanaNanos;
+        while (grupo.size() < maximoLote) {
+            // Lo que ya está en cola entra sin esperar
+            if (cola.drainTo(grupo, maximoLote - grupo.size()) > 0) {
+                continue;
+            }
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                return;
+            }
+            Pendiente<?> siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+            if (siguiente == null) {
+                return;
+            }
+            grupo.add(siguiente);
+        }
+    }
+
+    private void ejecutarGrupo(List<Pendiente<?>> grupo) {
+        Exception errorCommit = null;
+        try {
+            TransactionManager.enTransaccion(() -> {
+                for (Pendiente<?> pendiente : grupo) {
+                    pendiente.ejecutar();
+                    if (pendiente.error != null && PoliticaReintentos.esTransitoria(pendiente.error)) {
+                        // Deadlock: InnoDB deshizo TODO el grupo; se reintenta completo
+                        throw pendiente.error;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            errorCommit = e;
+            commitsFallidos.increment();
+        }
+
+        grupos.increment();
+        trabajos.add(grupo.size());
+        for (Pendiente<?> pendiente : grupo) {
+            if (pendiente.error != null) {
+                fallidos.increment();
+            }
+            pendiente.completar(errorCommit);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool acotado de conexiones JDBC (lo usa DatabaseConnection en modo "pooled").
+ *
+ * Motivo:
+ * - Contra el MySQL remoto (sslMode=REQUIRED) abrir una conexión implica handshake
+ *   TCP + TLS + autenticación, que suele costar más que la propia consulta del DAO.
+ * - El pool reutiliza las conexiones físicas. Los DAOs NO cambian: siguen usando
+ *   try-with-resources y el close() de la conexión prestada la DEVUELVE al pool.
+ *
+ * Características:
+ * - Tamaño mínimo (se precalienta en segundo plano) y máximo (cota dura de conexiones físicas).
+ * - Timeout de adquisición: si no hay conexión libre a tiempo, lanza SQLTimeoutException.
+ * - Validación al prestar (Connection.isValid) si la conexión estuvo ociosa más de N ms.
+ * - Desalojo de conexiones ociosas por encima del mínimo.
+ * - Detección de fugas (opcional): avisa por consola si una conexión sigue prestada más del
+ *   umbral. Captura la pila de cada préstamo, así que sólo conviene para diagnosticar.
+ * - Caché de PreparedStatement por conexión física (ver StatementCache).
+ * - Estadísticas consultables con getEstadisticas() y getEstadisticasStatements().
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Parámetros del pool. Los tiempos están en milisegundos.
+     * validacionMs = 0 valida en cada préstamo; umbralFugaMs = 0 desactiva la detección de fugas;
+     * cacheStatements = 0 desactiva la caché de PreparedStatement.
+     */
+    public record Configuracion(int minimo, int maximo, long timeoutAdquisicionMs,
+                                long ociosoMaxMs, long validacionMs, long umbralFugaMs,
+                                int cacheStatements) {
+    }
+
+    /**
+     * Foto de las estadísticas del pool en un instante dado.
+     */
+    public record Estadisticas(int activas, int ociosas, int enEspera, int total, int maximo,
+                               long adquisiciones, long timeouts, long fugasDetectadas,
+                               double latenciaPromedioMs, double latenciaMaximaMs) {
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Configuracion config;
+
+    // Estado protegido por 'lock'
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponible = lock.newCondition();
+    private final Deque<ConexionFisica> ociosas = new ArrayDeque<>(); // LIFO: la más reciente primero
+    private int total;      // conexiones físicas abiertas + reservas en curso
+    private int enEspera;   // hilos bloqueados esperando una conexión
+    private boolean cerrado;
+
+    // Conexiones prestadas (para detectar fugas)
+    private final Set<ConexionFisica> prestadas = ConcurrentHashMap.newKeySet();
+
+    // Métricas
+    private final LongAdder adquisiciones = new LongAdder();
+    private final LongAdder nanosAdquisicion = new LongAdder();
+    private final AtomicLong maxNanosAdquisicion = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fugas = new LongAdder();
+    private final StatementCache.Contadores contadoresStatements = new StatementCache.Contadores();
+
+    private final ScheduledExecutorService mantenimiento;
+
+    /**
+     * Crea el pool. No abre conexiones en el hilo llamador: el mínimo se
+     * precalienta desde la tarea de mantenimiento.
+     */
+    public ConnectionPool(String url, String user, String password, Configuracion config) {
+        if (config.minimo() < 0 || config.maximo() < 1 || config.minimo() > config.maximo()) {
+            throw new IllegalArgumentException("Tamaño de pool inválido: min=" + config.minimo() + ", max=" + config.maximo());
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.config = config;
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, Math.min(config.ociosoMaxMs(),
+                config.umbralFugaMs() > 0 ? config.umbralFugaMs() : Long.MAX_VALUE) / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     * El caller DEBE cerrarla (try-with-resources) para devolverla.
+     *
+     * @return Conexión lista para usar (autoCommit = true)
+     * @throws SQLTimeoutException Si no se consiguió una conexión dentro del timeout de adquisición
+     * @throws SQLException Si no se pudo abrir una conexión física nueva
+     */
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        long limite = inicio + TimeUnit.MILLISECONDS.toNanos(config.timeoutAdquisicionMs());
+
+        while (true) {
+            ConexionFisica conexion = tomarOReservar(limite);
+            if (conexion == null) {
+                // Se reservó un lugar: abrimos la conexión física FUERA del lock
+                try {
+                    conexion = new ConexionFisica(abrirFisica());
+                } catch (SQLException e) {
+                    liberarLugar();
+                    throw e;
+                }
+            } else if (!esValida(conexion)) {
+                descartar(conexion);
+                continue; // Probamos con otra (o abrimos una nueva)
+            }
+
+            registrarAdquisicion(System.nanoTime() - inicio);
+            return conexion.prestar();
+        }
+    }
+
+    /**
+     * Devuelve una foto de las estadísticas actuales del pool.
+     */
+    public Estadisticas getEstadisticas() {
+        int ociosasAhora;
+        int totalAhora;
+        int esperando;
+        lock.lock();
+        try {
+            ociosasAhora = ociosas.size();
+            totalAhora = total;
+            esperando = enEspera;
+        } finally {
+            lock.unlock();
+        }
+        long cantidad = adquisiciones.sum();
+        double promedio = cantidad == 0 ? 0 : nanosAdquisicion.sum() / (double) cantidad / 1_000_000.0;
+        return new Estadisticas(prestadas.size(), ociosasAhora, esperando, totalAhora, config.maximo(),
+                cantidad, timeouts.sum(), fugas.sum(), promedio, maxNanosAdquisicion.get() / 1_000_000.0);
+    }
+
+    /**
+     * Aciertos/fallos/desalojos acumulados de las cachés de PreparedStatement.
+     */
+    public StatementCache.Estadisticas getEstadisticasStatements() {
+        return contadoresStatements.foto();
+    }
+
+    /**
+     * Cierra el pool: cierra las conexiones ociosas y despierta a los que esperan.
+     * Las conexiones prestadas se cierran físicamente cuando el caller las devuelva.
+     */
+    @Override
+    public void close() {
+        List<ConexionFisica> aCerrar;
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            aCerrar = new ArrayList<>(ociosas);
+            total -= ociosas.size();
+            ociosas.clear();
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        mantenimiento.shutdownNow();
+        aCerrar.forEach(ConexionFisica::cerrarFisica);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Toma una conexión ociosa o reserva un lugar para abrir una nueva.
+     *
+     * @return La conexión ociosa, o null si se reservó un lugar (el caller debe abrirla).
+     */
+    private ConexionFisica tomarOReservar(long limite) throws SQLException {
+        lock.lock();
+        try {
+            while (true) {
+                if (cerrado) {
+                    throw new SQLException("El pool de conexiones está cerrado");
+                }
+                ConexionFisica conexion = ociosas.pollFirst();
+                if (conexion != null) {
+                    return conexion;
+                }
+                if (total < config.maximo()) {
+                    total++;
+                    return null;
+                }
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    timeouts.increment();
+                    throw new SQLTimeoutException("No hay conexiones libres en el pool tras "
+                            + config.timeoutAdquisicionMs() + " ms (máximo: " + config.maximo() + ")");
+                }
+                enEspera++;
+                try {
+                    disponible.awaitNanos(restante);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrumpido mientras se esperaba una conexión del pool", e);
+                } finally {
+                    enEspera--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection abrirFisica() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Valida la conexión sólo si estuvo ociosa más de 'validacionMs'
+     * (evita un round trip extra cuando se acaba de usar).
+     */
+    private boolean esValida(ConexionFisica conexion) {
+        long ocioso = System.nanoTime() - conexion.ultimoUso;
+        if (ocioso < TimeUnit.MILLISECONDS.toNanos(config.validacionMs())) {
+            return true;
+        }
+        try {
+            return conexion.fisica.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Llamado por el proxy cuando el DAO hace close().
+     */
+    private void devolver(ConexionFisica conexion) {
+        prestadas.remove(conexion);
+        boolean sana = conexion.restablecer();
+        boolean cerrar;
+        lock.lock();
+        try {
+            cerrar = !sana || cerrado;
+            if (cerrar) {
+                total--;
+            } else {
+                conexion.ultimoUso = System.nanoTime();
+                ociosas.addFirst(conexion);
+            }
+            disponible.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (cerrar) {
+            conexion.cerrarFisica();
+        }
+    }
+
+    private void descartar(ConexionFisica conexion) {
+        liberarLugar();
+        conexion.cerrarFisica();
+    }
+
+    private void liberarLugar() {
+        lock.lock();
+        try {
+            total--;
+            disponible.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void registrarAdquisicion(long nanos) {
+        adquisiciones.increment();
+        nanosAdquisicion.add(nanos);
+        maxNanosAdquisicion.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Tarea periódica: desaloja ociosas, rellena hasta el mínimo y detecta fugas.
+     */
+    private void mantener() {
+        try {
+            desalojarOciosas();
+            rellenarMinimo();
+            detectarFugas();
+        } catch (RuntimeException e) {
+            // La tarea programada no debe morir por un error puntual
+            System.err.println("[pool] Error en mantenimiento: " + e.getMessage());
+        }
+    }
+
+    private void desalojarOciosas() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.ociosoMaxMs());
+        List<ConexionFisica> aCerrar = new ArrayList<>();
+        lock.lock();
+        try {
+            // Las más viejas están al final de la cola (LIFO)
+            Iterator<ConexionFisica> it = ociosas.descendingIterator();
+            while (it.hasNext() && total > config.minimo()) {
+                ConexionFisica conexion = it.next();
+                if (conexion.ultimoUso - limite < 0) {
+                    it.remove();
+                    total--;
+                    aCerrar.add(conexion);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        aCerrar.forEach(ConexionFisica::cerrarFisica);
+    }
+
+    private void rellenarMinimo() {
+        while (true) {
+            lock.lock();
+            try {
+                if (cerrado || total >= config.minimo()) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                ConexionFisica conexion = new ConexionFisica(abrirFisica());
+                conexion.devolverAlPool();
+            } catch (SQLException e) {
+                liberarLugar();
+                System.err.println("[pool] No se pudo precalentar una conexión: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void detectarFugas() {
+        if (config.umbralFugaMs() <= 0) {
+            return;
+        }
+        long umbral = TimeUnit.MILLISECONDS.toNanos(config.umbralFugaMs());
+        long ahora = System.nanoTime();
+        for (ConexionFisica conexion : prestadas) {
+            if (!conexion.fugaReportada && ahora - conexion.prestadaDesde > umbral) {
+                conexion.fugaReportada = true;
+                fugas.increment();
+                System.err.println("[pool] Posible fuga: conexión prestada hace más de "
+                        + config.umbralFugaMs() + " ms sin devolver. Prestada en:");
+                conexion.origenPrestamo.printStackTrace();
+            }
+        }
+    }
+
+    // --- CLASES INTERNAS ---
+
+    /**
+     * Conexión física real más su estado dentro del pool.
+     */
+    private final class ConexionFisica {
+        final Connection fisica;
+        final StatementCache statements;
+        volatile long ultimoUso = System.nanoTime();
+        volatile long prestadaDesde;
+        volatile Throwable origenPrestamo;
+        volatile boolean fugaReportada;
+
+        ConexionFisica(Connection fisica) {
+            this.fisica = fisica;
+            this.statements = config.cacheStatements() > 0
+                    ? new StatementCache(fisica, config.cacheStatements(), contadoresStatements)
+                    : null;
+        }
+
+        /**
+         * Crea un proxy NUEVO por préstamo: un handle viejo ya devuelto no puede
+         * seguir usando la conexión física.
+         */
+        Connection prestar() {
+            prestadaDesde = System.nanoTime();
+            fugaReportada = false;
+            origenPrestamo = config.umbralFugaMs() > 0 ? new Throwable("Origen del préstamo") : null;
+            prestadas.add(this);
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Prestamo(this));
+        }
+
+        void devolverAlPool() {
+            devolver(this);
+        }
+
+        /**
+         * Deja la conexión como nueva para el próximo préstamo.
+         * @return false si la conexión está rota y debe descartarse.
+         */
+        boolean restablecer() {
+            try {
+                if (fisica.isClosed()) {
+                    return false;
+                }
+                if (!fisica.getAutoCommit()) {
+                    fisica.rollback(); // Descarta lo que el caller no confirmó
+                    fisica.setAutoCommit(true);
+                }
+                if (fisica.isReadOnly()) {
+                    fisica.setReadOnly(false);
+                }
+                fisica.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void cerrarFisica() {
+            if (statements != null) {
+                statements.cerrarTodo();
+            }
+            try {
+                fisica.close();
+            } catch (SQLException e) {
+                // Ya no sirve; no hay nada más que hacer
+            }
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy que reciben los DAOs.
+     * Intercepta close() para devolver la conexión y prepareStatement() para usar
+     * la caché de statements; el resto se delega a la física.
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionFisica conexion;
+        private volatile boolean devuelta;
+
+        Prestamo(ConexionFisica conexion) {
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        conexion.devolverAlPool();
+                    }
+                    return null;
+                case "isClosed":
+                    if (devuelta) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionDelPool[" + conexion.fisica + "]";
+                default:
+                    break;
+            }
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            // prepareStatement(sql) y prepareStatement(sql, autoGeneratedKeys) pasan por la caché
+            if (conexion.statements != null && method.getName().equals("prepareStatement")
+                    && (args.length == 1 || (args.length == 2 && args[1] instanceof Integer))) {
+                int clavesGeneradas = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return conexion.statements.preparar((String) args[0], clavesGeneradas, (Connection) proxy);
+            }
+            try {
+                return method.invoke(conexion.fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ package Config;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.List;
 
 import DAO.UsuarioDAO;
@@ -24,6 +25,26 @@ import Models.Usuario;
  *
  * Override mediante system properties:
  * - java -Ddb.url=... -Ddb.user=... -Ddb.password=...
+ *
+ * Pool de conexiones (ver ConnectionPool), habilitado por defecto:
+ * - -Ddb.pool.enabled=false vuelve a abrir una conexión nueva por llamada
+ * - -Ddb.pool.min=2 -Ddb.pool.max=10 (tamaño mínimo y máximo)
+ * - -Ddb.pool.acquireTimeoutMs=5000 (espera máxima por una conexión libre)
+ * - -Ddb.pool.idleTimeoutMs=300000 (desalojo de ociosas por encima del mínimo)
+ * - -Ddb.pool.validationMs=1000 (valida al prestar si estuvo ociosa más que esto)
+ * - -Ddb.pool.leakThresholdMs=0 (aviso de fuga con la pila del préstamo; 0 = desactivado.
+ *   Habilitarlo sólo para diagnosticar: captura la pila en CADA préstamo)
+ * - -Ddb.pool.stmtCacheSize=32 (PreparedStatement cacheados por conexión; 0 = desactivado)
+ *
+ * Shards (ver Shards), deshabilitado por defecto:
+ * - -Ddb.shards=N y -Ddb.shard.<i>.url / .user / .password (el shard 0 usa db.url/db.user/db.password)
+ * - Un pool por shard; getConnection() entrega una conexión del shard fijado en el hilo
+ *
+ * Réplicas de lectura (ver Replicas), deshabilitadas por defecto:
+ * - -Ddb.replicas=N y -Ddb.replica.<i>.url / .user / .password (shard 0) o
+ *   -Ddb.shard.<s>.replica.<i>.url / .user / .password (user/password por defecto los del shard)
+ * - Un pool por réplica; las lecturas marcadas con Replicas.leer salen de una réplica sana
+ * - -Ddb.replicas.acquireTimeoutMs=100 (espera por una conexión libre de una réplica)
  */
 public final class DatabaseConnection {
     
@@ -31,8 +52,12 @@ public final class DatabaseConnection {
     /** URL de conexión JDBC. */
     // He agregado "jdbc:mysql://" al principio, los dos puntos ":" para el puerto
     // y la barra "/" para el nombre de la base de datos.
+    // useServerPrepStmts=true: los PreparedStatement cacheados por el pool se preparan
+    // UNA vez en el servidor (parse/plan) y luego sólo se ejecutan.
+    // rewriteBatchedStatements=true: executeBatch de INSERTs viaja como un único INSERT multi-fila.
+    // useCursorFetch=true: los streamAll() usan un cursor de servidor que respeta el fetch size.
     private static final String URL = System.getProperty("db.url", 
-        "jdbc:mysql://mysql-1e724b1f-bd2025.d.aivencloud.com:27115/usuariocredencial?sslMode=REQUIRED");
+        "jdbc:mysql://mysql-1e724b1f-bd2025.d.aivencloud.com:27115/usuariocredencial?sslMode=REQUIRED&useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true");
 
     /** Usuario. En Aiven suele ser "avnadmin". */
     private static final String USER = System.getProperty("db.user", "avnadmin"); 
@@ -40,6 +65,83 @@ public final class DatabaseConnection {
     /** Contraseña. En Aiven es obligatoria, no puede estar vacía. */
     private static final String PASSWORD = System.getProperty("db.password", "");
 
+    /** Modo pooled (por defecto habilitado). */
+    private static final boolean POOL_ENABLED = Boolean.parseBoolean(System.getProperty("db.pool.enabled", "true"));
+
+    /** Parámetros del pool (ver ConnectionPool.Configuracion). */
+    private static final ConnectionPool.Configuracion POOL_CONFIG = new ConnectionPool.Configuracion(
+        Integer.getInteger("db.pool.min", 2),
+        Integer.getInteger("db.pool.max", 10),
+        Long.getLong("db.pool.acquireTimeoutMs", 5000L),
+        Long.getLong("db.pool.idleTimeoutMs", 300000L),
+        Long.getLong("db.pool.validationMs", 1000L),
+        Long.getLong("db.pool.leakThresholdMs", 0L),
+        Integer.getInteger("db.pool.stmtCacheSize", 32));
+
+    /**
+     * Pools de las réplicas: mismos parámetros, pero con una espera corta por una conexión
+     * libre (-Ddb.replicas.acquireTimeoutMs): una réplica ocupada no demora la lectura, que
+     * prueba con otra réplica o va al primario.
+     */
+    private static final ConnectionPool.Configuracion REPLICA_POOL_CONFIG = new ConnectionPool.Configuracion(
+        POOL_CONFIG.minimo(), POOL_CONFIG.maximo(),
+        Long.getLong("db.replicas.acquireTimeoutMs", 100L),
+        POOL_CONFIG.ociosoMaxMs(), POOL_CONFIG.validacionMs(), POOL_CONFIG.umbralFugaMs(),
+        POOL_CONFIG.cacheStatements());
+
+    /**
+     * Datos de conexión de un shard.
+     */
+    private record Destino(String url, String user, String password) {
+    }
+
+    /** Un destino por shard (con un solo shard, URL/USER/PASSWORD). */
+    private static final Destino[] DESTINOS = destinos();
+
+    /** Réplicas de cada shard: REPLICAS[shard][i]. */
+    private static final Destino[][] REPLICAS = replicas();
+
+    /** Consultarlos no carga PoolHolder / ReplicaPoolHolder (cerrarPool no crea pools para cerrarlos). */
+    private static volatile boolean poolsCreados;
+    private static volatile boolean poolsDeReplicasCreados;
+
+    /**
+     * Holder de los pools (uno por shard): se crean la primera vez que se pide una conexión
+     * (idiom "initialization-on-demand", thread-safe sin sincronizar).
+     */
+    private static final class PoolHolder {
+        private static final ConnectionPool[] POOLS = crearPools();
+
+        private static ConnectionPool[] crearPools() {
+            ConnectionPool[] pools = new ConnectionPool[DESTINOS.length];
+            for (int i = 0; i < pools.length; i++) {
+                pools[i] = new ConnectionPool(DESTINOS[i].url(), DESTINOS[i].user(), DESTINOS[i].password(), POOL_CONFIG);
+            }
+            poolsCreados = true;
+            return pools;
+        }
+    }
+
+    /**
+     * Holder de los pools de las réplicas: se crean con la primera lectura que va a una réplica.
+     */
+    private static final class ReplicaPoolHolder {
+        private static final ConnectionPool[][] POOLS = crearPools();
+
+        private static ConnectionPool[][] crearPools() {
+            ConnectionPool[][] pools = new ConnectionPool[REPLICAS.length][];
+            for (int s = 0; s < pools.length; s++) {
+                pools[s] = new ConnectionPool[REPLICAS[s].length];
+                for (int i = 0; i < pools[s].length; i++) {
+                    Destino replica = REPLICAS[s][i];
+                    pools[s][i] = new ConnectionPool(replica.url(), replica.user(), replica.password(), REPLICA_POOL_CONFIG);
+                }
+            }
+            poolsDeReplicasCreados = true;
+            return pools;
+        }
+    }
+
 
     /**
      * Bloque de inicialización estática.
@@ -75,10 +177,17 @@ public final class DatabaseConnection {
     }
 
     /**
-     * Obtiene una nueva conexión a la base de datos.
+     * Obtiene una conexión a la base de datos.
      *
      * Importante:
-     * - Cada llamada crea una NUEVA conexión (no hay pooling)
+     * - Dentro de una transacción de TransactionManager devuelve la conexión de la
+     *   transacción (close() no hace nada; se libera al terminar la transacción)
+     * - Con shards, la conexión es del shard fijado en el hilo (Shards.enShard; por defecto el 0)
+     * - Con réplicas, una lectura marcada con Replicas.leer (fuera de transacción y sin
+     *   escrituras recientes del caller) recibe una conexión de una réplica sana; si la
+     *   elegida está ocupada o falla se prueba con las demás, y si ninguna sirve, la del primario
+     * - En modo pooled la conexión sale del pool y close() la DEVUELVE (no la cierra)
+     * - Con -Ddb.pool.enabled=false cada llamada crea una NUEVA conexión
      * - El caller es responsable de cerrar la conexión (usar try-with-resources)
      * - La configuración ya fue validada en el bloque static
      *
@@ -90,10 +199,122 @@ public final class DatabaseConnection {
      * </pre>
      *
      * @return Conexión JDBC activa
-     * @throws SQLException Si no se puede establecer la conexión
+     * @throws SQLException Si no se puede establecer la conexión, o si la transacción
+     *         abierta en el hilo es de otro shard
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection ligada = TransactionManager.conexionLigada();
+        if (ligada != null) {
+            if (TransactionManager.shardLigado() != Shards.actual()) {
+                throw new SQLException("La transacción abierta es del shard " + TransactionManager.shardLigado()
+                    + " y la operación es del shard " + Shards.actual() + " (no hay transacciones entre shards)");
+            }
+            return ligada;
+        }
+        if (Replicas.usarReplica()) {
+            Connection replica = conexionDeReplica(Shards.actual());
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return abrirConexion();
+    }
+
+    /**
+     * Conexión nueva del shard del hilo (del pool o del DriverManager), ignorando la
+     * transacción del hilo. La usa TransactionManager para abrir la conexión de cada transacción.
+     */
+    static Connection abrirConexion() throws SQLException {
+        int shard = Shards.actual();
+        if (POOL_ENABLED) {
+            return PoolHolder.POOLS[shard].getConnection();
+        }
+        return conexionDirecta(shard);
+    }
+
+    /**
+     * Conexión nueva del DriverManager (fuera del pool). La usa GeneradorIds.
+     */
+    static Connection conexionDirecta(int shard) throws SQLException {
+        Destino destino = DESTINOS[shard];
+        return DriverManager.getConnection(destino.url(), destino.user(), destino.password());
+    }
+
+    /**
+     * Conexión nueva del DriverManager a la réplica 'indice' del shard, fuera de su pool: la
+     * usa el chequeo de salud de Replicas, que así no compite con las lecturas por el pool.
+     */
+    static Connection conexionDirectaReplica(int shard, int indice) throws SQLException {
+        Destino replica = REPLICAS[shard][indice];
+        return DriverManager.getConnection(replica.url(), replica.user(), replica.password());
+    }
+
+    /**
+     * Estadísticas del pool (activas, ociosas, en espera, latencia de adquisición).
+     * Con shards, las del shard 0 (ver getEstadisticasPool(int)).
+     *
+     * @return La foto actual, o null si el pool está deshabilitado
+     */
+    public static ConnectionPool.Estadisticas getEstadisticasPool() {
+        return getEstadisticasPool(0);
+    }
+
+    /**
+     * Estadísticas del pool de un shard.
+     *
+     * @return La foto actual, o null si el pool está deshabilitado
+     */
+    public static ConnectionPool.Estadisticas getEstadisticasPool(int shard) {
+        return POOL_ENABLED ? PoolHolder.POOLS[shard].getEstadisticas() : null;
+    }
+
+    /**
+     * Aciertos/fallos de la caché de PreparedStatement (para dimensionarla). Con shards, del shard 0.
+     *
+     * @return La foto actual, o null si el pool está deshabilitado
+     */
+    public static StatementCache.Estadisticas getEstadisticasStatements() {
+        return POOL_ENABLED ? PoolHolder.POOLS[0].getEstadisticasStatements() : null;
+    }
+
+    /**
+     * Máximo de conexiones simultáneas por shard (-Ddb.pool.max). Con el pool deshabilitado no hay
+     * tope real, pero se devuelve el mismo valor para que los callers limiten la concurrencia.
+     */
+    public static int getMaximoConexiones() {
+        return POOL_CONFIG.maximo();
+    }
+
+    /**
+     * Estadísticas del pool de una réplica.
+     *
+     * @return La foto actual, o null si el pool está deshabilitado
+     */
+    public static ConnectionPool.Estadisticas getEstadisticasPoolReplica(int shard, int indice) {
+        return POOL_ENABLED ? ReplicaPoolHolder.POOLS[shard][indice].getEstadisticas() : null;
+    }
+
+    /**
+     * Cierra los pools (y sus conexiones ociosas), los de las réplicas y las conexiones de
+     * GeneradorIds. Llamar al salir de la aplicación.
+     */
+    public static void cerrarPool() {
+        Replicas.cerrar();
+        if (POOL_ENABLED) {
+            if (poolsCreados) {
+                for (ConnectionPool pool : PoolHolder.POOLS) {
+                    pool.close();
+                }
+            }
+            if (poolsDeReplicasCreados) {
+                for (ConnectionPool[] delShard : ReplicaPoolHolder.POOLS) {
+                    for (ConnectionPool pool : delShard) {
+                        pool.close();
+                    }
+                }
+            }
+        }
+        GeneradorIds.cerrar();
     }
 
     /**
@@ -104,6 +325,9 @@ public final class DatabaseConnection {
      * - URL y USER no pueden ser null ni estar vacíos
      * - PASSWORD puede ser vacío (común en MySQL local root sin password)
      * - PASSWORD no puede ser null
+     * - Pool: 0 <= min <= max y max >= 1
+     * - Shards: al menos uno, y cada uno con su URL
+     * - Réplicas: cada una con su URL
      *
      * @throws IllegalStateException Si la configuración es inválida
      */
@@ -119,6 +343,106 @@ public final class DatabaseConnection {
         if (PASSWORD == null) {
             throw new IllegalStateException("La contraseña de la base de datos no está configurada");
         }
+        if (POOL_CONFIG.minimo() < 0 || POOL_CONFIG.maximo() < 1 || POOL_CONFIG.minimo() > POOL_CONFIG.maximo()) {
+            throw new IllegalStateException("Tamaño de pool inválido (db.pool.min / db.pool.max)");
+        }
+        if (Shards.cantidad() < 1) {
+            throw new IllegalStateException("La cantidad de shards debe ser >= 1 (db.shards)");
+        }
+        for (int i = 0; i < DESTINOS.length; i++) {
+            if (DESTINOS[i].url() == null || DESTINOS[i].url().isBlank()) {
+                throw new IllegalStateException("La URL del shard " + i + " no está configurada (db.shard." + i + ".url)");
+            }
+        }
+        if (Replicas.cantidad() < 0) {
+            throw new IllegalStateException("La cantidad de réplicas debe ser >= 0 (db.replicas)");
+        }
+        for (int s = 0; s < REPLICAS.length; s++) {
+            for (int i = 0; i < REPLICAS[s].length; i++) {
+                if (REPLICAS[s][i].url() == null || REPLICAS[s][i].url().isBlank()) {
+                    throw new IllegalStateException("La URL de la réplica " + i + " del shard " + s
+                        + " no está configurada (db.shard." + s + ".replica." + i + ".url)");
+                }
+            }
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Conexión de una réplica sana del shard, elegida por Replicas. Si la elegida no la presta
+     * se prueba con las demás sanas:
+     * - Pool sin conexiones libres (SQLTimeoutException): la réplica está ocupada, no enferma;
+     *   sigue en la rotación.
+     * - Cualquier otro error: se la saca de la rotación hasta el próximo chequeo.
+     *
+     * @return La conexión, o null si ninguna réplica sana pudo prestarla
+     */
+    private static Connection conexionDeReplica(int shard) {
+        boolean[] probadas = new boolean[Replicas.cantidad()];
+        while (true) {
+            int indice = Replicas.elegir(shard,
+                i -> POOL_ENABLED ? ReplicaPoolHolder.POOLS[shard][i].getEstadisticas().activas() : 0,
+                i -> probadas[i]);
+            if (indice < 0) {
+                return null;
+            }
+            probadas[indice] = true;
+            try {
+                Connection conn = prestarDeReplica(shard, indice);
+                Replicas.lecturaServida(shard, indice);
+                return conn;
+            } catch (SQLTimeoutException e) {
+                Replicas.replicaOcupada();
+            } catch (SQLException e) {
+                Replicas.expulsar(shard, indice, "no se pudo obtener una conexión: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Conexión de la réplica 'indice' del shard (de su pool, o nueva si el pool está deshabilitado).
+     */
+    private static Connection prestarDeReplica(int shard, int indice) throws SQLException {
+        if (POOL_ENABLED) {
+            return ReplicaPoolHolder.POOLS[shard][indice].getConnection();
+        }
+        return conexionDirectaReplica(shard, indice);
+    }
+
+    /**
+     * Destinos de los shards: -Ddb.shard.<i>.url/.user/.password, con URL/USER/PASSWORD por defecto
+     * (la URL, sólo para el shard 0).
+     */
+    private static Destino[] destinos() {
+        Destino[] destinos = new Destino[Math.max(Shards.cantidad(), 0)];
+        for (int i = 0; i < destinos.length; i++) {
+            String prefijo = "db.shard." + i + ".";
+            destinos[i] = new Destino(
+                System.getProperty(prefijo + "url", i == 0 ? URL : null),
+                System.getProperty(prefijo + "user", USER),
+                System.getProperty(prefijo + "password", PASSWORD));
+        }
+        return destinos;
+    }
+
+    /**
+     * Destinos de las réplicas: -Ddb.shard.<s>.replica.<i>.url/.user/.password (para el shard 0
+     * también -Ddb.replica.<i>.*), con el usuario y la contraseña del shard por defecto.
+     */
+    private static Destino[][] replicas() {
+        Destino[][] replicas = new Destino[DESTINOS.length][Math.max(Replicas.cantidad(), 0)];
+        for (int s = 0; s < replicas.length; s++) {
+            for (int i = 0; i < replicas[s].length; i++) {
+                String prefijo = "db.shard." + s + ".replica." + i + ".";
+                String alias = "db.replica." + i + ".";
+                replicas[s][i] = new Destino(
+                    System.getProperty(prefijo + "url", s == 0 ? System.getProperty(alias + "url") : null),
+                    System.getProperty(prefijo + "user", s == 0 ? System.getProperty(alias + "user", DESTINOS[s].user()) : DESTINOS[s].user()),
+                    System.getProperty(prefijo + "password", s == 0 ? System.getProperty(alias + "password", DESTINOS[s].password()) : DESTINOS[s].password()));
+            }
+        }
+        return replicas;
     }
     
         //*********** Prueba de conexión a la base de datos ********
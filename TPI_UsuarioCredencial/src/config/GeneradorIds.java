@@ -0,0 +1,141 @@
+package Config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids únicos entre shards para usuario y credencial (con shards reemplaza al AUTO_INCREMENT).
+ *
+ * Funcionamiento:
+ * - Cada shard tiene sus secuencias en la tabla 'secuencia_id' (migración V5). El id que se
+ *   entrega es valor * N + shard: dos shards nunca generan el mismo id y Shards.deId(id)
+ *   devuelve el shard donde vive la fila.
+ * - Se reserva de a bloques (-Ddb.shards.bloqueIds=100) con un UPDATE ... LAST_INSERT_ID(...),
+ *   en una conexión propia por shard y en autocommit (fuera del pool y de la transacción del
+ *   caller): la fila de la secuencia no queda bloqueada mientras dura la transacción y
+ *   reservar nunca espera por una conexión del pool.
+ * - La reserva arranca siempre por encima del MAX(id) de la tabla: los ids que ya existían
+ *   (AUTO_INCREMENT) no se repiten.
+ * - Un rollback o un reinicio dejan huecos en la numeración (igual que AUTO_INCREMENT).
+ */
+public final class GeneradorIds {
+
+    /** Secuencia de la tabla 'usuario'. */
+    public static final String USUARIO = "usuario";
+
+    /** Secuencia de la tabla 'credencial'. */
+    public static final String CREDENCIAL = "credencial";
+
+    private static final int BLOQUE = Integer.getInteger("db.shards.bloqueIds", 100);
+
+    /**
+     * Reserva (valor, valor + bloque]: el nuevo valor queda en LAST_INSERT_ID() de la sesión.
+     * "%s" = la tabla de la secuencia (sólo USUARIO o CREDENCIAL, nunca texto del usuario).
+     */
+    private static final String RESERVAR_SQL = "UPDATE secuencia_id "
+        + "SET valor = LAST_INSERT_ID(GREATEST(valor, (SELECT COALESCE(MAX(id), 0) FROM %s) DIV ?) + ?) "
+        + "WHERE nombre = ?";
+    private static final String ULTIMO_SQL = "SELECT LAST_INSERT_ID()";
+
+    /**
+     * Bloque reservado de una secuencia en un shard: quedan los valores (proximo, limite].
+     */
+    private static final class Bloque {
+        long proximo;
+        long limite;
+    }
+
+    private static final Map<String, Bloque> BLOQUES = new ConcurrentHashMap<>();
+
+    /** Conexión de reserva de cada shard (protegidas por el lock de la clase). */
+    private static final Connection[] CONEXIONES = new Connection[Shards.cantidad()];
+
+    private GeneradorIds() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Próximo id de la secuencia para una fila del shard indicado.
+     *
+     * @param secuencia USUARIO o CREDENCIAL
+     * @throws SQLException Si no se pudo reservar un bloque o se agotó el rango de INT
+     */
+    public static int siguiente(String secuencia, int shard) throws SQLException {
+        if (!USUARIO.equals(secuencia) && !CREDENCIAL.equals(secuencia)) {
+            throw new IllegalArgumentException("Secuencia desconocida: " + secuencia);
+        }
+        Bloque bloque = BLOQUES.computeIfAbsent(secuencia + "@" + shard, clave -> new Bloque());
+        long valor;
+        synchronized (bloque) {
+            if (bloque.proximo >= bloque.limite) {
+                bloque.limite = reservar(secuencia, shard);
+                bloque.proximo = bloque.limite - BLOQUE;
+            }
+            valor = ++bloque.proximo;
+        }
+        long id = valor * Shards.cantidad() + shard;
+        if (id > Integer.MAX_VALUE) {
+            throw new SQLException("Se agotaron los ids de '" + secuencia + "' en el shard " + shard);
+        }
+        return (int) id;
+    }
+
+    /**
+     * Cierra las conexiones de reserva. Llamar al salir de la aplicación.
+     */
+    public static synchronized void cerrar() {
+        for (int shard = 0; shard < CONEXIONES.length; shard++) {
+            cerrar(shard);
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Reserva un bloque en la BD del shard.
+     *
+     * @return El último valor del bloque reservado
+     */
+    private static synchronized long reservar(String secuencia, int shard) throws SQLException {
+        try {
+            if (CONEXIONES[shard] == null) {
+                CONEXIONES[shard] = DatabaseConnection.conexionDirecta(shard);
+            }
+            Connection conn = CONEXIONES[shard];
+            try (PreparedStatement stmt = conn.prepareStatement(String.format(RESERVAR_SQL, secuencia))) {
+                stmt.setInt(1, Shards.cantidad());
+                stmt.setInt(2, BLOQUE);
+                stmt.setString(3, secuencia);
+                if (stmt.executeUpdate() == 0) {
+                    throw new SQLException("No existe la secuencia '" + secuencia + "' en el shard " + shard
+                        + " (¿falta aplicar la migración V5?)");
+                }
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(ULTIMO_SQL)) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            cerrar(shard); // La próxima reserva abre una conexión nueva
+            throw e;
+        }
+    }
+
+    private static void cerrar(int shard) {
+        Connection conn = CONEXIONES[shard];
+        CONEXIONES[shard] = null;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Aviso: no se pudo cerrar la conexión de ids del shard " + shard + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Migraciones versionadas del esquema: scripts SQL ordenados que se aplican al iniciar.
+ *
+ * Funcionamiento:
+ * - Los scripts viven en el classpath, en /sql/migraciones/, con nombre "V<n>__<descripcion>.sql"
+ *   y se declaran en SCRIPTS (en orden). Una versión aplicada NUNCA se edita: los cambios
+ *   van en una versión nueva.
+ * - La tabla 'esquema_version' guarda cada versión aplicada con el checksum (SHA-256) del script.
+ *   Al iniciar se aplican, en orden, sólo las versiones que faltan.
+ * - Si el script de una versión ya aplicada cambió, se aborta (la BD ya no coincide con el código).
+ * - GET_LOCK serializa el arranque de varias instancias: sólo una migra, el resto espera y
+ *   encuentra todo aplicado.
+ * - Con shards (ver Shards) se migra cada shard, en orden; cada uno tiene su 'esquema_version'.
+ *
+ * Limitaciones (MySQL):
+ * - El DDL hace commit implícito: una migración NO es atómica. Si una sentencia falla,
+ *   la versión no se registra y el error indica cuál fue; hay que corregir la BD a mano
+ *   (o escribir las sentencias de forma que puedan re-ejecutarse).
+ * - Crear un índice que ya existe (error 1061) se toma como ya aplicado, con un aviso:
+ *   permite adoptar las migraciones en una BD que ya tenía los índices creados a mano.
+ *
+ * Configuración (system properties):
+ * - -Ddb.migraciones.enabled=false (no migra al iniciar)
+ */
+public final class Migraciones {
+
+    /** Scripts de migración, en orden de versión. */
+    private static final List<String> SCRIPTS = List.of(
+        "V1__esquema_inicial.sql",
+        "V2__indices_de_lectura.sql",
+        "V3__email_unico.sql",
+        "V4__indices_de_estadisticas.sql",
+        "V5__secuencias_de_ids.sql",
+        "V6__archivo_de_eliminados.sql");
+
+    private static final String CARPETA = "/sql/migraciones/";
+    private static final Pattern NOMBRE = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    /** Código MySQL de "nombre de índice duplicado". */
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    private static final String LOCK = "usuariocredencial.migraciones";
+    private static final int ESPERA_LOCK_SEGUNDOS = 60;
+
+    private static final String CREATE_TABLA_SQL = "CREATE TABLE IF NOT EXISTS esquema_version ("
+        + "version INT NOT NULL, "
+        + "descripcion VARCHAR(200) NOT NULL, "
+        + "checksum CHAR(64) NOT NULL, "
+        + "aplicada_en DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+        + "duracion_ms BIGINT NOT NULL, "
+        + "PRIMARY KEY (version)) ENGINE = InnoDB";
+    private static final String SELECT_APLICADAS_SQL = "SELECT version, checksum FROM esquema_version";
+    private static final String INSERT_VERSION_SQL =
+        "INSERT INTO esquema_version (version, descripcion, checksum, duracion_ms) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Script de migración leído del classpath.
+     */
+    record Migracion(int version, String descripcion, String checksum, List<String> sentencias) {
+    }
+
+    /**
+     * Resultado de aplicar las migraciones.
+     *
+     * @param aplicadas Versiones aplicadas en esta ejecución (en orden; con shards, en alguno de ellos)
+     * @param versionActual Última versión registrada en la BD (0 = ninguna; con shards, la menor)
+     */
+    public record Resultado(List<Integer> aplicadas, int versionActual) {
+    }
+
+    private Migraciones() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * ¿Hay que migrar al iniciar? (-Ddb.migraciones.enabled, por defecto true)
+     */
+    public static boolean habilitadas() {
+        return Boolean.parseBoolean(System.getProperty("db.migraciones.enabled", "true"));
+    }
+
+    /**
+     * Aplica las migraciones pendientes, en orden, en cada shard.
+     *
+     * @return Versiones aplicadas y versión final del esquema
+     * @throws Exception Si un script no se puede leer, cambió tras aplicarse o falla al ejecutarse
+     */
+    public static Resultado aplicar() throws Exception {
+        List<Migracion> migraciones = cargar();
+
+        Set<Integer> aplicadas = new TreeSet<>();
+        int versionActual = Integer.MAX_VALUE;
+        for (int shard = 0; shard < Shards.cantidad(); shard++) {
+            Resultado resultado;
+            try {
+                resultado = Shards.enShard(shard, () -> aplicar(migraciones));
+            } catch (SQLException e) {
+                if (!Shards.habilitado()) {
+                    throw e;
+                }
+                throw new SQLException("Shard " + shard + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+            }
+            aplicadas.addAll(resultado.aplicadas());
+            versionActual = Math.min(versionActual, resultado.versionActual());
+        }
+        return new Resultado(List.copyOf(aplicadas), versionActual);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Aplica las migraciones pendientes en la BD del shard del hilo.
+     */
+    private static Resultado aplicar(List<Migracion> migraciones) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(true);
+            tomarLock(conn);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_TABLA_SQL);
+                }
+                Map<Integer, String> aplicadas = leerAplicadas(conn);
+
+                List<Integer> nuevas = new ArrayList<>();
+                int versionActual = 0;
+                for (Migracion migracion : migraciones) {
+                    String checksum = aplicadas.get(migracion.version());
+                    if (checksum == null) {
+                        ejecutar(conn, migracion);
+                        nuevas.add(migracion.version());
+                    } else if (!checksum.equals(migracion.checksum())) {
+                        throw new SQLException("La migración V" + migracion.version()
+                            + " ya fue aplicada pero su script cambió (checksum distinto). "
+                            + "Los cambios de esquema van en una versión nueva.");
+                    }
+                    versionActual = migracion.version();
+                }
+                for (int version : aplicadas.keySet()) {
+                    versionActual = Math.max(versionActual, version);
+                }
+                return new Resultado(List.copyOf(nuevas), versionActual);
+            } finally {
+                liberarLock(conn);
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Lee y valida los scripts declarados (versiones estrictamente crecientes).
+     */
+    static List<Migracion> cargar() throws IOException {
+        List<Migracion> migraciones = new ArrayList<>(SCRIPTS.size());
+        int anterior = 0;
+        for (String nombre : SCRIPTS) {
+            Matcher m = NOMBRE.matcher(nombre);
+            if (!m.matches()) {
+                throw new IllegalStateException("Nombre de migración inválido (se espera V<n>__<descripcion>.sql): " + nombre);
+            }
+            int version = Integer.parseInt(m.group(1));
+            if (version <= anterior) {
+                throw new IllegalStateException("Las migraciones deben estar en orden de versión creciente: " + nombre);
+            }
+            anterior = version;
+
+            String texto = leerScript(nombre);
+            migraciones.add(new Migracion(version, m.group(2).replace('_', ' '),
+                checksum(texto), dividirSentencias(texto)));
+        }
+        return migraciones;
+    }
+
+    private static String leerScript(String nombre) throws IOException {
+        try (InputStream in = Migraciones.class.getResourceAsStream(CARPETA + nombre)) {
+            if (in == null) {
+                throw new IOException("No se encontró el script de migración en el classpath: " + CARPETA + nombre);
+            }
+            // Fin de línea normalizado: el checksum no cambia entre Windows y Linux
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+    }
+
+    private static String checksum(String texto) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Divide el script en sentencias por ';'. Ignora comentarios ("-- ..." y bloques)
+     * y los ';' dentro de comillas simples, dobles o backticks.
+     */
+    static List<String> dividirSentencias(String texto) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        char comilla = 0;
+        int i = 0;
+        while (i < texto.length()) {
+            char c = texto.charAt(i);
+            if (comilla != 0) {
+                actual.append(c);
+                if (c == comilla) {
+                    comilla = 0;
+                }
+            } else if (c == '-' && texto.startsWith("--", i)) {
+                int fin = texto.indexOf('\n', i);
+                i = fin < 0 ? texto.length() : fin;
+                continue;
+            } else if (c == '/' && texto.startsWith("/*", i)) {
+                int fin = texto.indexOf("*/", i + 2);
+                i = fin < 0 ? texto.length() : fin + 2;
+                continue;
+            } else if (c == ';') {
+                agregarSentencia(sentencias, actual);
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    comilla = c;
+                }
+                actual.append(c);
+            }
+            i++;
+        }
+        agregarSentencia(sentencias, actual);
+        return sentencias;
+    }
+
+    private static void agregarSentencia(List<String> sentencias, StringBuilder actual) {
+        String sentencia = actual.toString().strip();
+        if (!sentencia.isEmpty()) {
+            sentencias.add(sentencia);
+        }
+        actual.setLength(0);
+    }
+
+    private static Map<Integer, String> leerAplicadas(Connection conn) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_APLICADAS_SQL)) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Ejecuta las sentencias de la migración y, si todas terminan bien, registra la versión.
+     */
+    private static void ejecutar(Connection conn, Migracion migracion) throws SQLException {
+        long t0 = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : migracion.sentencias()) {
+                try {
+                    stmt.execute(sentencia);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == ER_DUP_KEYNAME) {
+                        System.err.println("Aviso: V" + migracion.version() + ": el índice ya existía, se omite ("
+                            + e.getMessage() + ")");
+                        continue;
+                    }
+                    throw new SQLException("Falló la migración V" + migracion.version() + " ("
+                        + migracion.descripcion() + ") en la sentencia:\n" + sentencia
+                        + "\nLas sentencias anteriores de esta versión YA se aplicaron (DDL no transaccional).", e);
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_VERSION_SQL)) {
+            stmt.setInt(1, migracion.version());
+            stmt.setString(2, migracion.descripcion());
+            stmt.setString(3, migracion.checksum());
+            stmt.setLong(4, (System.nanoTime() - t0) / 1_000_000);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void tomarLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK);
+            stmt.setInt(2, ESPERA_LOCK_SEGUNDOS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("No se pudo obtener el lock de migraciones en "
+                        + ESPERA_LOCK_SEGUNDOS + " s (¿otra instancia está migrando?)");
+                }
+            }
+        }
+    }
+
+    private static void liberarLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            // El lock se libera igual al cerrarse la sesión
+            System.err.println("Aviso: no se pudo liberar el lock de migraciones: " + e.getMessage());
+        }
+    }
+}
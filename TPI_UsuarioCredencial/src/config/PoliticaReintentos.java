@@ -0,0 +1,180 @@
+package Config;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reintentos automáticos ante errores TRANSITORIOS de concurrencia en MySQL.
+ *
+ * Errores que se reintentan:
+ * - SQLState 40001 / error 1213: deadlock (InnoDB ya hizo rollback de la transacción).
+ * - Error 1205: lock wait timeout (otra transacción retuvo el lock demasiado tiempo).
+ *
+ * Características:
+ * - Se re-ejecuta la unidad de trabajo COMPLETA (nunca una sentencia suelta dentro de una
+ *   transacción: tras un deadlock la transacción ya no existe).
+ * - Backoff exponencial con "full jitter": espera al azar entre 0 y min(max, base * 2^n),
+ *   así los hilos que chocaron no vuelven a chocar al mismo tiempo.
+ * - Presupuesto de reintentos: cada llamada deposita una fracción de ficha y cada reintento
+ *   gasta una. Si la BD está saturada, no se multiplica la carga con reintentos en cascada.
+ * - Métricas: llamadas, reintentos, recuperadas, agotadas y sin presupuesto.
+ *
+ * Configuración (system properties):
+ * - -Ddb.retry.maxAttempts=4 (intentos totales; 1 = sin reintentos)
+ * - -Ddb.retry.baseMs=20 -Ddb.retry.maxMs=1000
+ * - -Ddb.retry.budgetPercent=20 (reintentos sostenidos, en % de las llamadas)
+ */
+public final class PoliticaReintentos {
+
+    /** Código MySQL de deadlock. */
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    /** Código MySQL de lock wait timeout. */
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /** Fichas en milésimas: 1000 = un reintento. */
+    private static final long FICHA = 1000;
+
+    /** Reserva inicial y máxima del presupuesto (en reintentos). */
+    private static final long RESERVA_MAXIMA = 100;
+
+    /**
+     * Foto de las métricas de reintentos.
+     */
+    public record Estadisticas(long llamadas, long reintentos, long recuperadas, long agotadas, long sinPresupuesto) {
+
+        /** Reintentos por llamada (0 = sin contención). */
+        public double reintentosPorLlamada() {
+            return llamadas == 0 ? 0 : (double) reintentos / llamadas;
+        }
+    }
+
+    private static final PoliticaReintentos INSTANCIA = new PoliticaReintentos(
+            Integer.getInteger("db.retry.maxAttempts", 4),
+            Long.getLong("db.retry.baseMs", 20L),
+            Long.getLong("db.retry.maxMs", 1000L),
+            Integer.getInteger("db.retry.budgetPercent", 20));
+
+    private final int maximoIntentos;
+    private final long baseMs;
+    private final long maximoMs;
+    private final long depositoPorLlamada;
+
+    private final AtomicLong presupuesto = new AtomicLong(RESERVA_MAXIMA * FICHA);
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder reintentos = new LongAdder();
+    private final LongAdder recuperadas = new LongAdder();
+    private final LongAdder agotadas = new LongAdder();
+    private final LongAdder sinPresupuesto = new LongAdder();
+
+    public PoliticaReintentos(int maximoIntentos, long baseMs, long maximoMs, int porcentajePresupuesto) {
+        if (maximoIntentos < 1 || baseMs < 0 || maximoMs < baseMs || porcentajePresupuesto < 0) {
+            throw new IllegalArgumentException("Configuración de reintentos inválida");
+        }
+        this.maximoIntentos = maximoIntentos;
+        this.baseMs = baseMs;
+        this.maximoMs = maximoMs;
+        this.depositoPorLlamada = FICHA * porcentajePresupuesto / 100;
+    }
+
+    /**
+     * Política compartida por TransactionManager.
+     */
+    public static PoliticaReintentos getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Ejecuta el trabajo, reintentándolo mientras falle con un error transitorio,
+     * queden intentos y haya presupuesto. Si no, relanza la última excepción.
+     */
+    public <T> T ejecutar(TransactionManager.Trabajo<T> trabajo) throws Exception {
+        llamadas.increment();
+        depositar();
+        for (int intento = 1; ; intento++) {
+            try {
+                T resultado = trabajo.ejecutar();
+                if (intento > 1) {
+                    recuperadas.increment();
+                }
+                return resultado;
+            } catch (Exception e) {
+                if (!esTransitoria(e)) {
+                    throw e;
+                }
+                if (intento >= maximoIntentos) {
+                    agotadas.increment();
+                    throw e;
+                }
+                if (!retirar()) {
+                    sinPresupuesto.increment();
+                    throw e;
+                }
+                reintentos.increment();
+                esperar(intento, e);
+            }
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(llamadas.sum(), reintentos.sum(), recuperadas.sum(), agotadas.sum(), sinPresupuesto.sum());
+    }
+
+    /**
+     * true si la excepción (o alguna de sus causas / excepciones encadenadas) es un
+     * deadlock o un lock wait timeout.
+     */
+    public static boolean esTransitoria(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                for (SQLException s = sql; s != null; s = s.getNextException()) {
+                    if (s instanceof SQLTransactionRollbackException
+                            || "40001".equals(s.getSQLState())
+                            || s.getErrorCode() == ER_LOCK_DEADLOCK
+                            || s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                        return true;
+                    }
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private void depositar() {
+        presupuesto.getAndUpdate(actual -> Math.min(RESERVA_MAXIMA * FICHA, actual + depositoPorLlamada));
+    }
+
+    private boolean retirar() {
+        long actual;
+        do {
+            actual = presupuesto.get();
+            if (actual < FICHA) {
+                return false;
+            }
+        } while (!presupuesto.compareAndSet(actual, actual - FICHA));
+        return true;
+    }
+
+    /**
+     * Full jitter: al azar en [0, min(max, base * 2^(intento-1))].
+     */
+    private void esperar(int intento, Exception original) throws Exception {
+        long tope = Math.min(maximoMs, baseMs << Math.min(intento - 1, 20));
+        long espera = ThreadLocalRandom.current().nextLong(tope + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            original.addSuppressed(e);
+            throw original;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package Config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Réplicas de lectura: separa lecturas y escrituras entre el primario y sus réplicas.
+ *
+ * Enrutamiento:
+ * - Sólo las lecturas marcadas con leer(...) pueden ir a una réplica (los DAOs marcan
+ *   getById, getAll, getByUsername y getByIdUsuario). Todo lo demás va al primario:
+ *   escrituras, métodos '...Tx' y cualquier operación dentro de una transacción.
+ * - La réplica se elige entre las SANAS, por turnos (round-robin) o la de menos conexiones
+ *   prestadas (menosCargada). Si no hay ninguna sana, la lectura va al primario.
+ * - Read-your-writes: después de una escritura, las lecturas del MISMO caller van al
+ *   primario durante 'pegajosoMs'. El caller es el hilo; su marca viaja con las tareas que
+ *   lanza en otros hilos (DAOs asíncronos, consultas en paralelo por shard, group commit).
+ *
+ * Salud:
+ * - Un hilo daemon consulta cada 'chequeoMs' el retraso de cada réplica (SHOW REPLICA STATUS),
+ *   con una conexión propia por réplica, fuera del pool: un pool saturado de lecturas no
+ *   hace fallar el chequeo. Si el retraso supera 'maxRetrasoS', si la replicación está
+ *   detenida o si no responde, la réplica sale de la rotación hasta que un chequeo la
+ *   vuelva a encontrar bien.
+ * - SHOW REPLICA STATUS requiere el privilegio REPLICATION CLIENT (o SUPER) para el usuario
+ *   de la réplica. Sin él (error 1227) no se puede medir el retraso: la réplica queda en la
+ *   rotación mientras responda, con retraso desconocido (-1), y se avisa una vez por consola.
+ * - Si prestar una conexión de una réplica falla, sale de la rotación en el momento. Si su
+ *   pool no tiene conexiones libres (-Ddb.replicas.acquireTimeoutMs) está ocupada, no
+ *   enferma: la lectura prueba con otra réplica sana o va al primario.
+ * - Un servidor sin estado de réplica (ej: el mismo primario, para probar) se toma como sano.
+ *
+ * Configuración (system properties):
+ * - -Ddb.replicas=0 (réplicas por shard; 0 = todo al primario)
+ * - -Ddb.replica.<i>.url / .user / .password (réplicas del shard 0; user/password por defecto
+ *   los del primario). Con shards: -Ddb.shard.<s>.replica.<i>.url ...
+ * - -Ddb.replicas.seleccion=roundRobin | menosCargada
+ * - -Ddb.replicas.pegajosoMs=5000 -Ddb.replicas.maxRetrasoS=3 -Ddb.replicas.chequeoMs=1000
+ * - Cada réplica tiene su propio pool, con los mismos parámetros -Ddb.pool.*
+ *
+ * Importante:
+ * - Las réplicas van por detrás del primario: otro caller puede leer un dato de hasta
+ *   'maxRetrasoS' segundos (más el período de chequeo). Por eso los DAOs, tras escribir,
+ *   vuelven a invalidar su caché cuando pasa ese tiempo (ver registrarEscritura).
+ */
+public final class Replicas {
+
+    /**
+     * Criterio para elegir la réplica de cada lectura.
+     */
+    public enum Seleccion { ROUND_ROBIN, MENOS_CARGADA }
+
+    /**
+     * Foto de una réplica.
+     *
+     * @param retrasoSegundos Último retraso medido (-1 = desconocido)
+     * @param motivo Por qué está fuera de la rotación (null si está sana)
+     * @param lecturas Conexiones prestadas para lecturas
+     */
+    public record EstadoReplica(int shard, int indice, boolean sana, long retrasoSegundos, String motivo, long lecturas) {
+    }
+
+    /**
+     * Foto del enrutamiento.
+     *
+     * @param enReplicas Lecturas servidas por una réplica
+     * @param pegajosas Lecturas enviadas al primario por read-your-writes
+     * @param sinReplicaSana Lecturas enviadas al primario porque no había réplica sana libre
+     * @param ocupadas Préstamos que no consiguieron conexión libre en el pool de una réplica
+     */
+    public record Estadisticas(long enReplicas, long pegajosas, long sinReplicaSana, long ocupadas,
+                               List<EstadoReplica> replicas) {
+    }
+
+    /**
+     * Estado del caller que viaja con sus tareas a otros hilos (ver capturar / con).
+     */
+    public static final class Contexto {
+        private final AtomicLong ultimaEscritura;
+        private final boolean lectura;
+
+        private Contexto(AtomicLong ultimaEscritura, boolean lectura) {
+            this.ultimaEscritura = ultimaEscritura;
+            this.lectura = lectura;
+        }
+    }
+
+    private static final int CANTIDAD = Integer.getInteger("db.replicas", 0);
+    private static final Seleccion SELECCION = "menosCargada".equalsIgnoreCase(System.getProperty("db.replicas.seleccion"))
+        ? Seleccion.MENOS_CARGADA : Seleccion.ROUND_ROBIN;
+    private static final long PEGAJOSO_MS = Long.getLong("db.replicas.pegajosoMs", 5000L);
+    private static final long MAX_RETRASO_S = Long.getLong("db.replicas.maxRetrasoS", 3L);
+    private static final long CHEQUEO_MS = Long.getLong("db.replicas.chequeoMs", 1000L);
+
+    /** Retraso máximo que puede tener una réplica todavía en la rotación (ver registrarEscritura). */
+    private static final long VENTANA_REINVALIDACION_MS = MAX_RETRASO_S * 1000 + CHEQUEO_MS;
+
+    /** Marca de la última escritura del caller (ms); compartida con las tareas que lanza. */
+    private static final ThreadLocal<AtomicLong> ULTIMA_ESCRITURA = ThreadLocal.withInitial(AtomicLong::new);
+    private static final ThreadLocal<Boolean> LECTURA = new ThreadLocal<>();
+
+    /**
+     * Estado de una réplica (lo actualizan el chequeo y las fallas al prestar).
+     */
+    private static final class Estado {
+        volatile boolean sana = true;
+        volatile long retrasoSegundos = -1;
+        volatile String motivo;
+        final LongAdder lecturas = new LongAdder();
+        Connection chequeo; // Conexión propia del chequeo (sólo la usa el hilo de chequeo)
+    }
+
+    /** Código de MySQL para "Access denied; you need the ... privilege" (ER_SPECIFIC_ACCESS_DENIED_ERROR). */
+    private static final int SIN_PRIVILEGIO = 1227;
+
+    private static final Estado[][] ESTADOS = estados();
+    private static final AtomicInteger[] TURNOS = turnos();
+
+    private static final LongAdder EN_REPLICAS = new LongAdder();
+    private static final LongAdder PEGAJOSAS = new LongAdder();
+    private static final LongAdder SIN_REPLICA_SANA = new LongAdder();
+    private static final LongAdder OCUPADAS = new LongAdder();
+
+    /** Consultarlo no carga Chequeo (cerrar no arranca el hilo para detenerlo). */
+    private static volatile boolean chequeoIniciado;
+
+    /** MySQL < 8.0.22 no conoce SHOW REPLICA STATUS. */
+    private static volatile boolean sintaxisAnterior;
+
+    /** Ya se avisó que falta REPLICATION CLIENT (el aviso sale una sola vez). */
+    private static volatile boolean avisoSinPrivilegio;
+
+    private Replicas() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Réplicas por shard (-Ddb.replicas, por defecto 0).
+     */
+    public static int cantidad() {
+        return CANTIDAD;
+    }
+
+    /**
+     * @return true si hay réplicas configuradas
+     */
+    public static boolean habilitado() {
+        return CANTIDAD > 0;
+    }
+
+    /**
+     * Ejecuta una lectura que puede servirse desde una réplica (salvo read-your-writes o
+     * transacción abierta: ver getConnection de DatabaseConnection).
+     */
+    public static <T> T leer(TransactionManager.Trabajo<T> lectura) throws Exception {
+        if (CANTIDAD == 0 || Boolean.TRUE.equals(LECTURA.get())) {
+            return lectura.ejecutar();
+        }
+        LECTURA.set(Boolean.TRUE);
+        try {
+            return lectura.ejecutar();
+        } finally {
+            LECTURA.remove();
+        }
+    }
+
+    /**
+     * Registra que el caller escribió: sus lecturas van al primario durante 'pegajosoMs'.
+     * Dentro de una transacción la marca se pone al terminarla (el cambio recién ahí es visible).
+     *
+     * @param reinvalidar Invalidación de caché a repetir cuando las réplicas ya tengan el
+     *        cambio (una lectura de otro caller en una réplica atrasada pudo volver a cachear
+     *        el dato viejo). null = nada que repetir.
+     */
+    public static void registrarEscritura(Runnable reinvalidar) {
+        if (CANTIDAD == 0) {
+            return;
+        }
+        // La marca se toma AHORA: al terminar la transacción el hilo puede tener otro contexto
+        // (group commit: el trabajo corre con el del caller y la transacción termina con el propio)
+        AtomicLong marca = ULTIMA_ESCRITURA.get();
+        if (TransactionManager.hayTransaccion()) {
+            TransactionManager.alTerminar(() -> marcarEscritura(marca, reinvalidar));
+        } else {
+            marcarEscritura(marca, reinvalidar);
+        }
+    }
+
+    /**
+     * Contexto del caller, para ejecutar una tarea suya en otro hilo con con(...).
+     */
+    public static Contexto capturar() {
+        return new Contexto(ULTIMA_ESCRITURA.get(), Boolean.TRUE.equals(LECTURA.get()));
+    }
+
+    /**
+     * Ejecuta el trabajo con el contexto de otro hilo (marca de escritura compartida: lo que
+     * escriba la tarea también cuenta para el caller) y luego restaura el propio.
+     */
+    public static <T> T con(Contexto contexto, TransactionManager.Trabajo<T> trabajo) throws Exception {
+        if (CANTIDAD == 0) {
+            return trabajo.ejecutar();
+        }
+        AtomicLong marcaAnterior = ULTIMA_ESCRITURA.get();
+        Boolean lecturaAnterior = LECTURA.get();
+        ULTIMA_ESCRITURA.set(contexto.ultimaEscritura);
+        LECTURA.set(contexto.lectura ? Boolean.TRUE : null);
+        try {
+            return trabajo.ejecutar();
+        } finally {
+            ULTIMA_ESCRITURA.set(marcaAnterior);
+            LECTURA.set(lecturaAnterior);
+        }
+    }
+
+    /**
+     * Enrutamiento, estado y lecturas de cada réplica.
+     */
+    public static Estadisticas getEstadisticas() {
+        List<EstadoReplica> replicas = new ArrayList<>();
+        for (int shard = 0; shard < ESTADOS.length; shard++) {
+            for (int i = 0; i < CANTIDAD; i++) {
+                Estado e = ESTADOS[shard][i];
+                replicas.add(new EstadoReplica(shard, i, e.sana, e.retrasoSegundos, e.motivo, e.lecturas.sum()));
+            }
+        }
+        return new Estadisticas(EN_REPLICAS.sum(), PEGAJOSAS.sum(), SIN_REPLICA_SANA.sum(), OCUPADAS.sum(), replicas);
+    }
+
+    // --- USADO POR DatabaseConnection ---
+
+    /**
+     * true si la conexión que se está pidiendo (fuera de una transacción) puede salir de una réplica.
+     */
+    static boolean usarReplica() {
+        if (CANTIDAD == 0 || !Boolean.TRUE.equals(LECTURA.get())) {
+            return false;
+        }
+        if (System.currentTimeMillis() - ULTIMA_ESCRITURA.get().get() < PEGAJOSO_MS) {
+            PEGAJOSAS.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Elige una réplica sana del shard.
+     *
+     * @param carga Conexiones prestadas de cada réplica (para MENOS_CARGADA)
+     * @param descartada Réplicas que no hay que elegir (ya se probaron en esta lectura)
+     * @return Índice de la réplica, o -1 si no hay ninguna sana (la lectura va al primario)
+     */
+    static int elegir(int shard, IntUnaryOperator carga, IntPredicate descartada) {
+        Chequeo.iniciar();
+        Estado[] estados = ESTADOS[shard];
+        int inicio = Math.floorMod(TURNOS[shard].getAndIncrement(), CANTIDAD);
+        int elegida = -1;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int k = 0; k < CANTIDAD; k++) {
+            int i = (inicio + k) % CANTIDAD;
+            if (!estados[i].sana || descartada.test(i)) {
+                continue;
+            }
+            if (SELECCION == Seleccion.ROUND_ROBIN) {
+                elegida = i;
+                break;
+            }
+            int c = carga.applyAsInt(i);
+            if (c < menorCarga) {
+                menorCarga = c;
+                elegida = i;
+            }
+        }
+        if (elegida < 0) {
+            SIN_REPLICA_SANA.increment();
+        }
+        return elegida;
+    }
+
+    /**
+     * La réplica sirvió una lectura.
+     */
+    static void lecturaServida(int shard, int indice) {
+        ESTADOS[shard][indice].lecturas.increment();
+        EN_REPLICAS.increment();
+    }
+
+    /**
+     * El pool de una réplica no tenía conexiones libres (no la saca de la rotación).
+     */
+    static void replicaOcupada() {
+        OCUPADAS.increment();
+    }
+
+    /**
+     * Saca la réplica de la rotación (vuelve cuando un chequeo la encuentre sana).
+     */
+    static void expulsar(int shard, int indice, String motivo) {
+        Estado estado = ESTADOS[shard][indice];
+        if (estado.sana) {
+            System.err.println("Aviso: réplica " + indice + " del shard " + shard + " fuera de la rotación: " + motivo);
+        }
+        estado.motivo = motivo;
+        estado.sana = false;
+    }
+
+    /**
+     * Detiene el chequeo de salud y cierra sus conexiones. Lo llama DatabaseConnection.cerrarPool().
+     */
+    static void cerrar() {
+        if (!chequeoIniciado) {
+            return;
+        }
+        Chequeo.HILO.shutdownNow();
+        try {
+            Chequeo.HILO.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int shard = 0; shard < ESTADOS.length; shard++) {
+            for (int i = 0; i < CANTIDAD; i++) {
+                cerrarChequeo(ESTADOS[shard][i], shard, i);
+            }
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Holder del hilo de chequeo: arranca con la primera lectura que elige réplica.
+     */
+    private static final class Chequeo {
+        private static final ScheduledExecutorService HILO = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replicas-chequeo");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            HILO.scheduleWithFixedDelay(Replicas::chequearTodas, 0, CHEQUEO_MS, TimeUnit.MILLISECONDS);
+            chequeoIniciado = true;
+        }
+
+        static void iniciar() {
+            // Cargar la clase alcanza para programar el chequeo
+        }
+    }
+
+    private static void marcarEscritura(AtomicLong marca, Runnable reinvalidar) {
+        marca.set(System.currentTimeMillis());
+        if (reinvalidar != null) {
+            Chequeo.HILO.schedule(reinvalidar, VENTANA_REINVALIDACION_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void chequearTodas() {
+        for (int shard = 0; shard < ESTADOS.length; shard++) {
+            for (int i = 0; i < CANTIDAD; i++) {
+                chequear(shard, i);
+            }
+        }
+    }
+
+    /**
+     * Mide el retraso de la réplica y la saca o la devuelve a la rotación.
+     */
+    private static void chequear(int shard, int indice) {
+        Estado estado = ESTADOS[shard][indice];
+        try {
+            if (estado.chequeo == null) {
+                estado.chequeo = DatabaseConnection.conexionDirectaReplica(shard, indice);
+            }
+            Long retraso = retraso(estado.chequeo);
+            if (retraso == null) {
+                expulsar(shard, indice, "la replicación está detenida");
+            } else if (retraso > MAX_RETRASO_S) {
+                estado.retrasoSegundos = retraso;
+                expulsar(shard, indice, "retraso de " + retraso + " s (máximo " + MAX_RETRASO_S + " s)");
+            } else {
+                estado.retrasoSegundos = retraso;
+                estado.motivo = null;
+                estado.sana = true;
+            }
+        } catch (SQLException e) {
+            estado.retrasoSegundos = -1;
+            if (e.getErrorCode() == SIN_PRIVILEGIO) {
+                // La réplica respondió: sólo falta el privilegio para leer su estado
+                if (!avisoSinPrivilegio) {
+                    avisoSinPrivilegio = true;
+                    System.err.println("Aviso: el usuario de las réplicas no tiene el privilegio REPLICATION CLIENT;"
+                        + " no se mide su retraso (" + e.getMessage() + ")");
+                }
+                estado.motivo = null;
+                estado.sana = true;
+                return;
+            }
+            cerrarChequeo(estado, shard, indice); // El próximo chequeo abre una conexión nueva
+            expulsar(shard, indice, "no responde: " + e.getMessage());
+        } catch (RuntimeException e) {
+            expulsar(shard, indice, "error en el chequeo: " + e);
+        }
+    }
+
+    private static void cerrarChequeo(Estado estado, int shard, int indice) {
+        Connection conn = estado.chequeo;
+        estado.chequeo = null;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Aviso: no se pudo cerrar la conexión de chequeo de la réplica " + indice
+                    + " del shard " + shard + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Segundos de retraso de la réplica: 0 si el servidor no es réplica, null si la
+     * replicación está detenida.
+     */
+    private static Long retraso(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!sintaxisAnterior) {
+                try (ResultSet rs = stmt.executeQuery("SHOW REPLICA STATUS")) {
+                    return rs.next() ? segundos(rs, "Seconds_Behind_Source") : Long.valueOf(0);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != 1064) { // 1064 = error de sintaxis (MySQL < 8.0.22)
+                        throw e;
+                    }
+                    sintaxisAnterior = true;
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SHOW SLAVE STATUS")) {
+                return rs.next() ? segundos(rs, "Seconds_Behind_Master") : Long.valueOf(0);
+            }
+        }
+    }
+
+    private static Long segundos(ResultSet rs, String columna) throws SQLException {
+        long valor = rs.getLong(columna);
+        return rs.wasNull() ? null : valor;
+    }
+
+    private static Estado[][] estados() {
+        Estado[][] estados = new Estado[Math.max(Shards.cantidad(), 0)][Math.max(CANTIDAD, 0)];
+        for (Estado[] delShard : estados) {
+            for (int i = 0; i < delShard.length; i++) {
+                delShard[i] = new Estado();
+            }
+        }
+        return estados;
+    }
+
+    private static AtomicInteger[] turnos() {
+        AtomicInteger[] turnos = new AtomicInteger[Math.max(Shards.cantidad(), 0)];
+        for (int i = 0; i < turnos.length; i++) {
+            turnos[i] = new AtomicInteger();
+        }
+        return turnos;
+    }
+}
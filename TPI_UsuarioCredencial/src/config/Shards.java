@@ -0,0 +1,280 @@
+package Config;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Shards: reparte usuario + credencial entre N bases de datos con la misma estructura.
+ *
+ * Enrutamiento:
+ * - Cada usuario vive en UN shard, junto con su credencial. Al crearlo, el shard sale del
+ *   hash del username (deUsername) y su id se genera en ese shard (GeneradorIds) de forma
+ *   que id % N == shard. Desde ahí todo se enruta por id (deId): el usuario por su id y la
+ *   credencial por su id o por id_usuario.
+ * - Un usuario no cambia de shard: UsuarioDAO.actualizar rechaza un username nuevo cuyo hash
+ *   es de otro shard. Así deUsername(username) == deId(id) siempre, y las búsquedas por
+ *   username van sólo al shard del hash.
+ * - Las consultas sin clave de enrutamiento (getAll, páginas, email, estadísticas) corren en
+ *   todos los shards EN PARALELO (enTodos) y el DAO combina los resultados.
+ *
+ * Funcionamiento:
+ * - El shard es parte del contexto del HILO, como la transacción de TransactionManager:
+ *   enShard(shard, trabajo) lo fija y DatabaseConnection.getConnection() entrega conexiones
+ *   de ese shard. Fuera de enShard se usa el shard 0.
+ * - Una transacción queda en el shard donde se abrió: usar otro shard dentro de ella es un
+ *   error (no hay transacciones distribuidas). Para crear un usuario con su credencial en una
+ *   transacción, abrirla dentro de enShard(deUsername(...), ...).
+ *
+ * Configuración (system properties):
+ * - -Ddb.shards=1 (1 = sin shards: todo como antes, ids AUTO_INCREMENT)
+ * - -Ddb.shard.<i>.url (el shard 0 usa -Ddb.url si no se indica), -Ddb.shard.<i>.user y
+ *   -Ddb.shard.<i>.password (por defecto, los de -Ddb.user / -Ddb.password)
+ * - Cada shard tiene su propio pool, con los mismos parámetros -Ddb.pool.*
+ *
+ * Importante:
+ * - N es fijo: cambiarlo cambia el shard de cada id y de cada username (hay que redistribuir
+ *   los datos). Lo mismo al pasar a shards una BD que ya tenía datos con AUTO_INCREMENT.
+ * - Los UNIQUE valen dentro de cada shard. Un username repetido (alta o cambio de username)
+ *   siempre cae en el mismo shard (mismo hash) y el índice lo rechaza; un email repetido
+ *   en otro shard, no.
+ * - Para probar localmente alcanza con varios schemas en un mismo servidor MySQL
+ *   (ej: -Ddb.shards=3 -Ddb.shard.1.url=jdbc:mysql://localhost:3306/usuarios_1 ...);
+ *   las migraciones se aplican en cada uno al iniciar.
+ */
+public final class Shards {
+
+    /**
+     * Trabajo que recibe el shard donde corre (ver enParalelo).
+     */
+    @FunctionalInterface
+    public interface TrabajoEnShard<T> {
+        T ejecutar(int shard) throws Exception;
+    }
+
+    private static final int CANTIDAD = Integer.getInteger("db.shards", 1);
+
+    private static final ThreadLocal<Integer> ACTUAL = new ThreadLocal<>();
+
+    private Shards() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Cantidad de shards (-Ddb.shards, por defecto 1).
+     */
+    public static int cantidad() {
+        return CANTIDAD;
+    }
+
+    /**
+     * @return true si hay más de un shard
+     */
+    public static boolean habilitado() {
+        return CANTIDAD > 1;
+    }
+
+    /**
+     * Shard donde vive la fila con ese id (usuario o credencial).
+     */
+    public static int deId(int id) {
+        return Math.floorMod(id, CANTIDAD);
+    }
+
+    /**
+     * Shard donde se crea un usuario con ese username. Sin distinguir mayúsculas, igual
+     * que el UNIQUE de la BD (collation *_ci): "Ana" y "ana" caen en el mismo shard.
+     */
+    public static int deUsername(String username) {
+        if (CANTIDAD == 1) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(username.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % CANTIDAD);
+    }
+
+    /**
+     * Shard fijado en el hilo actual (0 si no hay ninguno).
+     */
+    public static int actual() {
+        Integer shard = ACTUAL.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Ejecuta el trabajo con el shard fijado en el hilo y luego restaura el anterior.
+     */
+    public static <T> T enShard(int shard, TransactionManager.Trabajo<T> trabajo) throws Exception {
+        if (shard < 0 || shard >= CANTIDAD) {
+            throw new IllegalArgumentException("Shard inexistente: " + shard + " (hay " + CANTIDAD + ")");
+        }
+        Integer anterior = ACTUAL.get();
+        ACTUAL.set(shard);
+        try {
+            return trabajo.ejecutar();
+        } finally {
+            if (anterior == null) {
+                ACTUAL.remove();
+            } else {
+                ACTUAL.set(anterior);
+            }
+        }
+    }
+
+    public static void enShard(int shard, TransactionManager.Accion accion) throws Exception {
+        enShard(shard, () -> {
+            accion.ejecutar();
+            return null;
+        });
+    }
+
+    /**
+     * Falla si la operación sobre una fila del shard indicado no puede hacerse acá: dentro de
+     * una transacción, la transacción tiene que ser de ese shard. Para los métodos '...Tx',
+     * que reciben la conexión del caller.
+     */
+    public static void verificar(int shard) throws SQLException {
+        int conexion = TransactionManager.hayTransaccion() ? TransactionManager.shardLigado() : actual();
+        if (shard != conexion) {
+            throw new SQLException("La fila corresponde al shard " + shard + " pero la transacción es del shard "
+                + conexion + " (no hay transacciones entre shards; agrupar por shard con Shards.agrupar)");
+        }
+    }
+
+    /**
+     * Agrupa las claves por shard, en orden de shard. Las claves null se descartan.
+     */
+    public static <K> Map<Integer, List<K>> agrupar(Collection<K> claves, ToIntFunction<K> shardDe) {
+        Map<Integer, List<K>> grupos = new TreeMap<>();
+        for (K clave : claves) {
+            if (clave != null) {
+                grupos.computeIfAbsent(shardDe.applyAsInt(clave), s -> new ArrayList<>()).add(clave);
+            }
+        }
+        return grupos;
+    }
+
+    /**
+     * Ejecuta el trabajo en cada shard, en paralelo, y devuelve los resultados en orden de shard.
+     */
+    public static <T> List<T> enTodos(TransactionManager.Trabajo<T> trabajo) throws Exception {
+        return enParalelo(IntStream.range(0, CANTIDAD).boxed().toList(), shard -> trabajo.ejecutar());
+    }
+
+    /**
+     * Ejecuta el trabajo en los shards indicados, uno por hilo virtual (cada uno con su shard
+     * fijado), y devuelve los resultados en el mismo orden. Con un solo shard corre en el hilo
+     * del caller. Si alguno falla, se relanza la primera excepción (en orden de shard).
+     *
+     * @throws SQLException Si el hilo tiene una transacción abierta y hay más de un shard
+     */
+    public static <T> List<T> enParalelo(Collection<Integer> shards, TrabajoEnShard<T> trabajo) throws Exception {
+        List<T> resultados = new ArrayList<>(shards.size());
+        if (shards.isEmpty()) {
+            return resultados;
+        }
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            resultados.add(enShard(shard, () -> trabajo.ejecutar(shard)));
+            return resultados;
+        }
+        if (TransactionManager.hayTransaccion()) {
+            throw new SQLException("No se puede consultar varios shards dentro de una transacción");
+        }
+        Replicas.Contexto contexto = Replicas.capturar(); // Lectura / read-your-writes del caller
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futuros = new ArrayList<>(shards.size());
+            for (int shard : shards) {
+                futuros.add(hilos.submit(() -> Replicas.con(contexto, () -> enShard(shard, () -> trabajo.ejecutar(shard)))));
+            }
+            for (Future<T> futuro : futuros) {
+                try {
+                    resultados.add(futuro.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception causa) {
+                        throw causa;
+                    }
+                    throw e;
+                }
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Concatena los cursores de todos los shards, en orden de shard. Cada cursor se abre
+     * recién cuando se terminó de recorrer el anterior (una conexión a la vez, memoria
+     * constante) y se cierra al pasar al siguiente. Usar en try-with-resources.
+     */
+    public static <T> Stream<T> concatenar(TransactionManager.Trabajo<Stream<T>> abrir) throws Exception {
+        if (CANTIDAD == 1) {
+            return abrir.ejecutar();
+        }
+        Cadena<T> cadena = new Cadena<>(abrir);
+        return StreamSupport.stream(cadena, false).onClose(cadena::cerrar);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Recorre los cursores de los shards uno detrás de otro (ver concatenar).
+     */
+    private static final class Cadena<T> extends Spliterators.AbstractSpliterator<T> {
+        private final TransactionManager.Trabajo<Stream<T>> abrir;
+        private int siguiente;
+        private Stream<T> actual;
+        private Spliterator<T> cursor;
+
+        Cadena(TransactionManager.Trabajo<Stream<T>> abrir) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.abrir = abrir;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                if (cursor != null && cursor.tryAdvance(action)) {
+                    return true;
+                }
+                cerrar();
+                if (siguiente == CANTIDAD) {
+                    return false;
+                }
+                int shard = siguiente++;
+                try {
+                    actual = enShard(shard, abrir);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Error abriendo el cursor del shard " + shard + ": " + e.getMessage(), e);
+                }
+                cursor = actual.spliterator();
+            }
+        }
+
+        void cerrar() {
+            if (actual != null) {
+                Stream<T> abierto = actual;
+                actual = null;
+                cursor = null;
+                abierto.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de PreparedStatement ligada a UNA conexión física del pool.
+ *
+ * Motivo:
+ * - Los DAOs preparan siempre las mismas constantes (SELECT_BY_ID_SQL, INSERT_SQL, ...)
+ *   en cada llamada. Con la conexión reutilizada por el pool, también podemos
+ *   reutilizar el PreparedStatement y evitar el parse/plan en cliente y servidor
+ *   (en servidor requiere useServerPrepStmts=true en la URL).
+ *
+ * Funcionamiento:
+ * - Clave = SQL + flag de claves generadas (RETURN_GENERATED_KEYS o no).
+ * - El DAO recibe un proxy: su close() NO cierra el statement, lo devuelve a la caché.
+ * - Si el mismo SQL ya está en uso en esta conexión (dos abiertos a la vez),
+ *   se prepara uno nuevo fuera de la caché que sí se cierra al hacer close().
+ * - Al superar el tamaño máximo se desaloja el menos usado recientemente (LRU).
+ *
+ * No es thread-safe a propósito: una conexión prestada la usa un solo hilo a la vez.
+ */
+public final class StatementCache {
+
+    /**
+     * Contadores compartidos por todas las cachés del pool (para dimensionarlas).
+     */
+    public record Estadisticas(long aciertos, long fallos, long desalojos, long ocupados) {
+
+        /** Proporción de aciertos entre 0 y 1. */
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    /**
+     * Acumuladores globales; el pool tiene una instancia y la comparte con cada caché.
+     */
+    static final class Contadores {
+        final LongAdder aciertos = new LongAdder();
+        final LongAdder fallos = new LongAdder();
+        final LongAdder desalojos = new LongAdder();
+        final LongAdder ocupados = new LongAdder();
+
+        Estadisticas foto() {
+            return new Estadisticas(aciertos.sum(), fallos.sum(), desalojos.sum(), ocupados.sum());
+        }
+    }
+
+    private record Clave(String sql, int clavesGeneradas) {
+    }
+
+    private static final class Entrada {
+        final PreparedStatement stmt;
+        final boolean cacheable;
+        boolean enUso;
+        boolean desalojada;
+
+        Entrada(PreparedStatement stmt, boolean cacheable) {
+            this.stmt = stmt;
+            this.cacheable = cacheable;
+        }
+    }
+
+    private final Connection fisica;
+    private final Contadores contadores;
+    private final Map<Clave, Entrada> entradas;
+
+    StatementCache(Connection fisica, int tamanioMaximo, Contadores contadores) {
+        this.fisica = fisica;
+        this.contadores = contadores;
+        // LinkedHashMap en orden de acceso = LRU
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() <= tamanioMaximo) {
+                    return false;
+                }
+                contadores.desalojos.increment();
+                Entrada entrada = eldest.getValue();
+                if (entrada.enUso) {
+                    entrada.desalojada = true; // Se cierra cuando el DAO la devuelva
+                } else {
+                    cerrarSilencioso(entrada.stmt);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelve un PreparedStatement (de la caché si es posible) envuelto en un proxy.
+     *
+     * @param sql SQL a preparar
+     * @param clavesGeneradas Statement.RETURN_GENERATED_KEYS o Statement.NO_GENERATED_KEYS
+     * @param logica Conexión que ve el DAO (la que devuelve stmt.getConnection())
+     */
+    PreparedStatement preparar(String sql, int clavesGeneradas, Connection logica) throws SQLException {
+        Clave clave = new Clave(sql, clavesGeneradas);
+        Entrada entrada = entradas.get(clave);
+
+        if (entrada == null) {
+            contadores.fallos.increment();
+            entrada = new Entrada(fisica.prepareStatement(sql, clavesGeneradas), true);
+            entradas.put(clave, entrada);
+        } else if (entrada.enUso) {
+            // Mismo SQL abierto dos veces en la misma conexión: no se cachea el segundo
+            contadores.ocupados.increment();
+            entrada = new Entrada(fisica.prepareStatement(sql, clavesGeneradas), false);
+        } else {
+            contadores.aciertos.increment();
+        }
+
+        entrada.enUso = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementPrestado(clave, entrada, logica));
+    }
+
+    /**
+     * Cierra todos los statements (la conexión física se va a cerrar).
+     */
+    void cerrarTodo() {
+        List<Entrada> todas = new ArrayList<>(entradas.values());
+        entradas.clear();
+        for (Entrada entrada : todas) {
+            cerrarSilencioso(entrada.stmt);
+        }
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private void devolver(Clave clave, Entrada entrada) {
+        entrada.enUso = false;
+        if (!entrada.cacheable || entrada.desalojada) {
+            cerrarSilencioso(entrada.stmt);
+            return;
+        }
+        try {
+            entrada.stmt.clearParameters();
+            entrada.stmt.clearBatch();
+        } catch (SQLException e) {
+            // Statement inutilizable: lo sacamos de la caché
+            entradas.remove(clave);
+            cerrarSilencioso(entrada.stmt);
+        }
+    }
+
+    private static void cerrarSilencioso(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // Nada que hacer
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy que recibe el DAO.
+     */
+    private final class StatementPrestado implements InvocationHandler {
+        private final Clave clave;
+        private final Entrada entrada;
+        private final Connection logica;
+        private boolean cerrado;
+
+        StatementPrestado(Clave clave, Entrada entrada, Connection logica) {
+            this.clave = clave;
+            this.entrada = entrada;
+            this.logica = logica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrado) {
+                        cerrado = true;
+                        devolver(clave, entrada);
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrado;
+                case "getConnection":
+                    return logica;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (cerrado) {
+                throw new SQLException("El PreparedStatement ya fue cerrado");
+            }
+            try {
+                return method.invoke(entrada.stmt, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1 +1,501 @@
+package Config;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Administrador de transacciones: UNA conexión por unidad de trabajo, ligada al hilo.
+ *
+ * Patrón: "thread-bound connection" (como el TransactionTemplate de Spring, pero mínimo)
+ * - Mientras hay una transacción abierta en el hilo, DatabaseConnection.getConnection()
+ *   devuelve la conexión de la transacción: los DAOs la reutilizan sin cambios
+ *   (insertar, actualizar, eliminar, lecturas, streamAll, búsquedas por lista).
+ * - El close() de los DAOs sobre esa conexión no hace nada; la conexión vuelve al pool
+ *   cuando termina la transacción.
+ * - commit/rollback/setAutoCommit/setReadOnly quedan reservados al TransactionManager.
+ *
+ * Uso:
+ * <pre>
+ * TransactionManager.enTransaccion(() -> {
+ *     usuarioDAO.insertar(usuario);
+ *     credencial.setIdUsuario(usuario.getId());
+ *     credencialDAO.insertar(credencial);
+ * }); // 1 conexión, 1 commit
+ * </pre>
+ *
+ * Reglas:
+ * - enTransaccion dentro de otra transacción se UNE a ella (no abre otra). Si el trabajo
+ *   interno falla, la transacción completa queda marcada para rollback.
+ * - anidada(...) usa un SAVEPOINT: si falla, sólo se deshace lo hecho dentro de ella.
+ * - alTerminar(...) corre al terminar (commit o rollback); alConfirmar(...), sólo tras el commit.
+ * - soloLectura(...) es un hint al driver/servidor (setReadOnly) y da una foto consistente
+ *   de todas las lecturas (REPEATABLE READ en InnoDB).
+ * - La conexión está ligada al HILO: el trabajo enviado a otros hilos no participa.
+ * - Con shards, la transacción es del shard fijado en el hilo al abrirla (ver Shards) y
+ *   sólo puede operar sobre ese shard.
+ *
+ * Group commit (opt-in, ver CommitAgrupado):
+ * - enGrupo(...) / enTransaccionAgrupada(...) juntan los trabajos chicos de varios hilos
+ *   en una sola transacción, cada uno aislado en su SAVEPOINT.
+ * - -Ddb.groupCommit.enabled=true -Ddb.groupCommit.windowMs=2 -Ddb.groupCommit.maxBatch=64
+ * - Deshabilitado (por defecto), cada trabajo usa su propia transacción en el hilo del caller.
+ * - Con shards no se agrupa: los trabajos de un grupo podrían ser de shards distintos.
+ *
+ * Reintentos (ver PoliticaReintentos):
+ * - Una transacción que falla por deadlock o lock wait timeout se re-ejecuta COMPLETA
+ *   (nueva conexión, mismo trabajo) con backoff exponencial. Por eso el trabajo no debe
+ *   tener efectos fuera de la BD que no se puedan repetir.
+ * - Las transacciones unidas no reintentan: el error sube hasta la transacción externa.
+ */
+public final class TransactionManager {
+
+    /**
+     * Unidad de trabajo con resultado.
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar() throws Exception;
+    }
+
+    /**
+     * Unidad de trabajo sin resultado.
+     */
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar() throws Exception;
+    }
+
+    /**
+     * Estado de la transacción ligada a un hilo.
+     */
+    private static final class Contexto {
+        final Connection conexion;      // La que devolvió el pool (close() la devuelve)
+        final Connection participante;  // La que reciben los DAOs (close() no hace nada)
+        final int shard;
+        final boolean soloLectura;
+        final List<Runnable> alTerminar = new ArrayList<>();
+        final List<Runnable> alConfirmar = new ArrayList<>();
+        boolean soloRollback;
+        boolean terminada;
+        int contadorSavepoints;
+
+        Contexto(Connection conexion, int shard, boolean soloLectura) {
+            this.conexion = conexion;
+            this.shard = shard;
+            this.soloLectura = soloLectura;
+            this.participante = (Connection) Proxy.newProxyInstance(
+                    TransactionManager.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Participante(this));
+        }
+    }
+
+    private static final ThreadLocal<Contexto> ACTUAL = new ThreadLocal<>();
+
+    /** Group commit (opt-in; no se usa con shards). */
+    private static final boolean GRUPO_HABILITADO = Boolean.getBoolean("db.groupCommit.enabled") && !Shards.habilitado();
+
+    /**
+     * Holder del group commit: el hilo se crea recién con el primer uso.
+     */
+    private static final class GrupoHolder {
+        private static final CommitAgrupado GRUPO = new CommitAgrupado(
+                Long.getLong("db.groupCommit.windowMs", 2L),
+                Integer.getInteger("db.groupCommit.maxBatch", 64));
+    }
+
+    private TransactionManager() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    // --- API PÚBLICA ---
+
+    /**
+     * Ejecuta el trabajo en una transacción (o se une a la que ya está abierta en el hilo).
+     * Commit si termina bien; rollback si lanza cualquier excepción (que se relanza).
+     */
+    public static <T> T enTransaccion(Trabajo<T> trabajo) throws Exception {
+        return ejecutar(trabajo, false);
+    }
+
+    public static void enTransaccion(Accion accion) throws Exception {
+        ejecutar(sinResultado(accion), false);
+    }
+
+    /**
+     * Igual que enTransaccion, pero marcando la conexión como read-only
+     * (sólo tiene efecto si la transacción empieza acá).
+     */
+    public static <T> T soloLectura(Trabajo<T> trabajo) throws Exception {
+        return ejecutar(trabajo, true);
+    }
+
+    /**
+     * Ejecuta el trabajo dentro de un SAVEPOINT de la transacción actual.
+     * Si falla, se vuelve al savepoint (lo anterior sigue vigente) y se relanza la excepción.
+     * Sin transacción abierta se comporta como enTransaccion.
+     */
+    public static <T> T anidada(Trabajo<T> trabajo) throws Exception {
+        Contexto ctx = ACTUAL.get();
+        if (ctx == null) {
+            return enTransaccion(trabajo);
+        }
+        Savepoint savepoint = ctx.conexion.setSavepoint("sp_" + (++ctx.contadorSavepoints));
+        boolean soloRollbackPrevio = ctx.soloRollback;
+        int confirmacionesPrevias = ctx.alConfirmar.size();
+        T resultado;
+        try {
+            resultado = trabajo.ejecutar();
+        } catch (Exception e) {
+            // Lo registrado dentro del savepoint no se va a confirmar
+            ctx.alConfirmar.subList(confirmacionesPrevias, ctx.alConfirmar.size()).clear();
+            try {
+                ctx.conexion.rollback(savepoint);
+                // Lo que marcó la falla ya se deshizo: la transacción externa puede seguir
+                ctx.soloRollback = soloRollbackPrevio;
+            } catch (SQLException errorRollback) {
+                // Ej: tras un deadlock InnoDB ya deshizo TODA la transacción (y el savepoint)
+                ctx.soloRollback = true;
+                e.addSuppressed(errorRollback);
+            }
+            throw e;
+        }
+        ctx.conexion.releaseSavepoint(savepoint);
+        return resultado;
+    }
+
+    public static void anidada(Accion accion) throws Exception {
+        anidada(sinResultado(accion));
+    }
+
+    /**
+     * Ejecuta el trabajo SIN abrir transacción (autocommit), reintentándolo ante deadlocks
+     * y lock wait timeouts. Pensado para escrituras de una sola sentencia.
+     * Dentro de una transacción no reintenta: lo hará la transacción externa.
+     */
+    public static <T> T conReintentos(Trabajo<T> trabajo) throws Exception {
+        if (ACTUAL.get() != null) {
+            return trabajo.ejecutar();
+        }
+        return PoliticaReintentos.getInstancia().ejecutar(trabajo);
+    }
+
+    public static void conReintentos(Accion accion) throws Exception {
+        conReintentos(sinResultado(accion));
+    }
+
+    /**
+     * Llamadas, reintentos, recuperadas y agotadas (ver PoliticaReintentos).
+     */
+    public static PoliticaReintentos.Estadisticas getEstadisticasReintentos() {
+        return PoliticaReintentos.getInstancia().getEstadisticas();
+    }
+
+    /**
+     * Envía el trabajo al group commit (si está habilitado) y devuelve su future.
+     * - Habilitado: se ejecuta en el hilo "commit-agrupado", junto con los de otros hilos.
+     * - Deshabilitado, o si el hilo ya tiene una transacción: se ejecuta acá mismo
+     *   (transacción propia o unida a la actual) y el future vuelve ya completo.
+     */
+    public static <T> CompletableFuture<T> enGrupo(Trabajo<T> trabajo) {
+        if (GRUPO_HABILITADO && ACTUAL.get() == null) {
+            return GrupoHolder.GRUPO.enviar(trabajo);
+        }
+        try {
+            return CompletableFuture.completedFuture(enTransaccion(trabajo));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Versión bloqueante de enGrupo: espera el commit del grupo y devuelve el resultado
+     * (o relanza la excepción del propio trabajo / del commit).
+     */
+    public static <T> T enTransaccionAgrupada(Trabajo<T> trabajo) throws Exception {
+        try {
+            return enGrupo(trabajo).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    public static void enTransaccionAgrupada(Accion accion) throws Exception {
+        enTransaccionAgrupada(sinResultado(accion));
+    }
+
+    public static boolean isCommitAgrupadoHabilitado() {
+        return GRUPO_HABILITADO;
+    }
+
+    /**
+     * Grupos, trabajos y promedio por commit.
+     *
+     * @return La foto actual, o null si el group commit está deshabilitado
+     */
+    public static CommitAgrupado.Estadisticas getEstadisticasCommitAgrupado() {
+        return GRUPO_HABILITADO ? GrupoHolder.GRUPO.getEstadisticas() : null;
+    }
+
+    /**
+     * @return true si el hilo actual tiene una transacción abierta
+     */
+    public static boolean hayTransaccion() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Conexión de la transacción actual (para los métodos '...Tx' de los DAOs).
+     *
+     * @throws IllegalStateException Si no hay transacción abierta en el hilo
+     */
+    public static Connection getConexionActual() {
+        Contexto ctx = ACTUAL.get();
+        if (ctx == null) {
+            throw new IllegalStateException("No hay una transacción abierta en este hilo");
+        }
+        return ctx.participante;
+    }
+
+    /**
+     * Obliga a que la transacción actual termine en rollback (sin lanzar excepción).
+     */
+    public static void marcarSoloRollback() {
+        Contexto ctx = ACTUAL.get();
+        if (ctx == null) {
+            throw new IllegalStateException("No hay una transacción abierta en este hilo");
+        }
+        ctx.soloRollback = true;
+    }
+
+    /**
+     * Registra una tarea para cuando la transacción termine (commit o rollback).
+     * Sin transacción abierta no hace nada: el caller ya aplicó el efecto inmediato.
+     * Uso típico: invalidar cachés DESPUÉS de que el cambio sea visible para otros hilos.
+     */
+    public static void alTerminar(Runnable tarea) {
+        Contexto ctx = ACTUAL.get();
+        if (ctx != null) {
+            ctx.alTerminar.add(tarea);
+        }
+    }
+
+    /**
+     * Registra una tarea para DESPUÉS de un commit exitoso (no corre si hay rollback, ni si
+     * se deshace el savepoint de anidada(...) donde se registró).
+     * Sin transacción abierta corre en el momento: con autocommit el cambio ya está confirmado.
+     * Uso típico: dar por sincronizado el estado en memoria (ej: Base.marcarLimpio).
+     */
+    public static void alConfirmar(Runnable tarea) {
+        Contexto ctx = ACTUAL.get();
+        if (ctx == null) {
+            tarea.run();
+        } else {
+            ctx.alConfirmar.add(tarea);
+        }
+    }
+
+    /**
+     * alConfirmar para los métodos '...Tx' de los DAOs, que reciben la conexión del caller.
+     * - Conexión de la transacción del hilo: igual que alConfirmar(tarea).
+     * - Otra conexión, en autocommit: corre en el momento.
+     * - Otra conexión, con autocommit apagado: el commit (o rollback) lo hace el caller y
+     *   desde acá no hay forma de enterarse. La tarea NO corre y se devuelve false: el DAO
+     *   debe descartar el estado en memoria que dependía de ella.
+     *
+     * @return false si la tarea se descartó
+     */
+    public static boolean alConfirmar(Connection conn, Runnable tarea) throws SQLException {
+        Contexto ctx = ACTUAL.get();
+        if (ctx != null && conn == ctx.participante) {
+            ctx.alConfirmar.add(tarea);
+            return true;
+        }
+        if (conn.getAutoCommit()) {
+            tarea.run();
+            return true;
+        }
+        return false;
+    }
+
+    // --- USADO POR DatabaseConnection ---
+
+    /**
+     * Conexión ligada al hilo, o null si no hay transacción abierta.
+     */
+    static Connection conexionLigada() {
+        Contexto ctx = ACTUAL.get();
+        return ctx == null ? null : ctx.participante;
+    }
+
+    /**
+     * Shard de la transacción del hilo, o -1 si no hay transacción abierta.
+     */
+    static int shardLigado() {
+        Contexto ctx = ACTUAL.get();
+        return ctx == null ? -1 : ctx.shard;
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static <T> T ejecutar(Trabajo<T> trabajo, boolean soloLectura) throws Exception {
+        Contexto actual = ACTUAL.get();
+        if (actual != null) {
+            // Se une a la transacción existente
+            try {
+                return trabajo.ejecutar();
+            } catch (Exception e) {
+                actual.soloRollback = true;
+                throw e;
+            }
+        }
+        return PoliticaReintentos.getInstancia().ejecutar(() -> ejecutarNueva(trabajo, soloLectura));
+    }
+
+    /**
+     * Un intento de transacción nueva: abre, ejecuta, confirma (o deshace) y libera.
+     */
+    private static <T> T ejecutarNueva(Trabajo<T> trabajo, boolean soloLectura) throws Exception {
+        Contexto ctx = new Contexto(DatabaseConnection.abrirConexion(), Shards.actual(), soloLectura);
+        ACTUAL.set(ctx);
+        boolean confirmada = false;
+        try {
+            if (soloLectura) {
+                ctx.conexion.setReadOnly(true);
+            }
+            ctx.conexion.setAutoCommit(false);
+
+            T resultado;
+            try {
+                resultado = trabajo.ejecutar();
+            } catch (Exception e) {
+                deshacer(ctx, e);
+                throw e;
+            }
+            if (ctx.soloRollback) {
+                ctx.conexion.rollback();
+                throw new SQLException("La transacción fue marcada para rollback y no se confirmó");
+            }
+            ctx.conexion.commit();
+            confirmada = true;
+            return resultado;
+        } finally {
+            ACTUAL.remove();
+            ctx.terminada = true;
+            liberar(ctx);
+            if (confirmada) {
+                correrTareas(ctx.alConfirmar);
+            }
+            correrTareas(ctx.alTerminar);
+        }
+    }
+
+    /**
+     * Corre las tareas post-transacción. Una que falla no corta a las demás (ej: las
+     * invalidaciones de caché) ni cambia el resultado de una transacción ya confirmada.
+     */
+    private static void correrTareas(List<Runnable> tareas) {
+        for (Runnable tarea : tareas) {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                System.err.println("Advertencia: falló una tarea posterior a la transacción: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rollback sin ocultar la excepción original.
+     */
+    private static void deshacer(Contexto ctx, Exception original) {
+        try {
+            ctx.conexion.rollback();
+        } catch (SQLException e) {
+            original.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Deja la conexión como la encontró y la devuelve al pool.
+     */
+    private static void liberar(Contexto ctx) {
+        try (Connection conn = ctx.conexion) {
+            conn.setAutoCommit(true);
+            if (ctx.soloLectura) {
+                conn.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            System.err.println("Advertencia: no se pudo restablecer la conexión de la transacción: " + e.getMessage());
+        }
+    }
+
+    private static Trabajo<Void> sinResultado(Accion accion) {
+        return () -> {
+            accion.ejecutar();
+            return null;
+        };
+    }
+
+    /**
+     * InvocationHandler de la conexión que reciben los DAOs dentro de una transacción.
+     * close() no hace nada y el control transaccional queda reservado; el resto se delega.
+     */
+    private static final class Participante implements InvocationHandler {
+        private final Contexto ctx;
+
+        Participante(Contexto ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null; // La cierra TransactionManager al terminar
+                case "isClosed":
+                    if (ctx.terminada) {
+                        return true;
+                    }
+                    break;
+                case "commit":
+                case "setAutoCommit":
+                case "setReadOnly":
+                    throw new SQLException("Operación '" + method.getName()
+                            + "' no permitida: la transacción la maneja TransactionManager");
+                case "rollback":
+                    if (args == null) {
+                        throw new SQLException("Operación 'rollback' no permitida: usar TransactionManager.marcarSoloRollback()");
+                    }
+                    break; // rollback(Savepoint) sí está permitido
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionDeTransaccion[" + ctx.conexion + "]";
+                default:
+                    break;
+            }
+            if (ctx.terminada) {
+                throw new SQLException("La transacción ya terminó; la conexión no puede usarse");
+            }
+            try {
+                return method.invoke(ctx.conexion, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
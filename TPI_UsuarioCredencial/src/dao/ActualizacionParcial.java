@@ -0,0 +1,108 @@
+// Paquete DAO
+package DAO;
+
+import Models.Base;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Helper para UPDATEs parciales: sólo las columnas cuyos campos cambiaron (dirty tracking).
+ *
+ * - La entidad (Models.Base) registra qué campos se modificaron desde que se leyó o guardó.
+ * - Cada combinación de columnas es una máscara de bits; su SQL se arma una sola vez y se
+ *   reutiliza (pocas formas distintas: la caché de PreparedStatement sigue siendo efectiva).
+ * - Máscara 0 = no hay nada que escribir: el DAO ni siquiera va a la BD.
+ * - Una entidad no rastreada (creada con 'new') escribe TODAS las columnas, como antes.
+ *
+ * Las columnas se escriben siempre en el orden en que se declararon.
+ */
+final class ActualizacionParcial<T extends Base> {
+
+    /**
+     * Asigna el valor de la columna en el placeholder indicado.
+     */
+    @FunctionalInterface
+    interface Parametro<T> {
+        void asignar(PreparedStatement stmt, int indice, T entidad) throws SQLException;
+    }
+
+    private record Columna<T>(String campo, String nombre, Parametro<T> parametro) {
+    }
+
+    private final String tabla;
+    private final List<Columna<T>> columnas = new ArrayList<>();
+    private AtomicReferenceArray<String> sqlPorMascara;
+
+    /**
+     * @param tabla Tabla a actualizar (el WHERE es siempre "id = ?")
+     */
+    ActualizacionParcial(String tabla) {
+        this.tabla = tabla;
+    }
+
+    /**
+     * Declara una columna actualizable. Las definiciones se arman una sola vez (campo static final).
+     *
+     * @param campo Nombre del campo rastreado en el modelo (ej: Usuario.CAMPO_EMAIL)
+     * @param nombre Columna en la tabla
+     * @param parametro Setter del placeholder
+     */
+    ActualizacionParcial<T> columna(String campo, String nombre, Parametro<T> parametro) {
+        if (columnas.size() == Integer.SIZE - 1) {
+            throw new IllegalStateException("Demasiadas columnas para una máscara int");
+        }
+        columnas.add(new Columna<>(campo, nombre, parametro));
+        sqlPorMascara = new AtomicReferenceArray<>(1 << columnas.size());
+        return this;
+    }
+
+    /**
+     * Columnas que hay que escribir, como máscara de bits (0 = ninguna).
+     */
+    int mascara(T entidad) {
+        int mascara = 0;
+        for (int i = 0; i < columnas.size(); i++) {
+            if (entidad.isModificado(columnas.get(i).campo())) {
+                mascara |= 1 << i;
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * "UPDATE tabla SET c1 = ?, c2 = ? WHERE id = ?" para la máscara (cacheado).
+     */
+    String sql(int mascara) {
+        String sql = sqlPorMascara.get(mascara);
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder("UPDATE ").append(tabla).append(" SET ");
+            boolean primera = true;
+            for (int i = 0; i < columnas.size(); i++) {
+                if ((mascara & (1 << i)) != 0) {
+                    sb.append(primera ? "" : ", ").append(columnas.get(i).nombre()).append(" = ?");
+                    primera = false;
+                }
+            }
+            sql = sb.append(" WHERE id = ?").toString();
+            sqlPorMascara.set(mascara, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Asigna los valores de las columnas de la máscara y, al final, el id del WHERE.
+     */
+    void asignarParametros(PreparedStatement stmt, int mascara, T entidad) throws SQLException {
+        int indice = 1;
+        for (int i = 0; i < columnas.size(); i++) {
+            if ((mascara & (1 << i)) != 0) {
+                columnas.get(i).parametro().asignar(stmt, indice++, entidad);
+            }
+        }
+        stmt.setInt(indice, entidad.getId());
+    }
+}
@@ -0,0 +1,213 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+import Config.TransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mueve las bajas (soft delete) antiguas de 'usuario' y 'credencial' a sus tablas de
+ * archivo (migración V6). Lo usa Service.ArchivadorEliminados, de a un lote por vez.
+ *
+ * Características:
+ * - Cada lote es UNA transacción corta: copia las filas al archivo y las borra de la tabla
+ *   viva (INSERT ... SELECT + DELETE por id, IN-lists de ConsultaPorLista). Los locks duran
+ *   lo que dura el lote, no la pasada completa.
+ * - Los candidatos salen del índice (eliminado, fecha_eliminacion): las filas vivas no se leen.
+ * - Un usuario se archiva con su credencial (esté o no dada de baja: la FK lo exige).
+ *   Las credenciales dadas de baja de usuarios vivos se archivan solas.
+ * - Si las filas copiadas y borradas no coinciden (ej: alguien tocó la fila entre la
+ *   selección y el borrado), el lote se deshace entero.
+ * - Opera en el shard fijado en el hilo (ver Config.Shards).
+ *
+ * Importante:
+ * - Archivar libera el username y el email del usuario (los UNIQUE sólo ven la tabla viva).
+ */
+public class ArchivoDAO {
+
+    /**
+     * Filas archivadas en un lote.
+     */
+    public record Lote(int usuarios, int credenciales) {
+
+        public int filas() {
+            return usuarios + credenciales;
+        }
+    }
+
+    /**
+     * Bajas pendientes de archivar (conteos del índice, sin leer filas).
+     */
+    public record Pendientes(long usuarios, long credenciales) {
+
+        public long filas() {
+            return usuarios + credenciales;
+        }
+    }
+
+    // --- QUERIES ESTATICAS ---
+
+    /** Índice (eliminado, fecha_eliminacion): rango, las más viejas primero. */
+    private static final String SELECT_USUARIOS_SQL =
+        "SELECT id FROM usuario WHERE eliminado = true AND fecha_eliminacion < ? ORDER BY fecha_eliminacion LIMIT ?";
+    private static final String SELECT_CREDENCIALES_SQL =
+        "SELECT id FROM credencial WHERE eliminado = true AND fecha_eliminacion < ? ORDER BY fecha_eliminacion LIMIT ?";
+
+    private static final String PENDIENTES_USUARIOS_SQL =
+        "SELECT COUNT(*) FROM usuario WHERE eliminado = true AND fecha_eliminacion < ?";
+    private static final String PENDIENTES_CREDENCIALES_SQL =
+        "SELECT COUNT(*) FROM credencial WHERE eliminado = true AND fecha_eliminacion < ?";
+
+    /**
+     * Plantillas por IN-list ("%s" = "?, ?, ..."; ver ConsultaPorLista).
+     * Credenciales de los usuarios archivados: van antes que el usuario (FK).
+     */
+    private static final String COPIAR_CREDENCIALES_DE_USUARIOS_SQL = "INSERT INTO credencial_archivo "
+        + "(id, `contraseña`, salt, ultimo_cambio, require_reset, id_usuario, fecha_eliminacion) "
+        + "SELECT id, `contraseña`, salt, ultimo_cambio, require_reset, id_usuario, fecha_eliminacion "
+        + "FROM credencial WHERE id_usuario IN (%s)";
+    private static final String BORRAR_CREDENCIALES_DE_USUARIOS_SQL = "DELETE FROM credencial WHERE id_usuario IN (%s)";
+
+    private static final String COPIAR_USUARIOS_SQL = "INSERT INTO usuario_archivo "
+        + "(id, nombre, apellido, username, email, activo, fechaRegistro, fecha_eliminacion) "
+        + "SELECT id, nombre, apellido, username, email, activo, fechaRegistro, fecha_eliminacion "
+        + "FROM usuario WHERE id IN (%s) AND eliminado = true";
+    private static final String BORRAR_USUARIOS_SQL = "DELETE FROM usuario WHERE id IN (%s) AND eliminado = true";
+
+    /** Credenciales dadas de baja por sí solas (el usuario sigue vivo). */
+    private static final String COPIAR_CREDENCIALES_SQL = "INSERT INTO credencial_archivo "
+        + "(id, `contraseña`, salt, ultimo_cambio, require_reset, id_usuario, fecha_eliminacion) "
+        + "SELECT id, `contraseña`, salt, ultimo_cambio, require_reset, id_usuario, fecha_eliminacion "
+        + "FROM credencial WHERE id IN (%s) AND eliminado = true";
+    private static final String BORRAR_CREDENCIALES_SQL = "DELETE FROM credencial WHERE id IN (%s) AND eliminado = true";
+
+    // --- MÉTRICAS (una por operación, ver MetricasDAO) ---
+
+    private static final OperacionDAO M_ARCHIVAR_LOTE = MetricasDAO.operacion("ArchivoDAO.archivarLote");
+    private static final OperacionDAO M_PENDIENTES = MetricasDAO.operacion("ArchivoDAO.getPendientes");
+
+    private final ContadoresUsuarios contadores = ContadoresUsuarios.getInstancia();
+
+    /**
+     * Archiva hasta 'tamanio' usuarios dados de baja antes de 'limite' (con sus credenciales)
+     * y hasta 'tamanio' credenciales dadas de baja por sí solas, en una transacción.
+     *
+     * @return Filas archivadas (0 = no queda nada por archivar)
+     * @throws SQLException Si lo copiado y lo borrado no coinciden (el lote se deshace)
+     */
+    public Lote archivarLote(LocalDateTime limite, int tamanio) throws Exception {
+        if (tamanio < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser >= 1");
+        }
+        Cronometro c = M_ARCHIVAR_LOTE.iniciar();
+        try {
+            Lote lote = TransactionManager.enTransaccion(() -> {
+                Connection conn = TransactionManager.getConexionActual();
+                List<Integer> usuarios = seleccionar(conn, SELECT_USUARIOS_SQL, limite, tamanio, c);
+                int credencialesDeUsuarios = 0;
+                if (!usuarios.isEmpty()) {
+                    credencialesDeUsuarios = mover(conn, COPIAR_CREDENCIALES_DE_USUARIOS_SQL,
+                            BORRAR_CREDENCIALES_DE_USUARIOS_SQL, usuarios, c);
+                    mover(conn, COPIAR_USUARIOS_SQL, BORRAR_USUARIOS_SQL, usuarios, c);
+                }
+                List<Integer> credenciales = seleccionar(conn, SELECT_CREDENCIALES_SQL, limite, tamanio, c);
+                int sueltas = credenciales.isEmpty() ? 0
+                    : mover(conn, COPIAR_CREDENCIALES_SQL, BORRAR_CREDENCIALES_SQL, credenciales, c);
+                if (!usuarios.isEmpty() || sueltas > 0) {
+                    TransactionManager.alConfirmar(contadores::invalidar); // Cambió la cantidad de eliminados
+                }
+                return new Lote(usuarios.size(), credencialesDeUsuarios + sueltas);
+            });
+            c.fin(lote.filas());
+            return lote;
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+    }
+
+    /**
+     * Cuántas bajas anteriores a 'limite' quedan por archivar.
+     */
+    public Pendientes getPendientes(LocalDateTime limite) throws Exception {
+        Cronometro c = M_PENDIENTES.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection())) {
+            Pendientes pendientes = new Pendientes(contar(conn, PENDIENTES_USUARIOS_SQL, limite, c),
+                    contar(conn, PENDIENTES_CREDENCIALES_SQL, limite, c));
+            c.fin(2);
+            return pendientes;
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+    }
+
+    // --- VERIFICACIÓN DE PLANES (ver VerificadorPlanes) ---
+
+    /**
+     * Las queries de este DAO con parámetros de ejemplo, para revisar su plan con EXPLAIN.
+     */
+    static List<VerificadorPlanes.Consulta> consultasVerificables() {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusDays(90));
+        String dosIds = "?, ?";
+        return List.of(
+            new VerificadorPlanes.Consulta("ArchivoDAO.usuariosParaArchivar", SELECT_USUARIOS_SQL, null, limite, 100),
+            new VerificadorPlanes.Consulta("ArchivoDAO.credencialesParaArchivar", SELECT_CREDENCIALES_SQL, null, limite, 100),
+            new VerificadorPlanes.Consulta("ArchivoDAO.pendientesUsuarios", PENDIENTES_USUARIOS_SQL, null, limite),
+            new VerificadorPlanes.Consulta("ArchivoDAO.pendientesCredenciales", PENDIENTES_CREDENCIALES_SQL, null, limite),
+            new VerificadorPlanes.Consulta("ArchivoDAO.copiarCredencialesDeUsuarios",
+                String.format(COPIAR_CREDENCIALES_DE_USUARIOS_SQL, dosIds), null, 1, 2),
+            new VerificadorPlanes.Consulta("ArchivoDAO.borrarUsuarios",
+                String.format(BORRAR_USUARIOS_SQL, dosIds), null, 1, 2));
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static List<Integer> seleccionar(Connection conn, String sql, LocalDateTime limite, int tamanio,
+                                             Cronometro c) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement stmt = c.preparado(conn.prepareStatement(sql))) {
+            stmt.setTimestamp(1, Timestamp.valueOf(limite));
+            stmt.setInt(2, tamanio);
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Copia las filas al archivo y las borra de la tabla viva.
+     *
+     * @return Filas movidas
+     */
+    private static int mover(Connection conn, String copiar, String borrar, List<Integer> ids, Cronometro c)
+            throws SQLException {
+        int copiadas = ConsultaPorLista.actualizar(conn, copiar, ids, ConsultaPorLista.TAMANIO_POR_DEFECTO, c);
+        int borradas = ConsultaPorLista.actualizar(conn, borrar, ids, ConsultaPorLista.TAMANIO_POR_DEFECTO, c);
+        if (copiadas != borradas) {
+            throw new SQLException("Archivo inconsistente: se copiaron " + copiadas + " filas y se borraron "
+                + borradas + " (el lote se deshace)");
+        }
+        return borradas;
+    }
+
+    private static long contar(Connection conn, String sql, LocalDateTime limite, Cronometro c) throws SQLException {
+        try (PreparedStatement stmt = c.preparado(conn.prepareStatement(sql))) {
+            stmt.setTimestamp(1, Timestamp.valueOf(limite));
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+import Models.CredencialAcceso;
+import Models.Usuario;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Benchmark del costo por fila: mapeo por nombre de columna vs. MapeoFilas (por índice).
+ *
+ * Modos:
+ * - Por defecto (sin BD): recorre un ResultSet en memoria con las columnas de un getAll
+ *   (usuario + credencial). La búsqueda por etiqueta imita a Connector/J (mapa exacto y,
+ *   si falla, mapa sin distinguir mayúsculas). Aísla el costo de mapear: sin red ni parseo.
+ * - --bd: recorre el getAll real (ProyeccionUsuario.COMPLETO) contra la BD configurada,
+ *   alternando ambos mapeadores. Mide el escaneo completo (red + driver + mapeo).
+ *
+ * Uso: java DAO.BenchmarkMapeo [filas=500000] [rondas=5] [--bd]
+ */
+public final class BenchmarkMapeo {
+
+    private static final String[] COLUMNAS = {"id", "eliminado", "nombre", "apellido", "username", "email",
+        "activo", "fechaRegistro", "c_id", "contraseña", "salt", "ultimo_cambio", "require_reset", "id_usuario"};
+
+    private BenchmarkMapeo() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int filas = 500_000;
+        int rondas = 5;
+        boolean contraBD = false;
+        int posicional = 0;
+        for (String arg : args) {
+            if (arg.equals("--bd")) {
+                contraBD = true;
+            } else if (posicional++ == 0) {
+                filas = Integer.parseInt(arg);
+            } else {
+                rondas = Integer.parseInt(arg);
+            }
+        }
+
+        if (contraBD) {
+            medirContraBD(rondas);
+        } else {
+            medirEnMemoria(filas, rondas);
+        }
+    }
+
+    // --- MODOS ---
+
+    private static void medirEnMemoria(int filas, int rondas) throws Exception {
+        Object[][] datos = generarFilas(filas);
+        System.out.printf("ResultSet en memoria: %,d filas x %d columnas, %d rondas (+1 de calentamiento)%n",
+                filas, COLUMNAS.length, rondas);
+
+        long mejorNombre = Long.MAX_VALUE;
+        long mejorIndice = Long.MAX_VALUE;
+        long control = 0;
+        for (int ronda = 0; ronda <= rondas; ronda++) {
+            long t0 = System.nanoTime();
+            control += recorrer(resultSetEnMemoria(datos), BenchmarkMapeo::mapearPorNombre);
+            long t1 = System.nanoTime();
+            control += recorrer(resultSetEnMemoria(datos), UsuarioDAO.MAPEO_COMPLETO.para("benchmark"));
+            long t2 = System.nanoTime();
+            if (ronda > 0) {
+                mejorNombre = Math.min(mejorNombre, t1 - t0);
+                mejorIndice = Math.min(mejorIndice, t2 - t1);
+            }
+        }
+        imprimir(filas, mejorNombre, mejorIndice, control);
+    }
+
+    private static void medirContraBD(int rondas) throws Exception {
+        String sql = ProyeccionUsuario.COMPLETO.getSelect() + "WHERE u.eliminado = false";
+        long mejorNombre = Long.MAX_VALUE;
+        long mejorIndice = Long.MAX_VALUE;
+        long filas = 0;
+        for (int ronda = 0; ronda <= rondas; ronda++) {
+            long t0 = System.nanoTime();
+            filas = escanear(sql, BenchmarkMapeo::mapearPorNombre);
+            long t1 = System.nanoTime();
+            escanear(sql, UsuarioDAO.MAPEO_COMPLETO.para(ProyeccionUsuario.COMPLETO.getSelect()));
+            long t2 = System.nanoTime();
+            if (ronda > 0) {
+                mejorNombre = Math.min(mejorNombre, t1 - t0);
+                mejorIndice = Math.min(mejorIndice, t2 - t1);
+            }
+        }
+        System.out.printf("getAll contra la BD: %,d filas, %d rondas (+1 de calentamiento)%n", filas, rondas);
+        imprimir(filas, mejorNombre, mejorIndice, filas);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static long escanear(String sql, CursorStream.MapeadorFila<Usuario> mapeador) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return recorrer(rs, mapeador);
+        }
+    }
+
+    /**
+     * Mapea todas las filas y devuelve un valor derivado (evita que el JIT descarte el trabajo).
+     */
+    private static long recorrer(ResultSet rs, CursorStream.MapeadorFila<Usuario> mapeador) throws SQLException {
+        long n = 0;
+        while (rs.next()) {
+            Usuario u = mapeador.mapear(rs);
+            n += u.getId() + (u.getCredencial() == null ? 0 : 1);
+        }
+        return n;
+    }
+
+    private static void imprimir(long filas, long nanosNombre, long nanosIndice, long control) {
+        double porFilaNombre = (double) nanosNombre / Math.max(1, filas);
+        double porFilaIndice = (double) nanosIndice / Math.max(1, filas);
+        System.out.printf("  por nombre : %8.1f ms  %7.1f ns/fila%n", nanosNombre / 1e6, porFilaNombre);
+        System.out.printf("  por índice : %8.1f ms  %7.1f ns/fila%n", nanosIndice / 1e6, porFilaIndice);
+        System.out.printf("  diferencia : %7.1f ns/fila (%.2fx)   [control %d]%n",
+                porFilaNombre - porFilaIndice, porFilaIndice == 0 ? 0 : porFilaNombre / porFilaIndice, control);
+    }
+
+    /**
+     * El mapeo anterior (búsqueda por etiqueta en cada campo de cada fila), como referencia.
+     */
+    private static Usuario mapearPorNombre(ResultSet rs) throws SQLException {
+        Usuario usuario = new Usuario();
+        usuario.setId(rs.getInt("id"));
+        usuario.setEliminado(rs.getBoolean("eliminado"));
+        usuario.setNombre(rs.getString("nombre"));
+        usuario.setApellido(rs.getString("apellido"));
+        usuario.setUsername(rs.getString("username"));
+        usuario.setEmail(rs.getString("email"));
+        usuario.setActivo(rs.getBoolean("activo"));
+        usuario.setFechaRegistro(rs.getTimestamp("fechaRegistro").toLocalDateTime());
+
+        int credId = rs.getInt("c_id");
+        if (!rs.wasNull()) {
+            CredencialAcceso credencial = new CredencialAcceso();
+            credencial.setId(credId);
+            credencial.setHashPassword(rs.getString("contraseña"));
+            credencial.setSalt(rs.getString("salt"));
+            credencial.setUltimoCambio(rs.getTimestamp("ultimo_cambio").toLocalDateTime());
+            credencial.setRequiereReset(rs.getBoolean("require_reset"));
+            credencial.setIdUsuario(rs.getInt("id_usuario"));
+            usuario.setCredencial(credencial);
+        }
+        return usuario;
+    }
+
+    private static Object[][] generarFilas(int filas) {
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        Object[][] datos = new Object[filas][];
+        for (int i = 0; i < filas; i++) {
+            boolean conCredencial = i % 10 != 0; // 1 de cada 10 sin credencial (LEFT JOIN en NULL)
+            datos[i] = new Object[]{i + 1, false, "Nombre" + i, "Apellido" + i, "user" + i, "user" + i + "@mail.com",
+                true, ahora,
+                conCredencial ? i + 1 : null, conCredencial ? "hash" + i : null, conCredencial ? "salt" + i : null,
+                conCredencial ? ahora : null, conCredencial ? false : null, conCredencial ? i + 1 : null};
+        }
+        return datos;
+    }
+
+    /**
+     * ResultSet forward-only sobre un arreglo. findColumn se resuelve como en Connector/J:
+     * con el mutex de la conexión, mapa por etiqueta exacta y, si no está, sin mayúsculas.
+     */
+    private static ResultSet resultSetEnMemoria(Object[][] datos) {
+        Map<String, Integer> exactas = new HashMap<>();
+        Map<String, Integer> sinMayusculas = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < COLUMNAS.length; i++) {
+            exactas.put(COLUMNAS[i], i + 1);
+            sinMayusculas.put(COLUMNAS[i], i + 1);
+        }
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                BenchmarkMapeo.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "getColumnCount" -> COLUMNAS.length;
+                    case "getColumnLabel", "getColumnName" -> COLUMNAS[(Integer) args[0] - 1];
+                    default -> throw new SQLException("No soportado: " + metodo.getName());
+                });
+
+        return (ResultSet) Proxy.newProxyInstance(BenchmarkMapeo.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                new InvocationHandler() {
+                    private final Object mutexConexion = new Object();
+                    private int fila = -1;
+                    private boolean ultimoNulo;
+
+                    @Override
+                    public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+                        switch (metodo.getName()) {
+                            case "next":
+                                return ++fila < datos.length;
+                            case "wasNull":
+                                return ultimoNulo;
+                            case "getMetaData":
+                                return metaData;
+                            case "close":
+                                return null;
+                            case "getInt":
+                            case "getBoolean":
+                            case "getString":
+                            case "getTimestamp":
+                                return leer(metodo, columna(args[0]));
+                            default:
+                                throw new SQLException("No soportado: " + metodo.getName());
+                        }
+                    }
+
+                    private int columna(Object columna) throws SQLException {
+                        if (columna instanceof Integer indice) {
+                            return indice;
+                        }
+                        // Connector/J resuelve la etiqueta bajo el mutex de la conexión
+                        synchronized (mutexConexion) {
+                            Integer indice = exactas.get((String) columna);
+                            if (indice == null) {
+                                indice = sinMayusculas.get((String) columna);
+                            }
+                            if (indice == null) {
+                                throw new SQLException("Columna inexistente: " + columna);
+                            }
+                            return indice;
+                        }
+                    }
+
+                    private Object leer(Method metodo, int columna) {
+                        Object valor = datos[fila][columna - 1];
+                        ultimoNulo = valor == null;
+                        if (valor != null) {
+                            return valor;
+                        }
+                        Class<?> tipo = metodo.getReturnType();
+                        return tipo == int.class ? 0 : tipo == boolean.class ? false : null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,134 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Helper para búsquedas y actualizaciones masivas "WHERE col IN (?, ?, ...)" (evita el problema N+1).
+ *
+ * - Elimina claves repetidas/nulas y parte la colección en trozos de hasta 'tamanioMaximo'.
+ * - La cantidad de placeholders se redondea a la siguiente potencia de 2 (rellenando con
+ *   la última clave): así hay pocas "formas" de SQL distintas y la caché de
+ *   PreparedStatement del pool sigue siendo efectiva.
+ * - Todos los trozos se ejecutan sobre UNA misma conexión.
+ */
+final class ConsultaPorLista {
+
+    /** Máximo de claves por IN. Override: -Ddb.in.size=... */
+    static final int TAMANIO_POR_DEFECTO = Integer.getInteger("db.in.size", 500);
+
+    private ConsultaPorLista() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Ejecuta la plantilla una vez por trozo y entrega cada fila mapeada al destino.
+     *
+     * @param plantilla SQL con un único "%s" donde van los placeholders del IN
+     * @param claves Claves a buscar (Integer o String)
+     * @param tamanioMaximo Máximo de claves por IN
+     * @param mapeador Mapea cada fila a una entidad
+     * @param destino Recibe cada entidad encontrada
+     * @param cronometro Medición de la llamada (marca cada fase por trozo)
+     */
+    static <T> void consultar(String plantilla, Collection<?> claves, int tamanioMaximo,
+                              CursorStream.MapeadorFila<T> mapeador, Consumer<T> destino,
+                              Cronometro cronometro) throws SQLException {
+        List<Object> unicas = unicas(claves);
+        if (unicas.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = cronometro.adquirida(DatabaseConnection.getConnection())) {
+            for (int desde = 0; desde < unicas.size(); desde += tamanioMaximo) {
+                List<Object> trozo = unicas.subList(desde, Math.min(desde + tamanioMaximo, unicas.size()));
+
+                try (PreparedStatement stmt = prepararTrozo(conn, plantilla, trozo, tamanioMaximo, cronometro);
+                     ResultSet rs = cronometro.ejecutado(stmt.executeQuery())) {
+                    while (rs.next()) {
+                        destino.accept(mapeador.mapear(rs));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una plantilla UPDATE una vez por trozo, sobre la conexión dada (la de la
+     * transacción: no la cierra).
+     *
+     * @param conn Conexión externa (la transacción la maneja el caller)
+     * @param plantilla SQL con un único "%s" donde van los placeholders del IN
+     * @param claves Claves de las filas a actualizar (Integer o String)
+     * @param tamanioMaximo Máximo de claves por IN
+     * @param cronometro Medición de la llamada (marca preparación y ejecución por trozo)
+     * @return Total de filas afectadas (el relleno no suma: repite una clave del mismo IN)
+     */
+    static int actualizar(Connection conn, String plantilla, Collection<?> claves, int tamanioMaximo,
+                          Cronometro cronometro) throws SQLException {
+        List<Object> unicas = unicas(claves);
+        int afectadas = 0;
+        for (int desde = 0; desde < unicas.size(); desde += tamanioMaximo) {
+            List<Object> trozo = unicas.subList(desde, Math.min(desde + tamanioMaximo, unicas.size()));
+
+            try (PreparedStatement stmt = prepararTrozo(conn, plantilla, trozo, tamanioMaximo, cronometro)) {
+                afectadas += cronometro.ejecutado(stmt.executeUpdate());
+            }
+        }
+        return afectadas;
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static List<Object> unicas(Collection<?> claves) {
+        List<Object> unicas = new ArrayList<>(new LinkedHashSet<>(claves));
+        unicas.removeIf(Objects::isNull);
+        return unicas;
+    }
+
+    /**
+     * Prepara la plantilla para el trozo, con la cantidad de placeholders "en balde".
+     */
+    private static PreparedStatement prepararTrozo(Connection conn, String plantilla, List<Object> trozo,
+                                                   int tamanioMaximo, Cronometro cronometro) throws SQLException {
+        int placeholders = tamanioBalde(trozo.size(), tamanioMaximo);
+        PreparedStatement stmt = cronometro.preparado(conn.prepareStatement(plantilla.formatted(listaPlaceholders(placeholders))));
+        try {
+            for (int i = 0; i < placeholders; i++) {
+                // Relleno: se repite la última clave (no cambia el resultado del IN)
+                stmt.setObject(i + 1, trozo.get(Math.min(i, trozo.size() - 1)));
+            }
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
+    /**
+     * Siguiente potencia de 2 mayor o igual a n, sin pasar el máximo.
+     */
+    private static int tamanioBalde(int n, int maximo) {
+        int balde = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+        return Math.min(n == 1 ? 1 : balde, maximo);
+    }
+
+    private static String listaPlaceholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+// Paquete DAO
+package DAO;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contadores en memoria de usuarios y credenciales, mantenidos por las escrituras de los DAOs.
+ *
+ * Funcionamiento:
+ * - La base es una foto calculada en SQL (EstadisticasDAO.calcularResumen); desde ahí, las
+ *   escrituras de este proceso la ajustan tras el commit (TransactionManager.alConfirmar).
+ *   Leer el resumen cuesta O(1) mientras la foto esté vigente.
+ * - Sólo se ajusta con deltas EXACTOS: altas de usuarios (el INSERT escribe 'activo') y
+ *   de credenciales (require_reset en false por DEFAULT).
+ * - Si no se conoce el estado anterior de la fila (bajas, cambios de 'activo' o de
+ *   'require_reset'), la foto se descarta y la próxima lectura vuelve a calcularla en SQL.
+ * - Los cambios de otros procesos no llegan: la foto vence a los -Destadisticas.ttlMs (60000).
+ * - Una foto que se calculó mientras llegaba una escritura no se guarda (contador de
+ *   versión), igual que en UsuarioCache: podría no incluirla o incluirla dos veces.
+ */
+final class ContadoresUsuarios {
+
+    private static final ContadoresUsuarios INSTANCIA = new ContadoresUsuarios(Long.getLong("estadisticas.ttlMs", 60000L));
+
+    private final long ttlNanos;
+
+    // Estado protegido por 'this'
+    private EstadisticasDAO.Resumen resumen;
+    private long calculadoEn;
+    private long version;
+
+    ContadoresUsuarios(long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    static ContadoresUsuarios getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Resumen vigente, o null si hay que calcularlo en SQL.
+     */
+    synchronized EstadisticasDAO.Resumen vigente() {
+        if (resumen != null && System.nanoTime() - calculadoEn > ttlNanos) {
+            resumen = null;
+        }
+        return resumen;
+    }
+
+    /**
+     * Versión actual: se pide ANTES de calcular la foto en SQL y se pasa a guardar(...).
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Guarda la foto calculada, salvo que alguna escritura haya llegado mientras tanto.
+     */
+    synchronized void guardar(EstadisticasDAO.Resumen calculado, long versionInicial) {
+        if (version == versionInicial) {
+            resumen = calculado;
+            calculadoEn = System.nanoTime();
+        }
+    }
+
+    // --- AJUSTES DESDE LAS ESCRITURAS (tras el commit) ---
+
+    /**
+     * Alta de 'cantidad' usuarios, de los cuales 'inactivos' con activo = false.
+     */
+    synchronized void usuariosInsertados(int cantidad, int inactivos) {
+        version++;
+        if (resumen != null) {
+            resumen = new EstadisticasDAO.Resumen(resumen.usuarios() + cantidad, resumen.activos() + cantidad - inactivos,
+                    resumen.inactivos() + inactivos, resumen.eliminados(), resumen.credenciales(), resumen.credencialesConReset());
+        }
+    }
+
+    synchronized void credencialesInsertadas(int cantidad) {
+        version++;
+        if (resumen != null) {
+            resumen = new EstadisticasDAO.Resumen(resumen.usuarios(), resumen.activos(), resumen.inactivos(),
+                    resumen.eliminados(), resumen.credenciales() + cantidad, resumen.credencialesConReset());
+        }
+    }
+
+    /**
+     * Cambio cuyo efecto no se conoce con exactitud: la próxima lectura recalcula en SQL.
+     */
+    synchronized void invalidar() {
+        version++;
+        resumen = null;
+    }
+}
@@ -3,11 +3,20 @@ package DAO;
 
 // Asumo que la clase de conexión está en un paquete 'Config'
 import Config.DatabaseConnection; 
+import Config.GeneradorIds;
+import Config.Replicas;
+import Config.Shards;
+import Config.TransactionManager;
 import Models.CredencialAcceso;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object para la entidad CredencialAcceso.
@@ -18,16 +27,60 @@ import java.util.List;
  * - Es más simple, no usa JOINs para cargar.
  * - Implementa 'soft delete'.
  * - Obtiene IDs generados (RETURN_GENERATED_KEYS).
- * - Proporciona métodos con conexión propia y métodos '...Tx'.
+ * - Proporciona métodos con conexión propia y métodos '...Tx'. Dentro de
+ *   TransactionManager.enTransaccion(...) los métodos "con conexión propia" reutilizan la de la transacción.
  * - Incluye búsqueda especializada por 'id_usuario' (único).
+ * - Sus escrituras invalidan al usuario dueño en UsuarioCache (el usuario se cachea con su credencial).
+ * - Con shards (ver Config.Shards): la credencial vive en el shard de su usuario (deId(idUsuario))
+ *   y su id lo reserva GeneradorIds en ese shard.
+ * - Cada operación registra métricas por fase (ver MetricasDAO / Cronometro).
  */
 public class CredencialAccesoDAO implements GenericDAO<CredencialAcceso> {
 
+    /**
+     * Caché de usuarios compartida con UsuarioDAO.
+     */
+    private final UsuarioCache usuarioCache;
+
+    /**
+     * Contadores de EstadisticasDAO (se ajustan tras cada commit).
+     */
+    private final ContadoresUsuarios contadores = ContadoresUsuarios.getInstancia();
+
+    /**
+     * Filas por executeBatch en insertarBatch/insertBatchTx.
+     */
+    private int tamanioLote = InsercionPorLotes.TAMANIO_POR_DEFECTO;
+
+    /**
+     * Constructor por defecto: usa la caché compartida.
+     */
+    public CredencialAccesoDAO() {
+        this(UsuarioCache.getInstancia());
+    }
+
+    public CredencialAccesoDAO(UsuarioCache usuarioCache) {
+        this.usuarioCache = usuarioCache;
+    }
+
     // --- QUERIES ESTATICAS ---
 
     private static final String INSERT_SQL = "INSERT INTO credencial (contraseña, salt, id_usuario) VALUES (?, ?, ?)";
-    private static final String UPDATE_SQL = "UPDATE credencial SET contraseña = ?, salt = ?, require_reset = ? WHERE id = ?";
-    private static final String DELETE_SQL = "UPDATE credencial SET eliminado = true WHERE id = ?";
+
+    /**
+     * Inserción con shards: el id lo reserva GeneradorIds.
+     */
+    private static final String INSERT_CON_ID_SQL = "INSERT INTO credencial (contraseña, salt, id_usuario, id) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Actualización parcial: sólo las columnas que cambiaron (ver ActualizacionParcial).
+     */
+    private static final ActualizacionParcial<CredencialAcceso> UPDATE = new ActualizacionParcial<CredencialAcceso>("credencial")
+        .columna(CredencialAcceso.CAMPO_HASH_PASSWORD, "contraseña", (stmt, i, cred) -> stmt.setString(i, cred.getHashPassword()))
+        .columna(CredencialAcceso.CAMPO_SALT, "salt", (stmt, i, cred) -> stmt.setString(i, cred.getSalt()))
+        .columna(CredencialAcceso.CAMPO_REQUIERE_RESET, "require_reset", (stmt, i, cred) -> stmt.setBoolean(i, cred.getRequiereReset()));
+
+    private static final String DELETE_SQL = "UPDATE credencial SET eliminado = true, fecha_eliminacion = CURRENT_TIMESTAMP WHERE id = ?";
     private static final String SELECT_BY_ID_SQL = "SELECT * FROM credencial WHERE id = ? AND eliminado = false";
     private static final String SELECT_ALL_SQL = "SELECT * FROM credencial WHERE eliminado = false";
     
@@ -37,108 +90,380 @@ public class CredencialAccesoDAO implements GenericDAO<CredencialAcceso> {
      */
     private static final String SELECT_BY_ID_USUARIO_SQL = "SELECT * FROM credencial WHERE id_usuario = ? AND eliminado = false";
 
+    /**
+     * Plantilla para buscar credenciales de muchos usuarios a la vez ("%s" = "?, ?, ...").
+     */
+    private static final String SELECT_BY_ID_USUARIOS_SQL = "SELECT * FROM credencial WHERE id_usuario IN (%s) AND eliminado = false";
+
+    // --- MÉTRICAS (una por operación, ver MetricasDAO) ---
+
+    private static final OperacionDAO M_INSERTAR = MetricasDAO.operacion("CredencialAccesoDAO.insertar");
+    private static final OperacionDAO M_INSERT_TX = MetricasDAO.operacion("CredencialAccesoDAO.insertTx");
+    private static final OperacionDAO M_INSERT_BATCH_TX = MetricasDAO.operacion("CredencialAccesoDAO.insertBatchTx");
+    private static final OperacionDAO M_ACTUALIZAR = MetricasDAO.operacion("CredencialAccesoDAO.actualizar");
+    private static final OperacionDAO M_ACTUALIZAR_SIN_CAMBIOS = MetricasDAO.operacion("CredencialAccesoDAO.actualizarSinCambios");
+    private static final OperacionDAO M_ELIMINAR = MetricasDAO.operacion("CredencialAccesoDAO.eliminar");
+    private static final OperacionDAO M_GET_BY_ID = MetricasDAO.operacion("CredencialAccesoDAO.getById");
+    private static final OperacionDAO M_GET_ALL = MetricasDAO.operacion("CredencialAccesoDAO.getAll");
+    private static final OperacionDAO M_STREAM_ALL = MetricasDAO.operacion("CredencialAccesoDAO.streamAll");
+    private static final OperacionDAO M_GET_BY_ID_USUARIO = MetricasDAO.operacion("CredencialAccesoDAO.getByIdUsuario");
+    private static final OperacionDAO M_GET_BY_ID_USUARIOS = MetricasDAO.operacion("CredencialAccesoDAO.getByIdUsuarios");
+
+    // --- MAPEO POR ÍNDICE (ver MapeoFilas) ---
+
+    /**
+     * Posiciones dentro de COLUMNAS (el índice JDBC real se resuelve por query).
+     */
+    private static final int COL_ID = 0;
+    private static final int COL_ELIMINADO = 1;
+    private static final int COL_CONTRASENIA = 2;
+    private static final int COL_SALT = 3;
+    private static final int COL_ULTIMO_CAMBIO = 4;
+    private static final int COL_REQUIERE_RESET = 5;
+    private static final int COL_ID_USUARIO = 6;
+
+    private static final String[] COLUMNAS = {"id", "eliminado", "contraseña", "salt", "ultimo_cambio",
+        "require_reset", "id_usuario"};
+
+    /**
+     * Todas las lecturas son "SELECT * FROM credencial ...": una sola forma de columnas.
+     */
+    private static final String FORMA_CREDENCIAL = "SELECT * FROM credencial";
+
+    static final MapeoFilas<CredencialAcceso> MAPEO_CREDENCIAL =
+        new MapeoFilas<>(COLUMNAS, CredencialAccesoDAO::mapResultSetToCredencial);
+
     // --- IMPLEMENTACIÓN GenericDAO ---
 
     @Override
     public void insertar(CredencialAcceso credencial) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        Shards.enShard(Shards.deId(credencial.getIdUsuario()), () -> insertarEnShard(credencial));
+    }
+
+    /**
+     * INSERT con conexión propia, en el shard del hilo.
+     */
+    private void insertarEnShard(CredencialAcceso credencial) throws Exception {
+        Cronometro c = M_INSERTAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(prepararInsert(conn))) {
             
-            setCredencialParameters(stmt, credencial);
-            stmt.executeUpdate();
-            setGeneratedId(stmt, credencial);
+            insertarFila(stmt, credencial, c);
+            TransactionManager.alConfirmar(credencial::marcarLimpio);
+            TransactionManager.alConfirmar(() -> contadores.credencialesInsertadas(1));
+            c.fin(1);
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
+        invalidarCache(() -> usuarioCache.invalidar(credencial.getIdUsuario()));
     }
 
     @Override
     public void insertTx(CredencialAcceso credencial, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        Shards.verificar(Shards.deId(credencial.getIdUsuario()));
+        Cronometro c = M_INSERT_TX.iniciar();
+        try (PreparedStatement stmt = c.preparado(prepararInsert(conn))) {
             
-            setCredencialParameters(stmt, credencial);
-            stmt.executeUpdate();
-            setGeneratedId(stmt, credencial);
+            insertarFila(stmt, credencial, c);
+            alConfirmarTx(conn, credencial::marcarLimpio);
+            alConfirmarTx(conn, () -> contadores.credencialesInsertadas(1));
+            c.fin(1);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        invalidarCache(() -> usuarioCache.invalidar(credencial.getIdUsuario()));
+    }
+
+    /**
+     * Inserta credenciales en lotes (versión con conexión propia, una sola transacción).
+     * Cada credencial debe traer su idUsuario (ej: el ID generado por UsuarioDAO.insertBatchTx).
+     * Con shards, una transacción por shard (los shards ya confirmados no se deshacen).
+     * Si el hilo ya tiene una transacción abierta (TransactionManager), se une a ella.
+     */
+    @Override
+    public void insertarBatch(List<CredencialAcceso> credenciales) throws Exception {
+        for (Map.Entry<Integer, List<CredencialAcceso>> grupo
+                : Shards.agrupar(credenciales, cred -> Shards.deId(cred.getIdUsuario())).entrySet()) {
+            Shards.enShard(grupo.getKey(), () -> TransactionManager.enTransaccion(
+                    () -> insertBatchTx(grupo.getValue(), TransactionManager.getConexionActual())));
         }
     }
 
+    /**
+     * Con shards, todas las credenciales deben ser de usuarios del shard de la transacción.
+     */
+    @Override
+    public void insertBatchTx(List<CredencialAcceso> credenciales, Connection conn) throws Exception {
+        Cronometro c = M_INSERT_BATCH_TX.iniciar();
+        try {
+            if (Shards.habilitado()) {
+                for (CredencialAcceso credencial : credenciales) {
+                    int shard = Shards.deId(credencial.getIdUsuario());
+                    Shards.verificar(shard);
+                    credencial.setId(GeneradorIds.siguiente(GeneradorIds.CREDENCIAL, shard));
+                }
+                InsercionPorLotes.insertar(conn, INSERT_CON_ID_SQL, credenciales, tamanioLote,
+                        this::setCredencialParametersConId, null, c);
+            } else {
+                InsercionPorLotes.insertar(conn, INSERT_SQL, credenciales, tamanioLote,
+                        this::setCredencialParameters, CredencialAcceso::setId, c);
+            }
+            c.fin(credenciales.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        int insertadas = credenciales.size();
+        alConfirmarTx(conn, () -> contadores.credencialesInsertadas(insertadas));
+        for (CredencialAcceso credencial : credenciales) {
+            alConfirmarTx(conn, credencial::marcarLimpio);
+            invalidarCache(() -> usuarioCache.invalidar(credencial.getIdUsuario()));
+        }
+    }
+
+    /**
+     * Cambia la cantidad de filas por executeBatch (por defecto -Ddb.batch.size o 500).
+     */
+    public void setTamanioLote(int tamanioLote) {
+        if (tamanioLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser >= 1");
+        }
+        this.tamanioLote = tamanioLote;
+    }
+
     @Override
     public void actualizar(CredencialAcceso credencial) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+        Shards.enShard(Shards.deId(credencial.getId()), () -> actualizarEnShard(credencial));
+    }
+
+    /**
+     * UPDATE en el shard del hilo.
+     */
+    private void actualizarEnShard(CredencialAcceso credencial) throws Exception {
+        // Sólo las columnas modificadas; sin cambios no hay round trip
+        int mascara = UPDATE.mascara(credencial);
+        if (mascara == 0) {
+            M_ACTUALIZAR_SIN_CAMBIOS.iniciar().fin(0);
+            return;
+        }
+        Cronometro c = M_ACTUALIZAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(UPDATE.sql(mascara)))) {
             
-            stmt.setString(1, credencial.getHashPassword());
-            stmt.setString(2, credencial.getSalt());
-            stmt.setBoolean(3, credencial.getRequiereReset());
-            stmt.setInt(4, credencial.getId()); // ID en el WHERE
+            UPDATE.asignarParametros(stmt, mascara, credencial); // ID al final, en el WHERE
             
-            int rowsAffected = stmt.executeUpdate();
+            int rowsAffected = c.ejecutado(stmt.executeUpdate());
             if (rowsAffected == 0) {
                 throw new SQLException("No se pudo actualizar la credencial con ID: " + credencial.getId());
             }
+            if (credencial.isModificado(CredencialAcceso.CAMPO_REQUIERE_RESET)) {
+                TransactionManager.alConfirmar(contadores::invalidar); // No se sabe el valor anterior en la BD
+            }
+            TransactionManager.alConfirmar(credencial::marcarLimpio);
+            c.fin(rowsAffected);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        } finally {
+            invalidarCache(() -> usuarioCache.invalidarPorCredencial(credencial.getId(), credencial.getIdUsuario()));
         }
     }
 
     @Override
     public void eliminar(int id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        Shards.enShard(Shards.deId(id), () -> eliminarEnShard(id));
+    }
+
+    /**
+     * Soft delete en el shard del hilo.
+     */
+    private void eliminarEnShard(int id) throws Exception {
+        Cronometro c = M_ELIMINAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(DELETE_SQL))) {
             
             stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
+            int rowsAffected = c.ejecutado(stmt.executeUpdate());
             if (rowsAffected == 0) {
                 throw new SQLException("No se encontró credencial con ID: " + id);
             }
+            TransactionManager.alConfirmar(contadores::invalidar);
+            c.fin(rowsAffected);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        } finally {
+            invalidarCache(() -> usuarioCache.invalidarPorCredencial(id, 0));
         }
     }
 
     @Override
     public CredencialAcceso getById(int id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
-            
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToCredencial(rs);
-                }
-            }
-        }
-        return null;
+        return Replicas.leer(() -> Shards.enShard(Shards.deId(id), () -> buscarUna(M_GET_BY_ID, SELECT_BY_ID_SQL, id)));
     }
 
+    /**
+     * Con shards, las credenciales de todos los shards ordenadas por id. Con réplicas, se leen de una réplica.
+     */
     @Override
     public List<CredencialAcceso> getAll() throws Exception {
+        List<List<CredencialAcceso>> porShard = Replicas.leer(() -> Shards.enTodos(this::getAllEnShard));
+        if (porShard.size() == 1) {
+            return porShard.get(0);
+        }
+        List<CredencialAcceso> todas = new ArrayList<>();
+        for (List<CredencialAcceso> parte : porShard) {
+            todas.addAll(parte);
+        }
+        todas.sort(Comparator.comparingInt(CredencialAcceso::getId));
+        return todas;
+    }
+
+    /**
+     * getAll() en el shard del hilo.
+     */
+    private List<CredencialAcceso> getAllEnShard() throws Exception {
         List<CredencialAcceso> credenciales = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL);
-             ResultSet rs = stmt.executeQuery()) {
+        Cronometro c = M_GET_ALL.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(SELECT_ALL_SQL));
+             ResultSet rs = c.ejecutado(stmt.executeQuery())) {
             
+            CursorStream.MapeadorFila<CredencialAcceso> mapeador = MAPEO_CREDENCIAL.para(FORMA_CREDENCIAL);
             while (rs.next()) {
-                credenciales.add(mapResultSetToCredencial(rs));
+                credenciales.add(mapeador.mapear(rs));
             }
+            c.fin(credenciales.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
         return credenciales;
     }
 
+    /**
+     * Recorre todas las credenciales activas con un cursor (memoria constante).
+     * Usar en try-with-resources.
+     */
+    @Override
+    public Stream<CredencialAcceso> streamAll() throws Exception {
+        return streamAll(CursorStream.FETCH_POR_DEFECTO);
+    }
+
+    public Stream<CredencialAcceso> streamAll(int tamanioFetch) throws Exception {
+        return Shards.concatenar(() -> CursorStream.abrir(SELECT_ALL_SQL, tamanioFetch,
+                MAPEO_CREDENCIAL.para(FORMA_CREDENCIAL), M_STREAM_ALL));
+    }
+
     // --- MÉTODOS ESPECIALIZADOS ---
 
     /**
      * Busca una credencial usando el ID del Usuario (que es UNIQUE).
      */
     public CredencialAcceso getByIdUsuario(int idUsuario) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_USUARIO_SQL)) {
+        return Replicas.leer(() -> Shards.enShard(Shards.deId(idUsuario),
+                () -> buscarUna(M_GET_BY_ID_USUARIO, SELECT_BY_ID_USUARIO_SQL, idUsuario)));
+    }
+
+    /**
+     * Busca las credenciales de muchos usuarios en pocos round trips (IN-lists por trozos).
+     * Con shards, una consulta por shard, en paralelo.
+     *
+     * @return Mapa idUsuario -> CredencialAcceso (los usuarios sin credencial no aparecen)
+     */
+    public Map<Integer, CredencialAcceso> getByIdUsuarios(Collection<Integer> idsUsuario) throws Exception {
+        Map<Integer, List<Integer>> grupos = Shards.agrupar(idsUsuario, Shards::deId);
+        Map<Integer, CredencialAcceso> resultado = new LinkedHashMap<>();
+        for (Map<Integer, CredencialAcceso> parcial
+                : Shards.enParalelo(grupos.keySet(), shard -> getByIdUsuariosEnShard(grupos.get(shard)))) {
+            resultado.putAll(parcial);
+        }
+        return resultado;
+    }
+
+    // --- VERIFICACIÓN DE PLANES (ver VerificadorPlanes) ---
+
+    /**
+     * Las queries de este DAO con parámetros de ejemplo, para revisar su plan con EXPLAIN.
+     */
+    static List<VerificadorPlanes.Consulta> consultasVerificables() {
+        return List.of(
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.getById", SELECT_BY_ID_SQL, null, 1),
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.getAll", SELECT_ALL_SQL, "credencial"),
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.getByIdUsuario", SELECT_BY_ID_USUARIO_SQL, null, 1),
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.getByIdUsuarios",
+                String.format(SELECT_BY_ID_USUARIOS_SQL, "?, ?"), null, 1, 2),
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.actualizar", UPDATE.sql(1), null, "hash", 1),
+            new VerificadorPlanes.Consulta("CredencialAccesoDAO.eliminar", DELETE_SQL, null, 1));
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Query por una clave única (id o id_usuario) en el shard del hilo.
+     */
+    private CredencialAcceso buscarUna(OperacionDAO operacion, String sql, int clave) throws Exception {
+        Cronometro c = operacion.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(sql))) {
             
-            stmt.setInt(1, idUsuario);
-            try (ResultSet rs = stmt.executeQuery()) {
+            stmt.setInt(1, clave);
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
                 if (rs.next()) {
-                    return mapResultSetToCredencial(rs);
+                    CredencialAcceso credencial = MAPEO_CREDENCIAL.mapear(FORMA_CREDENCIAL, rs);
+                    c.fin(1);
+                    return credencial;
                 }
             }
+            c.fin(0);
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
         return null;
     }
 
-    // --- MÉTODOS PRIVADOS (HELPERS) ---
+    /**
+     * getByIdUsuarios(...) en el shard del hilo.
+     */
+    private Map<Integer, CredencialAcceso> getByIdUsuariosEnShard(Collection<Integer> idsUsuario) throws Exception {
+        Map<Integer, CredencialAcceso> resultado = new LinkedHashMap<>();
+        Cronometro c = M_GET_BY_ID_USUARIOS.iniciar();
+        try {
+            ConsultaPorLista.consultar(SELECT_BY_ID_USUARIOS_SQL, idsUsuario, ConsultaPorLista.TAMANIO_POR_DEFECTO,
+                    MAPEO_CREDENCIAL.para(FORMA_CREDENCIAL), cred -> resultado.put(cred.getIdUsuario(), cred), c);
+            c.fin(resultado.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        return resultado;
+    }
+
+    /**
+     * TransactionManager.alConfirmar(conn, tarea) para los métodos '...Tx'. Si el caller
+     * maneja la transacción por su cuenta (sin TransactionManager, autocommit apagado) no se
+     * sabe si va a confirmar: se descartan los contadores y la credencial no se marca limpia.
+     */
+    private void alConfirmarTx(Connection conn, Runnable tarea) throws SQLException {
+        if (!TransactionManager.alConfirmar(conn, tarea)) {
+            contadores.invalidar();
+        }
+    }
+
+    /**
+     * Invalida ahora y, si hay una transacción abierta, otra vez al terminar: así no queda
+     * cacheado un dato sin confirmar (rollback) ni uno viejo leído antes del commit.
+     * Con réplicas, también marca la escritura (read-your-writes) e invalida una vez más
+     * cuando las réplicas ya tienen el cambio (ver Config.Replicas).
+     */
+    private void invalidarCache(Runnable invalidacion) {
+        invalidacion.run();
+        TransactionManager.alTerminar(invalidacion);
+        Replicas.registrarEscritura(invalidacion);
+    }
 
     /**
      * Método helper para setear parámetros de INSERT.
@@ -149,6 +474,38 @@ public class CredencialAccesoDAO implements GenericDAO<CredencialAcceso> {
         stmt.setInt(3, credencial.getIdUsuario()); // FK del usuario
     }
 
+    /**
+     * Parámetros del INSERT con id (con shards): los de setCredencialParameters + el id reservado.
+     */
+    private void setCredencialParametersConId(PreparedStatement stmt, CredencialAcceso credencial) throws SQLException {
+        setCredencialParameters(stmt, credencial);
+        stmt.setInt(4, credencial.getId());
+    }
+
+    /**
+     * Prepara el INSERT: sin shards pide el id generado; con shards el id ya viaja en el INSERT.
+     */
+    private PreparedStatement prepararInsert(Connection conn) throws SQLException {
+        return Shards.habilitado()
+            ? conn.prepareStatement(INSERT_CON_ID_SQL)
+            : conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * Ejecuta el INSERT preparado con prepararInsert y asigna el id a la credencial.
+     */
+    private void insertarFila(PreparedStatement stmt, CredencialAcceso credencial, Cronometro c) throws SQLException {
+        if (Shards.habilitado()) {
+            credencial.setId(GeneradorIds.siguiente(GeneradorIds.CREDENCIAL, Shards.deId(credencial.getIdUsuario())));
+            setCredencialParametersConId(stmt, credencial);
+            c.ejecutado(stmt.executeUpdate());
+        } else {
+            setCredencialParameters(stmt, credencial);
+            c.ejecutado(stmt.executeUpdate());
+            setGeneratedId(stmt, credencial);
+        }
+    }
+
     /**
      * Método helper para obtener el ID auto-generado y asignarlo al objeto.
      * Nota: Tu clase Base debe tener 'setId(int id)'
@@ -165,20 +522,23 @@ public class CredencialAccesoDAO implements GenericDAO<CredencialAcceso> {
 
     /**
      * Método helper para "mapear" el ResultSet a un objeto CredencialAcceso.
+     * Lee por índice: 'col' lo resuelve MapeoFilas una vez por query.
      */
-    private CredencialAcceso mapResultSetToCredencial(ResultSet rs) throws SQLException {
+    private static CredencialAcceso mapResultSetToCredencial(ResultSet rs, int[] col) throws SQLException {
         CredencialAcceso cred = new CredencialAcceso();
         
         // Campos Base
-        cred.setId(rs.getInt("id"));
-        cred.setEliminado(rs.getBoolean("eliminado"));
+        cred.setId(rs.getInt(col[COL_ID]));
+        cred.setEliminado(rs.getBoolean(col[COL_ELIMINADO]));
         
         // Campos CredencialAcceso
-        cred.setHashPassword(rs.getString("contraseña"));
-        cred.setSalt(rs.getString("salt"));
-        cred.setUltimoCambio(rs.getTimestamp("ultimo_cambio").toLocalDateTime());
-        cred.setRequiereReset(rs.getBoolean("require_reset"));
-        cred.setIdUsuario(rs.getInt("id_usuario"));
+        cred.setHashPassword(rs.getString(col[COL_CONTRASENIA]));
+        cred.setSalt(rs.getString(col[COL_SALT]));
+        Timestamp ultimoCambio = rs.getTimestamp(col[COL_ULTIMO_CAMBIO]);
+        cred.setUltimoCambio(ultimoCambio == null ? null : ultimoCambio.toLocalDateTime());
+        cred.setRequiereReset(rs.getBoolean(col[COL_REQUIERE_RESET]));
+        cred.setIdUsuario(rs.getInt(col[COL_ID_USUARIO]));
+        cred.marcarLimpio(); // Recién leída: sin cambios pendientes
         
         return cred;
     }
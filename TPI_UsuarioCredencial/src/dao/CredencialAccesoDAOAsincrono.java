@@ -0,0 +1,30 @@
+// Paquete DAO
+package DAO;
+
+import Models.CredencialAcceso;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fachada asíncrona de CredencialAccesoDAO (ver DAOAsincrono).
+ * Agrega las búsquedas por id de usuario.
+ */
+public class CredencialAccesoDAOAsincrono extends DAOAsincrono<CredencialAcceso> {
+
+    private final CredencialAccesoDAO credencialDAO;
+
+    public CredencialAccesoDAOAsincrono(CredencialAccesoDAO credencialDAO) {
+        super(credencialDAO);
+        this.credencialDAO = credencialDAO;
+    }
+
+    public CompletableFuture<CredencialAcceso> getByIdUsuario(int idUsuario) {
+        return ejecutar(() -> credencialDAO.getByIdUsuario(idUsuario));
+    }
+
+    public CompletableFuture<Map<Integer, CredencialAcceso>> getByIdUsuarios(Collection<Integer> idsUsuario) {
+        return ejecutar(() -> credencialDAO.getByIdUsuarios(idsUsuario));
+    }
+}
@@ -0,0 +1,186 @@
+// Paquete DAO
+package DAO;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Mide las fases de UNA llamada de DAO sin reservar memoria.
+ *
+ * Uso (las marcas devuelven su argumento para poder usarse dentro del try-with-resources):
+ * <pre>
+ * Cronometro c = M_GET_BY_ID.iniciar();
+ * try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+ *      PreparedStatement stmt = c.preparado(conn.prepareStatement(SQL))) {
+ *     try (ResultSet rs = c.ejecutado(stmt.executeQuery())) { ... }
+ *     c.fin(filas);
+ * } catch (Exception e) {
+ *     c.error();
+ *     throw e;
+ * }
+ * </pre>
+ *
+ * - Los cronómetros se reutilizan. Hilos de plataforma: una cadena por hilo (soporta
+ *   llamadas anidadas). Hilos virtuales (DAOs asíncronos, consultas en paralelo por shard):
+ *   son de un solo uso, y un ThreadLocal asignaría un cronómetro y una entrada de mapa por
+ *   hilo; toman uno de una lista libre compartida y lo devuelven al terminar.
+ * - fin() y error() son idempotentes: el que llega primero cierra la medición. Sólo cuentan
+ *   en el hilo que la inició (un error() tardío no toca un cronómetro que ya se devolvió a la
+ *   lista libre y usa otro hilo).
+ */
+final class Cronometro {
+
+    private static final ThreadLocal<Cronometro> RAIZ = ThreadLocal.withInitial(Cronometro::new);
+
+    /**
+     * Lista libre de los hilos virtuales: ranuras sin lock (se toma con compareAndSet). Cada
+     * hilo empieza a buscar en la ranura de su id, así que devuelve el cronómetro donde lo
+     * tomó. Sólo con más de LIBRES mediciones virtuales simultáneas se crea uno nuevo (y al
+     * devolverlo, si no hay lugar, se descarta).
+     */
+    private static final int LIBRES = 64;
+    private static final AtomicReferenceArray<Cronometro> LISTA_LIBRE = listaLibre();
+
+    private final boolean compartido; // true = de LISTA_LIBRE (se devuelve al liberar)
+    private Cronometro siguiente;
+    private boolean activo;
+    private Thread duenio;
+    private OperacionDAO operacion;
+    private long inicio;
+    private long marca;
+
+    private Cronometro() {
+        this(false);
+    }
+
+    private Cronometro(boolean compartido) {
+        this.compartido = compartido;
+    }
+
+    /**
+     * Toma el primer cronómetro libre del hilo (el anidamiento es LIFO) o, en un hilo
+     * virtual, uno de la lista libre.
+     */
+    static Cronometro iniciar(OperacionDAO operacion) {
+        Cronometro c;
+        if (Thread.currentThread().isVirtual()) {
+            c = tomarLibre();
+        } else {
+            c = RAIZ.get();
+            while (c.activo) {
+                if (c.siguiente == null) {
+                    c.siguiente = new Cronometro(); // Sólo la primera vez que se anida a esta profundidad
+                }
+                c = c.siguiente;
+            }
+        }
+        c.activo = true;
+        c.duenio = Thread.currentThread();
+        c.operacion = operacion;
+        c.inicio = System.nanoTime();
+        c.marca = c.inicio;
+        return c;
+    }
+
+    /** Marca el fin de la adquisición de la conexión. */
+    <T> T adquirida(T conexion) {
+        marcar(OperacionDAO.Fase.ADQUISICION);
+        return conexion;
+    }
+
+    /** Marca el fin de la preparación del statement. */
+    <T> T preparado(T statement) {
+        marcar(OperacionDAO.Fase.PREPARACION);
+        return statement;
+    }
+
+    /** Marca el fin de la ejecución (executeQuery / executeBatch). */
+    <T> T ejecutado(T resultado) {
+        marcar(OperacionDAO.Fase.EJECUCION);
+        return resultado;
+    }
+
+    /** Marca el fin de la ejecución (executeUpdate, sin boxing). */
+    int ejecutado(int filasAfectadas) {
+        marcar(OperacionDAO.Fase.EJECUCION);
+        return filasAfectadas;
+    }
+
+    /**
+     * Cierra la medición con éxito. Lo transcurrido desde la última marca cuenta como mapeo.
+     */
+    void fin(long filas) {
+        if (!midiendo()) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        operacion.registrar(OperacionDAO.Fase.MAPEO, ahora - marca);
+        operacion.registrar(OperacionDAO.Fase.TOTAL, ahora - inicio);
+        operacion.registrarFilas(filas);
+        liberar();
+    }
+
+    /**
+     * Cierra la medición con error (cuenta el error y el tiempo total).
+     */
+    void error() {
+        if (!midiendo()) {
+            return;
+        }
+        operacion.registrar(OperacionDAO.Fase.TOTAL, System.nanoTime() - inicio);
+        operacion.registrarError();
+        liberar();
+    }
+
+    private void marcar(OperacionDAO.Fase fase) {
+        long ahora = System.nanoTime();
+        operacion.registrar(fase, ahora - marca);
+        marca = ahora;
+    }
+
+    private boolean midiendo() {
+        return activo && duenio == Thread.currentThread();
+    }
+
+    private void liberar() {
+        activo = false;
+        duenio = null;
+        operacion = null;
+        if (compartido) {
+            devolverLibre(this);
+        }
+    }
+
+    private static Cronometro tomarLibre() {
+        int inicio = ranura();
+        for (int k = 0; k < LIBRES; k++) {
+            int i = (inicio + k) & (LIBRES - 1);
+            Cronometro c = LISTA_LIBRE.get(i);
+            if (c != null && LISTA_LIBRE.compareAndSet(i, c, null)) {
+                return c;
+            }
+        }
+        return new Cronometro(true); // Todos en uso
+    }
+
+    private static void devolverLibre(Cronometro c) {
+        int inicio = ranura();
+        for (int k = 0; k < LIBRES; k++) {
+            int i = (inicio + k) & (LIBRES - 1);
+            if (LISTA_LIBRE.get(i) == null && LISTA_LIBRE.compareAndSet(i, null, c)) {
+                return;
+            }
+        }
+    }
+
+    private static int ranura() {
+        return (int) Thread.currentThread().threadId() & (LIBRES - 1);
+    }
+
+    private static AtomicReferenceArray<Cronometro> listaLibre() {
+        AtomicReferenceArray<Cronometro> lista = new AtomicReferenceArray<>(LIBRES);
+        for (int i = 0; i < LIBRES; i++) {
+            lista.set(i, new Cronometro(true));
+        }
+        return lista;
+    }
+}
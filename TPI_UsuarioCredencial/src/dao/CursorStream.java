@@ -0,0 +1,129 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Helper para lecturas "streaming": convierte un cursor JDBC en un Stream perezoso.
+ *
+ * - Cursor forward-only y read-only con fetch size configurable: la memoria no
+ *   depende del tamaño de la tabla y la primera fila llega sin esperar a la última.
+ * - El Stream mantiene abiertos conexión, statement y ResultSet hasta que se cierra:
+ *   el caller DEBE usarlo en try-with-resources.
+ * - Con MySQL, el fetch size sólo se respeta con useCursorFetch=true en la URL.
+ * - Métricas: registra adquisición, preparación y ejecución al abrir; el recorrido
+ *   (mapeo), el total y las filas se registran al cerrar el Stream.
+ */
+final class CursorStream {
+
+    /** Filas por viaje al servidor. Override: -Ddb.fetch.size=... */
+    static final int FETCH_POR_DEFECTO = Integer.getInteger("db.fetch.size", 500);
+
+    /**
+     * Convierte la fila actual del ResultSet en una entidad.
+     */
+    @FunctionalInterface
+    interface MapeadorFila<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    private CursorStream() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Abre el cursor y devuelve el Stream que lo recorre.
+     *
+     * @param sql Query SELECT (con placeholders si hay parámetros)
+     * @param tamanioFetch Filas por viaje al servidor
+     * @param mapeador Mapea cada fila a una entidad
+     * @param operacion Métricas de la operación (ej: "UsuarioDAO.streamAll")
+     * @param parametros Valores de los placeholders, en orden
+     * @return Stream perezoso; cerrarlo libera el cursor y la conexión
+     */
+    static <T> Stream<T> abrir(String sql, int tamanioFetch, MapeadorFila<T> mapeador,
+                               OperacionDAO operacion, Object... parametros) throws SQLException {
+        // No se usa Cronometro: el Stream puede cerrarse lejos (o en otro hilo) de donde se abrió
+        long inicio = System.nanoTime();
+        Connection conn;
+        try {
+            conn = DatabaseConnection.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            registrarError(operacion, inicio);
+            throw e;
+        }
+        long adquirida = System.nanoTime();
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(tamanioFetch);
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            long preparado = System.nanoTime();
+            ResultSet rs = stmt.executeQuery();
+            long ejecutado = System.nanoTime();
+            operacion.registrar(OperacionDAO.Fase.ADQUISICION, adquirida - inicio);
+            operacion.registrar(OperacionDAO.Fase.PREPARACION, preparado - adquirida);
+            operacion.registrar(OperacionDAO.Fase.EJECUCION, ejecutado - preparado);
+            AtomicLong filas = new AtomicLong();
+
+            PreparedStatement stmtFinal = stmt;
+            Spliterator<T> cursor = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapeador.mapear(rs));
+                        filas.incrementAndGet();
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Error leyendo el cursor: " + e.getMessage(), e);
+                    }
+                }
+            };
+            return StreamSupport.stream(cursor, false)
+                    .onClose(() -> {
+                        long fin = System.nanoTime();
+                        operacion.registrar(OperacionDAO.Fase.MAPEO, fin - ejecutado);
+                        operacion.registrar(OperacionDAO.Fase.TOTAL, fin - inicio);
+                        operacion.registrarFilas(filas.get());
+                        cerrar(rs, stmtFinal, conn);
+                    });
+        } catch (SQLException | RuntimeException e) {
+            registrarError(operacion, inicio);
+            cerrar(null, stmt, conn);
+            throw e;
+        }
+    }
+
+    private static void registrarError(OperacionDAO operacion, long inicio) {
+        operacion.registrar(OperacionDAO.Fase.TOTAL, System.nanoTime() - inicio);
+        operacion.registrarError();
+    }
+
+    /**
+     * Cierra los recursos en orden inverso, sin ocultar la primera falla.
+     */
+    private static void cerrar(ResultSet rs, PreparedStatement stmt, Connection conn) {
+        try (conn; stmt; rs) {
+            // try-with-resources con variables existentes: cierra rs, stmt y conn
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error cerrando el cursor: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+// Paquete DAO
+package DAO;
+
+import Config.TransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Fachada asíncrona de un GenericDAO: cada operación devuelve un CompletableFuture.
+ *
+ * Uso típico: lanzar varias lecturas INDEPENDIENTES a la vez y combinar los resultados;
+ * las latencias de red se superponen en lugar de sumarse.
+ * <pre>
+ * CompletableFuture&lt;Usuario&gt; usuario = usuarios.getById(id);
+ * CompletableFuture&lt;CredencialAcceso&gt; credencial = credenciales.getByIdUsuario(id);
+ * usuario.thenCombine(credencial, (u, c) -&gt; ...);
+ * </pre>
+ *
+ * Características:
+ * - Corre en hilos virtuales, con tantas operaciones simultáneas como conexiones tiene
+ *   el pool (ver EjecutorAsincrono).
+ * - El future falla con la misma excepción que lanzaría el método bloqueante.
+ * - Cada operación corre en otro hilo: NO se une a la transacción del caller. Por eso no
+ *   hay versiones '...Tx': para escrituras que deben ser atómicas entre sí, usar
+ *   TransactionManager (o los '...Tx' del DAO) en forma bloqueante.
+ */
+public class DAOAsincrono<T> {
+
+    /**
+     * DAO bloqueante que hace el trabajo.
+     */
+    protected final GenericDAO<T> dao;
+
+    public DAOAsincrono(GenericDAO<T> dao) {
+        this.dao = dao;
+    }
+
+    // --- OPERACIONES DE GenericDAO ---
+
+    public CompletableFuture<Void> insertar(T entidad) {
+        return ejecutar(() -> dao.insertar(entidad));
+    }
+
+    public CompletableFuture<Void> insertarBatch(List<T> entidades) {
+        return ejecutar(() -> dao.insertarBatch(entidades));
+    }
+
+    public CompletableFuture<Void> actualizar(T entidad) {
+        return ejecutar(() -> dao.actualizar(entidad));
+    }
+
+    public CompletableFuture<Void> eliminar(int id) {
+        return ejecutar(() -> dao.eliminar(id));
+    }
+
+    public CompletableFuture<T> getById(int id) {
+        return ejecutar(() -> dao.getById(id));
+    }
+
+    public CompletableFuture<List<T>> getAll() {
+        return ejecutar(dao::getAll);
+    }
+
+    /**
+     * El Stream recibido mantiene la conexión abierta hasta que el caller lo cierra
+     * (try-with-resources), igual que en la versión bloqueante. Hasta entonces cuenta
+     * para el límite de operaciones simultáneas.
+     */
+    public CompletableFuture<Stream<T>> streamAll() {
+        return EjecutorAsincrono.ejecutarStream(dao::streamAll);
+    }
+
+    // --- ESTADO DEL EJECUTOR ---
+
+    /**
+     * Operaciones async que pueden empezar ya (permisos libres del límite por conexiones).
+     */
+    public static int getPermisosLibres() {
+        return EjecutorAsincrono.getPermisosLibres();
+    }
+
+    /**
+     * Operaciones async esperando una conexión libre.
+     */
+    public static int getTareasEnEspera() {
+        return EjecutorAsincrono.getTareasEnEspera();
+    }
+
+    // --- MÉTODOS PARA LAS SUBCLASES ---
+
+    protected <R> CompletableFuture<R> ejecutar(TransactionManager.Trabajo<R> trabajo) {
+        return EjecutorAsincrono.ejecutar(trabajo);
+    }
+
+    protected CompletableFuture<Void> ejecutar(TransactionManager.Accion accion) {
+        return EjecutorAsincrono.ejecutar(() -> {
+            accion.ejecutar();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,120 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+import Config.Replicas;
+import Config.TransactionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Ejecutor compartido de las fachadas asíncronas (DAOAsincrono y subclases).
+ *
+ * - Un hilo VIRTUAL por tarea: esperar la red de la BD no ocupa un hilo de plataforma.
+ * - Concurrencia limitada por un semáforo con tantos permisos como conexiones tiene el
+ *   pool (-Ddb.pool.max): las tareas de más esperan el permiso (barato en un hilo
+ *   virtual) en lugar de hacer cola con timeout dentro del pool.
+ * - El permiso se toma DENTRO del hilo virtual: enviar una tarea nunca bloquea al caller.
+ * - Una tarea que devuelve un Stream abierto (ejecutarStream) conserva su permiso hasta que
+ *   el caller cierra el Stream: la conexión sigue prestada mientras tanto.
+ * - La tarea corre en otro hilo: NO participa de la transacción del caller
+ *   (TransactionManager liga la conexión al hilo). Sí hereda su contexto de réplicas: lo que
+ *   el caller acaba de escribir lo lee del primario (ver Config.Replicas).
+ */
+final class EjecutorAsincrono {
+
+    private EjecutorAsincrono() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Holder: el executor y el semáforo se crean con la primera tarea.
+     */
+    private static final class Holder {
+        private static final ExecutorService HILOS = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("dao-async-", 0).factory());
+        private static final Semaphore PERMISOS = new Semaphore(DatabaseConnection.getMaximoConexiones(), true);
+    }
+
+    /**
+     * Ejecuta el trabajo en un hilo virtual. El future se completa con el resultado o con
+     * la MISMA excepción que lanzó el trabajo (sin envolver).
+     */
+    static <R> CompletableFuture<R> ejecutar(TransactionManager.Trabajo<R> trabajo) {
+        CompletableFuture<R> futuro = new CompletableFuture<>();
+        Replicas.Contexto contexto = Replicas.capturar();
+        try {
+            Holder.HILOS.execute(() -> {
+                try {
+                    Holder.PERMISOS.acquire();
+                } catch (InterruptedException e) {
+                    futuro.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    futuro.complete(Replicas.con(contexto, trabajo));
+                } catch (Throwable e) {
+                    futuro.completeExceptionally(e);
+                } finally {
+                    Holder.PERMISOS.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    /**
+     * Como ejecutar(...), para trabajos que devuelven un Stream que mantiene la conexión
+     * abierta (ej: streamAll). El permiso se devuelve en el onClose del Stream, no al
+     * terminar la tarea; si el trabajo falla, o el future ya no acepta el Stream, al momento.
+     */
+    static <R> CompletableFuture<Stream<R>> ejecutarStream(TransactionManager.Trabajo<Stream<R>> trabajo) {
+        CompletableFuture<Stream<R>> futuro = new CompletableFuture<>();
+        Replicas.Contexto contexto = Replicas.capturar();
+        try {
+            Holder.HILOS.execute(() -> {
+                try {
+                    Holder.PERMISOS.acquire();
+                } catch (InterruptedException e) {
+                    futuro.completeExceptionally(e);
+                    return;
+                }
+                Stream<R> stream;
+                try {
+                    stream = Replicas.con(contexto, trabajo).onClose(Holder.PERMISOS::release);
+                } catch (Throwable e) {
+                    Holder.PERMISOS.release();
+                    futuro.completeExceptionally(e);
+                    return;
+                }
+                if (!futuro.complete(stream)) {
+                    stream.close(); // Future cancelado: nadie va a cerrar el Stream
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    /**
+     * Permisos libres en este momento (0 = todas las conexiones ocupadas por tareas async).
+     */
+    static int getPermisosLibres() {
+        return Holder.PERMISOS.availablePermits();
+    }
+
+    /**
+     * Tareas esperando un permiso.
+     */
+    static int getTareasEnEspera() {
+        return Holder.PERMISOS.getQueueLength();
+    }
+}
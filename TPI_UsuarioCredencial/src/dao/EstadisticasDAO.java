@@ -0,0 +1,211 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+import Config.Shards;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas de usuarios y credenciales, agregadas en la BD (COUNT / GROUP BY).
+ *
+ * Características:
+ * - Ninguna consulta trae filas de usuarios: la BD devuelve sólo los conteos, resueltos
+ *   sobre índices que cubren las columnas agrupadas (ver migración V4), sin leer la tabla.
+ * - getResumen() responde desde ContadoresUsuarios (O(1)) mientras la foto esté vigente;
+ *   las escrituras de los DAOs la mantienen al día. calcularResumen() siempre va a la BD.
+ * - getAltasPorDia(...) siempre va a la BD (es un reporte por rango de fechas).
+ * - Con shards, cada consulta corre en todos los shards en paralelo y se suman los conteos.
+ * - Cada consulta registra métricas por fase (ver MetricasDAO / Cronometro).
+ */
+public class EstadisticasDAO {
+
+    /**
+     * Conteos generales.
+     *
+     * @param usuarios No eliminados (activos + inactivos)
+     * @param eliminados Dados de baja (soft delete)
+     * @param credenciales Credenciales no eliminadas
+     * @param credencialesConReset Credenciales no eliminadas con require_reset
+     */
+    public record Resumen(long usuarios, long activos, long inactivos, long eliminados,
+                          long credenciales, long credencialesConReset) {
+    }
+
+    /**
+     * Usuarios registrados en un día (incluye los que después se dieron de baja).
+     */
+    public record AltasPorDia(LocalDate dia, long altas) {
+    }
+
+    // --- QUERIES ESTATICAS ---
+
+    /** Índice (eliminado, activo): se recorre sólo el índice. */
+    private static final String USUARIOS_POR_ESTADO_SQL =
+        "SELECT eliminado, activo, COUNT(*) FROM usuario GROUP BY eliminado, activo";
+
+    /** Índice (eliminado, require_reset). */
+    private static final String CREDENCIALES_POR_RESET_SQL =
+        "SELECT require_reset, COUNT(*) FROM credencial WHERE eliminado = false GROUP BY require_reset";
+
+    /** Índice (fechaRegistro): rango de fechas y conteo desde el índice. */
+    private static final String ALTAS_POR_DIA_SQL =
+        "SELECT DATE(fechaRegistro) AS dia, COUNT(*) FROM usuario WHERE fechaRegistro >= ? "
+        + "GROUP BY DATE(fechaRegistro) ORDER BY dia";
+
+    // --- MÉTRICAS (una por operación, ver MetricasDAO) ---
+
+    private static final OperacionDAO M_CALCULAR_RESUMEN = MetricasDAO.operacion("EstadisticasDAO.calcularResumen");
+    private static final OperacionDAO M_RESUMEN_EN_MEMORIA = MetricasDAO.operacion("EstadisticasDAO.resumenEnMemoria");
+    private static final OperacionDAO M_ALTAS_POR_DIA = MetricasDAO.operacion("EstadisticasDAO.getAltasPorDia");
+
+    private final ContadoresUsuarios contadores = ContadoresUsuarios.getInstancia();
+
+    /**
+     * Resumen desde los contadores en memoria; si no hay una foto vigente, lo calcula
+     * en la BD y lo deja como nueva base.
+     */
+    public Resumen getResumen() throws Exception {
+        Resumen resumen = contadores.vigente();
+        if (resumen != null) {
+            M_RESUMEN_EN_MEMORIA.iniciar().fin(1);
+            return resumen;
+        }
+        long version = contadores.version();
+        resumen = calcularResumen();
+        contadores.guardar(resumen, version);
+        return resumen;
+    }
+
+    /**
+     * Resumen calculado en la BD (dos GROUP BY sobre índices), sin pasar por los contadores.
+     */
+    public Resumen calcularResumen() throws Exception {
+        long activos = 0;
+        long inactivos = 0;
+        long eliminados = 0;
+        long credenciales = 0;
+        long conReset = 0;
+        for (Resumen parcial : Shards.enTodos(this::calcularResumenEnShard)) {
+            activos += parcial.activos();
+            inactivos += parcial.inactivos();
+            eliminados += parcial.eliminados();
+            credenciales += parcial.credenciales();
+            conReset += parcial.credencialesConReset();
+        }
+        return new Resumen(activos + inactivos, activos, inactivos, eliminados, credenciales, conReset);
+    }
+
+    /**
+     * Altas por día de los últimos 'dias' días (hoy incluido), en orden y con los días
+     * sin altas en 0. Los días se cuentan según la fecha de la BD.
+     */
+    public List<AltasPorDia> getAltasPorDia(int dias) throws Exception {
+        if (dias < 1) {
+            throw new IllegalArgumentException("La cantidad de días debe ser >= 1");
+        }
+        LocalDate desde = LocalDate.now().minusDays(dias - 1L);
+        Map<LocalDate, Long> porDia = new HashMap<>();
+        for (Map<LocalDate, Long> parcial : Shards.enTodos(() -> altasDesde(desde))) {
+            parcial.forEach((dia, altas) -> porDia.merge(dia, altas, Long::sum));
+        }
+
+        List<AltasPorDia> resultado = new ArrayList<>(dias);
+        for (int i = 0; i < dias; i++) {
+            LocalDate dia = desde.plusDays(i);
+            resultado.add(new AltasPorDia(dia, porDia.getOrDefault(dia, 0L)));
+        }
+        return resultado;
+    }
+
+    // --- VERIFICACIÓN DE PLANES (ver VerificadorPlanes) ---
+
+    /**
+     * Las queries de este DAO con parámetros de ejemplo, para revisar su plan con EXPLAIN.
+     */
+    static List<VerificadorPlanes.Consulta> consultasVerificables() {
+        return List.of(
+            new VerificadorPlanes.Consulta("EstadisticasDAO.usuariosPorEstado", USUARIOS_POR_ESTADO_SQL, null),
+            new VerificadorPlanes.Consulta("EstadisticasDAO.credencialesPorReset", CREDENCIALES_POR_RESET_SQL, null),
+            new VerificadorPlanes.Consulta("EstadisticasDAO.getAltasPorDia", ALTAS_POR_DIA_SQL, null,
+                Timestamp.valueOf(LocalDate.now().minusDays(6).atStartOfDay())));
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * calcularResumen() en el shard del hilo.
+     */
+    private Resumen calcularResumenEnShard() throws Exception {
+        Cronometro c = M_CALCULAR_RESUMEN.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection())) {
+            long activos = 0;
+            long inactivos = 0;
+            long eliminados = 0;
+            try (PreparedStatement stmt = c.preparado(conn.prepareStatement(USUARIOS_POR_ESTADO_SQL));
+                 ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                while (rs.next()) {
+                    long cantidad = rs.getLong(3);
+                    if (rs.getBoolean(1)) {
+                        eliminados += cantidad;
+                    } else if (rs.getBoolean(2)) {
+                        activos += cantidad;
+                    } else {
+                        inactivos += cantidad;
+                    }
+                }
+            }
+
+            long credenciales = 0;
+            long conReset = 0;
+            try (PreparedStatement stmt = c.preparado(conn.prepareStatement(CREDENCIALES_POR_RESET_SQL));
+                 ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                while (rs.next()) {
+                    long cantidad = rs.getLong(2);
+                    credenciales += cantidad;
+                    if (rs.getBoolean(1)) {
+                        conReset += cantidad;
+                    }
+                }
+            }
+            c.fin(2);
+            return new Resumen(activos + inactivos, activos, inactivos, eliminados, credenciales, conReset);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+    }
+
+    /**
+     * Altas por día desde la fecha indicada en el shard del hilo (sólo los días con altas).
+     */
+    private Map<LocalDate, Long> altasDesde(LocalDate desde) throws Exception {
+        Map<LocalDate, Long> porDia = new HashMap<>();
+        Cronometro c = M_ALTAS_POR_DIA.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(ALTAS_POR_DIA_SQL))) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(desde.atStartOfDay()));
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                while (rs.next()) {
+                    Date dia = rs.getDate(1);
+                    porDia.put(dia.toLocalDate(), rs.getLong(2));
+                }
+            }
+            c.fin(porDia.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        return porDia;
+    }
+}
@@ -5,6 +5,7 @@ package DAO;
 
 import java.sql.Connection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interfaz genérica (estilo cátedra).
@@ -20,9 +21,23 @@ public interface GenericDAO<T> {
 
     /**
      * Inserta una entidad usando una conexión externa (para transacciones).
+     * Si la conexión no es de TransactionManager y tiene autocommit apagado, la entidad
+     * no queda "limpia": el DAO no puede saber si el caller confirma o deshace.
      */
     void insertTx(T entidad, Connection conn) throws Exception;
 
+    /**
+     * Inserta varias entidades en lotes (addBatch/executeBatch), con conexión
+     * y transacción propias. Asigna el ID generado a cada entidad, en orden.
+     */
+    void insertarBatch(List<T> entidades) throws Exception;
+
+    /**
+     * Inserta varias entidades en lotes usando una conexión externa (para transacciones).
+     * Asigna el ID generado a cada entidad, en orden.
+     */
+    void insertBatchTx(List<T> entidades, Connection conn) throws Exception;
+
     /**
      * Actualiza una entidad, creando y cerrando su propia conexión.
      */
@@ -42,4 +57,10 @@ public interface GenericDAO<T> {
      * Obtiene todas las entidades activas.
      */
     List<T> getAll() throws Exception;
+
+    /**
+     * Recorre todas las entidades activas con un cursor (sin cargarlas en memoria).
+     * El Stream mantiene la conexión abierta: usar SIEMPRE try-with-resources.
+     */
+    Stream<T> streamAll() throws Exception;
 }
@@ -0,0 +1,107 @@
+// Paquete DAO
+package DAO;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias (en nanosegundos) sin locks y sin reservar memoria al registrar.
+ *
+ * - Cubetas log-lineales: 4 sub-cubetas por cada potencia de 2 (error máximo ~25%),
+ *   suficiente para p50/p99 y cubre desde 1 ns hasta Long.MAX_VALUE con 248 contadores.
+ * - registrar() sólo hace incrementos atómicos: apto para dejarlo activo en producción.
+ * - Las lecturas (percentiles) son aproximadas si hay escrituras concurrentes.
+ */
+final class Histograma {
+
+    private static final int SUB_CUBETAS = 4;
+    private static final int CUBETAS = SUB_CUBETAS + 61 * SUB_CUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        cubetas.incrementAndGet(indice(nanos));
+        cantidad.increment();
+        suma.add(nanos);
+        long actual;
+        while (nanos > (actual = maximo.get()) && !maximo.compareAndSet(actual, nanos)) {
+            // Reintenta hasta dejar el máximo (sin lambdas: no reserva memoria)
+        }
+    }
+
+    long getCantidad() {
+        return cantidad.sum();
+    }
+
+    double getPromedioMs() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : suma.sum() / (double) n / 1_000_000.0;
+    }
+
+    double getMaximoMs() {
+        return maximo.get() / 1_000_000.0;
+    }
+
+    /**
+     * Percentil aproximado (límite superior de la cubeta), en milisegundos.
+     *
+     * @param percentil Entre 0 y 100 (ej: 50, 99)
+     */
+    double getPercentilMs(double percentil) {
+        long[] foto = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            foto[i] = cubetas.get(i);
+            total += foto[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(total * percentil / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += foto[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get()) / 1_000_000.0;
+            }
+        }
+        return getMaximoMs();
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static int indice(long valor) {
+        if (valor < SUB_CUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (exponente - 2)) & (SUB_CUBETAS - 1);
+        return SUB_CUBETAS + (exponente - 2) * SUB_CUBETAS + sub;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUB_CUBETAS) {
+            return indice;
+        }
+        int exponente = (indice - SUB_CUBETAS) / SUB_CUBETAS + 2;
+        int sub = (indice - SUB_CUBETAS) % SUB_CUBETAS;
+        long ancho = 1L << (exponente - 2);
+        return ((SUB_CUBETAS + sub) * ancho) + ancho - 1;
+    }
+}
@@ -0,0 +1,560 @@
+// Paquete DAO
+package DAO;
+
+import Models.Usuario;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice de búsqueda en memoria ("search-as-you-type") sobre username, nombre y apellido.
+ *
+ * Motivo:
+ * - getByUsername sólo encuentra coincidencias exactas, y un LIKE '%x%' contra la BD remota
+ *   recorre la tabla completa en cada búsqueda.
+ *
+ * Estructura (todo en minúsculas y sin acentos: "José" se encuentra con "jose"):
+ * - Términos ordenados (TreeMap): el username y cada palabra de nombre y apellido. Los
+ *   términos con un mismo prefijo son un rango contiguo del árbol: O(log n + k).
+ * - Trigramas: cada secuencia de 3 caracteres de los campos -> ids ordenados. Una búsqueda
+ *   parcial ("rez" en "perez") intersecta las listas de sus trigramas y confirma cada candidato.
+ * - Sólo guarda ids y textos plegados: los usuarios se hidratan después con UsuarioDAO.getByIds.
+ *
+ * Búsqueda:
+ * - Cada palabra de la consulta tiene que coincidir: como prefijo de algún término o, si
+ *   tiene 3 caracteres o más, como subcadena de algún campo.
+ * - Una palabra: los términos en orden alfabético (el exacto primero) y después las
+ *   coincidencias parciales. Varias: exactas, luego por prefijo, luego parciales; a igual
+ *   puntaje, por id.
+ *
+ * Sincronización:
+ * - Se carga completo la primera vez que se busca (streamAll, proyección SIN_CREDENCIAL).
+ * - UsuarioDAO lo mantiene al día con sus escrituras, DESPUÉS del commit (alConfirmar).
+ * - Los cambios de otros procesos no llegan: el índice se recarga en segundo plano cuando
+ *   supera la antigüedad máxima. Mientras tanto se sigue buscando en el anterior, y las
+ *   escrituras de este proceso se encolan para aplicarlas sobre el nuevo antes de publicarlo.
+ *
+ * Configuración (system properties):
+ * - -Dbusqueda.recargaMs=600000 (antigüedad máxima del índice; 0 = no recargar)
+ */
+public final class IndiceBusqueda {
+
+    /**
+     * Origen de los usuarios para (re)cargar el índice. Debe traer username, nombre y apellido.
+     */
+    @FunctionalInterface
+    public interface Fuente {
+        Stream<Usuario> abrir() throws Exception;
+    }
+
+    /**
+     * Foto del estado del índice.
+     */
+    public record Estadisticas(int usuarios, int terminos, int trigramas, long busquedas,
+                               double microsPromedio, long cargas, double segundosUltimaCarga) {
+    }
+
+    private static final IndiceBusqueda INSTANCIA = new IndiceBusqueda(Long.getLong("busqueda.recargaMs", 600000L));
+
+    /** Largo de los n-gramas de la búsqueda parcial. */
+    private static final int N = 3;
+
+    /** Puntajes por palabra (búsqueda de varias palabras). */
+    private static final int EXACTA = 3;
+    private static final int PREFIJO = 2;
+    private static final int PARCIAL = 1;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    /**
+     * Alta/modificación (baja = false) o baja de un usuario. En una modificación, un campo
+     * null conserva el valor anterior. Los textos ya vienen plegados.
+     */
+    private record Cambio(int id, String username, String nombre, String apellido, boolean baja) {
+    }
+
+    private record Entrada(int id, String username, String nombre, String apellido) {
+
+        boolean contiene(String texto) {
+            return username.contains(texto) || nombre.contains(texto) || apellido.contains(texto);
+        }
+    }
+
+    private final long recargaNanos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean recargando = new AtomicBoolean();
+    private final LongAdder busquedas = new LongAdder();
+    private final LongAdder nanosBusqueda = new LongAdder();
+
+    // Estado protegido por 'lock' (actual es volatile para el chequeo rápido de "ya cargado")
+    private volatile Estructura actual;
+    private List<Cambio> pendientes;
+    private long cargadoEn;
+    private long cargas;
+    private long nanosUltimaCarga;
+
+    public IndiceBusqueda(long recargaMs) {
+        this.recargaNanos = TimeUnit.MILLISECONDS.toNanos(recargaMs);
+    }
+
+    /**
+     * Instancia compartida por los UsuarioDAO.
+     */
+    public static IndiceBusqueda getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Busca por prefijo o subcadena de username, nombre y apellido.
+     *
+     * @param texto Una o varias palabras (sin distinguir mayúsculas ni acentos)
+     * @param maximo Cantidad máxima de ids (top-k)
+     * @param fuente Origen de los usuarios si hay que cargar el índice
+     * @return Ids de los mejores resultados, en orden
+     */
+    public List<Integer> buscar(String texto, int maximo, Fuente fuente) throws Exception {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("La cantidad de resultados debe ser >= 1");
+        }
+        List<String> palabras = palabras(texto);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+        while (true) {
+            asegurarCargado(fuente);
+
+            long t0 = System.nanoTime();
+            lock.readLock().lock();
+            try {
+                Estructura e = actual;
+                if (e != null) { // null = se invalidó justo después de cargar: se vuelve a cargar
+                    List<Integer> ids = e.buscar(palabras, maximo);
+                    busquedas.increment();
+                    nanosBusqueda.add(System.nanoTime() - t0);
+                    return ids;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Descarta el índice: la próxima búsqueda lo vuelve a cargar desde la BD.
+     */
+    public void invalidar() {
+        lock.writeLock().lock();
+        try {
+            actual = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Estadisticas getEstadisticas() {
+        lock.readLock().lock();
+        try {
+            Estructura e = actual;
+            long n = busquedas.sum();
+            return new Estadisticas(e == null ? 0 : e.entradas.size(), e == null ? 0 : e.terminos.size(),
+                    e == null ? 0 : e.trigramas.size(), n, n == 0 ? 0 : nanosBusqueda.sum() / 1000.0 / n,
+                    cargas, nanosUltimaCarga / 1e9);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- SINCRONIZACIÓN CON LAS ESCRITURAS (la llama UsuarioDAO tras el commit) ---
+
+    /**
+     * Alta o modificación. En una modificación, los campos null conservan el valor indexado.
+     */
+    void registrar(int id, String username, String nombre, String apellido) {
+        aplicar(new Cambio(id, plegarONulo(username), plegarONulo(nombre), plegarONulo(apellido), false));
+    }
+
+    void quitar(int id) {
+        aplicar(new Cambio(id, null, null, null, true));
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private void aplicar(Cambio cambio) {
+        lock.writeLock().lock();
+        try {
+            // Sin índice cargado no hay nada que mantener: la carga leerá el dato de la BD
+            if (actual != null) {
+                actual.aplicar(cambio);
+            }
+            if (pendientes != null) {
+                pendientes.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Primera búsqueda: carga bloqueante. Índice vencido: recarga en segundo plano.
+     */
+    private void asegurarCargado(Fuente fuente) throws Exception {
+        if (actual == null) {
+            synchronized (this) {
+                if (actual == null) {
+                    cargar(fuente);
+                }
+            }
+            return;
+        }
+        boolean vencido;
+        lock.readLock().lock();
+        try {
+            vencido = recargaNanos > 0 && System.nanoTime() - cargadoEn > recargaNanos;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (vencido && recargando.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("indice-busqueda-recarga").start(() -> {
+                try {
+                    cargar(fuente);
+                } catch (Exception e) {
+                    System.err.println("Aviso: no se pudo recargar el índice de búsqueda: " + e.getMessage());
+                } finally {
+                    recargando.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Arma un índice nuevo sin bloquear las búsquedas, le aplica las escrituras que llegaron
+     * mientras tanto y lo publica.
+     */
+    private synchronized void cargar(Fuente fuente) throws Exception {
+        long t0 = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Estructura nueva = new Estructura();
+        try (Stream<Usuario> usuarios = fuente.abrir()) {
+            Iterator<Usuario> it = usuarios.iterator();
+            while (it.hasNext()) {
+                Usuario u = it.next();
+                nueva.aplicar(new Cambio(u.getId(), plegar(u.getUsername()), plegar(u.getNombre()),
+                        plegar(u.getApellido()), false));
+            }
+        } catch (Exception e) {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Cambio cambio : pendientes) {
+                nueva.aplicar(cambio);
+            }
+            pendientes = null;
+            actual = nueva;
+            cargadoEn = System.nanoTime();
+            cargas++;
+            nanosUltimaCarga = cargadoEn - t0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<String> palabras(String texto) {
+        String plegado = plegar(texto);
+        return plegado.isEmpty() ? List.of() : List.of(ESPACIOS.split(plegado));
+    }
+
+    /**
+     * Minúsculas y sin acentos ni diéresis ("Núñez" -> "nunez").
+     */
+    static String plegar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT).strip();
+    }
+
+    private static String plegarONulo(String texto) {
+        return texto == null ? null : plegar(texto);
+    }
+
+    /**
+     * Las estructuras del índice. No es thread-safe: se usa con el lock de IndiceBusqueda
+     * (o, durante una carga, desde un solo hilo antes de publicarla).
+     */
+    private static final class Estructura {
+        final Map<Integer, Entrada> entradas = new HashMap<>();
+        final TreeMap<String, Ids> terminos = new TreeMap<>();
+        final Map<String, Ids> trigramas = new HashMap<>();
+
+        void aplicar(Cambio cambio) {
+            Entrada anterior = entradas.remove(cambio.id());
+            if (anterior != null) {
+                desindexar(anterior);
+            }
+            if (cambio.baja()) {
+                return;
+            }
+            Entrada entrada = new Entrada(cambio.id(),
+                    valor(cambio.username(), anterior == null ? null : anterior.username()),
+                    valor(cambio.nombre(), anterior == null ? null : anterior.nombre()),
+                    valor(cambio.apellido(), anterior == null ? null : anterior.apellido()));
+            entradas.put(entrada.id(), entrada);
+            for (String termino : terminos(entrada)) {
+                terminos.computeIfAbsent(termino, t -> new Ids()).agregar(entrada.id());
+            }
+            for (String trigrama : trigramas(entrada)) {
+                trigramas.computeIfAbsent(trigrama, t -> new Ids()).agregar(entrada.id());
+            }
+        }
+
+        List<Integer> buscar(List<String> palabras, int maximo) {
+            if (palabras.size() == 1) {
+                return buscarPalabra(palabras.get(0), maximo);
+            }
+            Map<Integer, Integer> puntajes = null;
+            for (String palabra : palabras) {
+                Map<Integer, Integer> deEsta = coincidencias(palabra);
+                if (puntajes == null) {
+                    puntajes = deEsta;
+                } else {
+                    Map<Integer, Integer> ambas = new HashMap<>();
+                    for (Map.Entry<Integer, Integer> e : puntajes.entrySet()) {
+                        Integer puntaje = deEsta.get(e.getKey());
+                        if (puntaje != null) {
+                            ambas.put(e.getKey(), e.getValue() + puntaje);
+                        }
+                    }
+                    puntajes = ambas;
+                }
+                if (puntajes.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return puntajes.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(maximo)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        /**
+         * Una palabra: recorre los términos con ese prefijo (orden alfabético) hasta juntar
+         * 'maximo' ids; si faltan, completa con coincidencias parciales.
+         */
+        private List<Integer> buscarPalabra(String palabra, int maximo) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (Map.Entry<String, Ids> t : terminos.tailMap(palabra, true).entrySet()) {
+                if (!t.getKey().startsWith(palabra)) {
+                    break;
+                }
+                Ids postings = t.getValue();
+                for (int i = 0; i < postings.tamanio && ids.size() < maximo; i++) {
+                    ids.add(postings.ids[i]);
+                }
+                if (ids.size() >= maximo) {
+                    return List.copyOf(ids);
+                }
+            }
+            if (palabra.length() >= N) {
+                for (int id : subcadena(palabra)) {
+                    ids.add(id);
+                    if (ids.size() >= maximo) {
+                        break;
+                    }
+                }
+            }
+            return List.copyOf(ids);
+        }
+
+        /**
+         * id -> mejor puntaje de la palabra en ese usuario (exacta, prefijo o parcial).
+         */
+        private Map<Integer, Integer> coincidencias(String palabra) {
+            Map<Integer, Integer> puntajes = new HashMap<>();
+            if (palabra.length() >= N) {
+                for (int id : subcadena(palabra)) {
+                    puntajes.put(id, PARCIAL);
+                }
+            }
+            for (Map.Entry<String, Ids> t : terminos.tailMap(palabra, true).entrySet()) {
+                if (!t.getKey().startsWith(palabra)) {
+                    break;
+                }
+                int puntaje = t.getKey().length() == palabra.length() ? EXACTA : PREFIJO;
+                Ids postings = t.getValue();
+                for (int i = 0; i < postings.tamanio; i++) {
+                    puntajes.merge(postings.ids[i], puntaje, Math::max);
+                }
+            }
+            return puntajes;
+        }
+
+        /**
+         * Ids (ordenados) cuyos campos contienen el texto: intersección de las listas de sus
+         * trigramas, de la más corta a la más larga, y confirmación contra el texto completo.
+         */
+        private int[] subcadena(String texto) {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i + N <= texto.length(); i++) {
+                grams.add(texto.substring(i, i + N));
+            }
+            List<Ids> listas = new ArrayList<>(grams.size());
+            for (String gram : grams) {
+                Ids postings = trigramas.get(gram);
+                if (postings == null) {
+                    return new int[0];
+                }
+                listas.add(postings);
+            }
+            listas.sort(Comparator.comparingInt(l -> l.tamanio));
+
+            int[] candidatos = Arrays.copyOf(listas.get(0).ids, listas.get(0).tamanio);
+            for (int i = 1; i < listas.size() && candidatos.length > 0; i++) {
+                candidatos = listas.get(i).intersectar(candidatos);
+            }
+            int n = 0;
+            for (int id : candidatos) {
+                // Los trigramas pueden estar en campos distintos o separados: se confirma
+                if (entradas.get(id).contiene(texto)) {
+                    candidatos[n++] = id;
+                }
+            }
+            return Arrays.copyOf(candidatos, n);
+        }
+
+        private void desindexar(Entrada entrada) {
+            for (String termino : terminos(entrada)) {
+                quitarDe(terminos, termino, entrada.id());
+            }
+            for (String trigrama : trigramas(entrada)) {
+                quitarDe(trigramas, trigrama, entrada.id());
+            }
+        }
+
+        private static void quitarDe(Map<String, Ids> indice, String clave, int id) {
+            Ids postings = indice.get(clave);
+            if (postings != null && postings.quitar(id)) {
+                indice.remove(clave);
+            }
+        }
+
+        private static String valor(String nuevo, String anterior) {
+            return nuevo != null ? nuevo : anterior != null ? anterior : "";
+        }
+
+        private static Set<String> terminos(Entrada entrada) {
+            Set<String> terminos = new LinkedHashSet<>();
+            if (!entrada.username().isEmpty()) {
+                terminos.add(entrada.username());
+            }
+            for (String campo : new String[]{entrada.nombre(), entrada.apellido()}) {
+                for (String palabra : ESPACIOS.split(campo)) {
+                    if (!palabra.isEmpty()) {
+                        terminos.add(palabra);
+                    }
+                }
+            }
+            return terminos;
+        }
+
+        private static Set<String> trigramas(Entrada entrada) {
+            Set<String> grams = new LinkedHashSet<>();
+            for (String campo : new String[]{entrada.username(), entrada.nombre(), entrada.apellido()}) {
+                for (int i = 0; i + N <= campo.length(); i++) {
+                    grams.add(campo.substring(i, i + N));
+                }
+            }
+            return grams;
+        }
+    }
+
+    /**
+     * Lista de ids ordenada y sin repetidos (arreglo de int: sin boxing por id).
+     * Las cargas recorren la tabla por id, así que casi siempre se agrega al final.
+     */
+    private static final class Ids {
+        int[] ids = new int[2];
+        int tamanio;
+
+        void agregar(int id) {
+            int i = Arrays.binarySearch(ids, 0, tamanio, id);
+            if (i >= 0) {
+                return;
+            }
+            i = -i - 1;
+            if (tamanio == ids.length) {
+                ids = Arrays.copyOf(ids, tamanio * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, tamanio - i);
+            ids[i] = id;
+            tamanio++;
+        }
+
+        /**
+         * @return true si la lista quedó vacía
+         */
+        boolean quitar(int id) {
+            int i = Arrays.binarySearch(ids, 0, tamanio, id);
+            if (i >= 0) {
+                System.arraycopy(ids, i + 1, ids, i, tamanio - i - 1);
+                tamanio--;
+            }
+            return tamanio == 0;
+        }
+
+        /**
+         * Los ids de 'otros' (ordenados) que también están en esta lista.
+         */
+        int[] intersectar(int[] otros) {
+            int[] comunes = new int[Math.min(otros.length, tamanio)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < tamanio && j < otros.length) {
+                if (ids[i] < otros[j]) {
+                    i++;
+                } else if (ids[i] > otros[j]) {
+                    j++;
+                } else {
+                    comunes[n++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(comunes, n);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+// Paquete DAO
+package DAO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Helper compartido por los DAOs para INSERTs en lote (addBatch/executeBatch).
+ *
+ * - Parte la lista en lotes de 'tamanioLote' filas (un round trip por lote con
+ *   rewriteBatchedStatements=true en la URL).
+ * - Asigna los IDs generados a cada entidad EN ORDEN, para poder enlazar
+ *   (ej: credencial.idUsuario) sin SELECTs extra. Si los IDs ya vienen asignados
+ *   (con shards, ver Config.GeneradorIds), no pide las claves generadas.
+ * - NO maneja la transacción: eso lo decide el DAO (insertarBatch vs insertBatchTx).
+ */
+final class InsercionPorLotes {
+
+    /** Tamaño de lote por defecto. Override: -Ddb.batch.size=... */
+    static final int TAMANIO_POR_DEFECTO = Integer.getInteger("db.batch.size", 500);
+
+    /**
+     * Setea los parámetros de UNA fila en el PreparedStatement.
+     */
+    @FunctionalInterface
+    interface SetterParametros<T> {
+        void setear(PreparedStatement stmt, T entidad) throws SQLException;
+    }
+
+    private InsercionPorLotes() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Inserta las entidades en lotes usando la conexión recibida.
+     *
+     * @param conn Conexión (el caller maneja commit/rollback)
+     * @param sql INSERT con placeholders
+     * @param entidades Entidades a insertar (en orden)
+     * @param tamanioLote Filas por executeBatch
+     * @param setter Setea los parámetros de cada fila
+     * @param asignarId Recibe (entidad, idGenerado); null si el INSERT ya lleva el id
+     * @param cronometro Medición de la llamada (marca preparación y cada executeBatch)
+     */
+    static <T> void insertar(Connection conn, String sql, List<T> entidades, int tamanioLote,
+                             SetterParametros<T> setter, ObjIntConsumer<T> asignarId,
+                             Cronometro cronometro) throws SQLException {
+        if (tamanioLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser >= 1");
+        }
+        try (PreparedStatement stmt = cronometro.preparado(asignarId == null
+                ? conn.prepareStatement(sql)
+                : conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))) {
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<T> lote = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+
+                for (T entidad : lote) {
+                    setter.setear(stmt, entidad);
+                    stmt.addBatch();
+                }
+                cronometro.ejecutado(stmt.executeBatch());
+                if (asignarId == null) {
+                    continue;
+                }
+
+                // Backfill de IDs: el driver los devuelve en el mismo orden del lote
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    for (T entidad : lote) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("La inserción en lote falló, no se obtuvieron todos los IDs.");
+                        }
+                        asignarId.accept(entidad, generatedKeys.getInt(1));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+// Paquete DAO
+package DAO;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapeo ResultSet -> entidad por ÍNDICE de columna, resuelto una vez por forma de query.
+ *
+ * Motivo:
+ * - rs.getString("nombre") obliga al driver a buscar la columna por nombre en CADA
+ *   campo de CADA fila. En un getAll de cientos de miles de filas esa búsqueda se paga
+ *   millones de veces para obtener siempre el mismo número.
+ *
+ * Funcionamiento:
+ * - El DAO declara las etiquetas de columna que conoce (en un orden fijo, con constantes
+ *   para cada posición) y un "ensamblador": código lineal que arma la entidad leyendo
+ *   rs.getXxx(columnas[POSICION]). Sin reflexión y sin búsquedas por nombre por fila.
+ * - La primera fila de una "forma" (la lista de columnas del SELECT) resuelve las
+ *   etiquetas contra ResultSetMetaData; el int[] resultante queda en caché por forma.
+ * - Las etiquetas que la query no trae quedan en 0 (índice inválido): cada ensamblador
+ *   sólo lee las columnas de su proyección; si lee otra, el driver falla.
+ *
+ * La clave de forma la elige el DAO (normalmente el "SELECT ... FROM" sin WHERE):
+ * dos queries con la misma clave DEBEN traer las mismas columnas en el mismo orden.
+ */
+final class MapeoFilas<T> {
+
+    /** Formas distintas que se cachean por mapeo (más allá, se resuelve por query). */
+    private static final int MAXIMO_FORMAS = 256;
+
+    /**
+     * Arma la entidad de la fila actual. 'columnas[i]' es el índice JDBC de etiquetas[i].
+     */
+    @FunctionalInterface
+    interface Ensamblador<T> {
+        T armar(ResultSet rs, int[] columnas) throws SQLException;
+    }
+
+    private final String[] etiquetas;
+    private final Ensamblador<T> ensamblador;
+    private final Map<String, int[]> formas = new ConcurrentHashMap<>();
+
+    /**
+     * @param etiquetas Etiquetas de columna, en el orden de las constantes de posición del DAO
+     * @param ensamblador Código de mapeo por índice
+     */
+    MapeoFilas(String[] etiquetas, Ensamblador<T> ensamblador) {
+        this.etiquetas = new String[etiquetas.length];
+        for (int i = 0; i < etiquetas.length; i++) {
+            this.etiquetas[i] = etiquetas[i].toLowerCase(Locale.ROOT);
+        }
+        this.ensamblador = ensamblador;
+    }
+
+    /**
+     * Mapeador para UNA query de la forma indicada: resuelve los índices en la primera
+     * fila (caché por forma) y los reutiliza en el resto. Crear uno por query.
+     */
+    CursorStream.MapeadorFila<T> para(String forma) {
+        return new CursorStream.MapeadorFila<>() {
+            private int[] columnas;
+
+            @Override
+            public T mapear(ResultSet rs) throws SQLException {
+                if (columnas == null) {
+                    columnas = columnas(forma, rs);
+                }
+                return ensamblador.armar(rs, columnas);
+            }
+        };
+    }
+
+    /**
+     * Mapea una sola fila (lecturas por id / username).
+     */
+    T mapear(String forma, ResultSet rs) throws SQLException {
+        return ensamblador.armar(rs, columnas(forma, rs));
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private int[] columnas(String forma, ResultSet rs) throws SQLException {
+        int[] columnas = formas.get(forma);
+        if (columnas == null) {
+            columnas = resolver(rs.getMetaData());
+            if (formas.size() < MAXIMO_FORMAS) {
+                formas.putIfAbsent(forma, columnas);
+            }
+        }
+        return columnas;
+    }
+
+    /**
+     * Etiqueta -> índice JDBC. Si una etiqueta se repite gana la primera, igual que
+     * ResultSet.findColumn; las que no están quedan en 0.
+     */
+    private int[] resolver(ResultSetMetaData md) throws SQLException {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = md.getColumnCount(); i >= 1; i--) {
+            indices.put(md.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        int[] columnas = new int[etiquetas.length];
+        for (int i = 0; i < etiquetas.length; i++) {
+            columnas[i] = indices.getOrDefault(etiquetas[i], 0);
+        }
+        return columnas;
+    }
+}
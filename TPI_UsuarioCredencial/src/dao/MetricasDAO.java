@@ -0,0 +1,84 @@
+// Paquete DAO
+package DAO;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Registro central de las métricas de los DAOs.
+ *
+ * - Cada DAO declara sus operaciones como constantes:
+ *   private static final OperacionDAO M_GET_BY_ID = MetricasDAO.operacion("UsuarioDAO.getById");
+ * - Cada operación se publica por JMX como "DAO:type=Metricas,name=UsuarioDAO.getById".
+ * - dump() devuelve un resumen en texto de todas las operaciones.
+ */
+public final class MetricasDAO {
+
+    private static final Map<String, OperacionDAO> OPERACIONES = new ConcurrentHashMap<>();
+
+    private MetricasDAO() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Devuelve (creándola y publicándola por JMX la primera vez) la operación con ese nombre.
+     */
+    public static OperacionDAO operacion(String nombre) {
+        return OPERACIONES.computeIfAbsent(nombre, n -> {
+            OperacionDAO operacion = new OperacionDAO(n);
+            registrarJmx(operacion);
+            return operacion;
+        });
+    }
+
+    /**
+     * Todas las operaciones registradas, ordenadas por nombre.
+     */
+    public static Collection<OperacionDAO> getOperaciones() {
+        List<OperacionDAO> lista = new ArrayList<>(OPERACIONES.values());
+        lista.sort(Comparator.comparing(OperacionDAO::getNombre));
+        return lista;
+    }
+
+    /**
+     * Resumen en texto de todas las operaciones que tuvieron al menos una llamada.
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder("=== Métricas DAO ===\n");
+        for (OperacionDAO operacion : getOperaciones()) {
+            if (operacion.getLlamadas() > 0) {
+                sb.append(operacion.dump());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Pone en cero las métricas de todas las operaciones.
+     */
+    public static void reiniciar() {
+        OPERACIONES.values().forEach(OperacionDAO::reiniciar);
+    }
+
+    private static void registrarJmx(OperacionDAO operacion) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName("DAO:type=Metricas,name=" + operacion.getNombre());
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(new StandardMBean(operacion, OperacionDAOMBean.class), nombre);
+            }
+        } catch (JMException e) {
+            // Sin JMX las métricas siguen disponibles por dump()
+            System.err.println("[metricas] No se pudo publicar por JMX '" + operacion.getNombre() + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// Paquete DAO
+package DAO;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de UNA operación de DAO (ej: "UsuarioDAO.getById").
+ *
+ * - Un histograma por fase: adquisición de conexión, preparación del statement,
+ *   ejecución, mapeo del ResultSet y total.
+ * - Contadores de filas y de errores.
+ * - Se crea una sola vez (constante static en el DAO); registrar no reserva memoria.
+ * - Se publica por JMX (ver MetricasDAO) con la interfaz OperacionDAOMBean.
+ */
+public final class OperacionDAO implements OperacionDAOMBean {
+
+    /**
+     * Fases en las que se divide cada llamada.
+     */
+    public enum Fase {
+        ADQUISICION, PREPARACION, EJECUCION, MAPEO, TOTAL
+    }
+
+    private static final Fase[] FASES = Fase.values();
+
+    private final String nombre;
+    private final Histograma[] histogramas = new Histograma[FASES.length];
+    private final LongAdder filas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+
+    OperacionDAO(String nombre) {
+        this.nombre = nombre;
+        for (int i = 0; i < histogramas.length; i++) {
+            histogramas[i] = new Histograma();
+        }
+    }
+
+    /**
+     * Empieza a medir una llamada. Usar siempre con fin(...) o error() (ver Cronometro).
+     */
+    Cronometro iniciar() {
+        return Cronometro.iniciar(this);
+    }
+
+    void registrar(Fase fase, long nanos) {
+        histogramas[fase.ordinal()].registrar(nanos);
+    }
+
+    void registrarFilas(long cantidad) {
+        filas.add(cantidad);
+    }
+
+    void registrarError() {
+        errores.increment();
+    }
+
+    // --- Atributos JMX ---
+
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public long getLlamadas() {
+        return histogramas[Fase.TOTAL.ordinal()].getCantidad();
+    }
+
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    @Override
+    public long getFilas() {
+        return filas.sum();
+    }
+
+    @Override
+    public double getTotalP50Ms() {
+        return percentil(Fase.TOTAL, 50);
+    }
+
+    @Override
+    public double getTotalP99Ms() {
+        return percentil(Fase.TOTAL, 99);
+    }
+
+    @Override
+    public double getTotalMaxMs() {
+        return histogramas[Fase.TOTAL.ordinal()].getMaximoMs();
+    }
+
+    @Override
+    public double getAdquisicionP99Ms() {
+        return percentil(Fase.ADQUISICION, 99);
+    }
+
+    @Override
+    public double getPreparacionP99Ms() {
+        return percentil(Fase.PREPARACION, 99);
+    }
+
+    @Override
+    public double getEjecucionP99Ms() {
+        return percentil(Fase.EJECUCION, 99);
+    }
+
+    @Override
+    public double getMapeoP99Ms() {
+        return percentil(Fase.MAPEO, 99);
+    }
+
+    /**
+     * Percentil de una fase, en milisegundos.
+     */
+    public double percentil(Fase fase, double percentil) {
+        return histogramas[fase.ordinal()].getPercentilMs(percentil);
+    }
+
+    /**
+     * Máximo de una fase, en milisegundos.
+     */
+    public double maximo(Fase fase) {
+        return histogramas[fase.ordinal()].getMaximoMs();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(nombre).append(": llamadas=").append(getLlamadas())
+          .append(", errores=").append(getErrores())
+          .append(", filas=").append(getFilas()).append('\n');
+        for (Fase fase : FASES) {
+            sb.append(String.format("  %-12s p50=%8.3f ms  p99=%8.3f ms  max=%8.3f ms%n",
+                    fase, percentil(fase, 50), percentil(fase, 99), maximo(fase)));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void reiniciar() {
+        for (Histograma h : histogramas) {
+            h.reiniciar();
+        }
+        filas.reset();
+        errores.reset();
+    }
+}
@@ -0,0 +1,41 @@
+// Paquete DAO
+package DAO;
+
+/**
+ * Interfaz JMX (Standard MBean) de OperacionDAO.
+ * Visible en JConsole / VisualVM bajo el dominio "DAO".
+ */
+public interface OperacionDAOMBean {
+
+    String getNombre();
+
+    long getLlamadas();
+
+    long getErrores();
+
+    long getFilas();
+
+    double getTotalP50Ms();
+
+    double getTotalP99Ms();
+
+    double getTotalMaxMs();
+
+    double getAdquisicionP99Ms();
+
+    double getPreparacionP99Ms();
+
+    double getEjecucionP99Ms();
+
+    double getMapeoP99Ms();
+
+    /**
+     * Texto con p50/p99/max de cada fase.
+     */
+    String dump();
+
+    /**
+     * Pone todos los contadores en cero.
+     */
+    void reiniciar();
+}
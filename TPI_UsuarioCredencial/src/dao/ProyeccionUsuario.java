@@ -0,0 +1,41 @@
+// Paquete DAO
+package DAO;
+
+/**
+ * Proyección (qué columnas trae) de las lecturas de UsuarioDAO.
+ *
+ * Motivo:
+ * - Las vistas de lista sólo muestran datos básicos; traer contraseña y salt
+ *   en cada fila es transferir (y mapear) datos que nadie usa.
+ *
+ * Modos:
+ * - RESUMEN: id, username, email, activo + "tiene credencial" (sólo c.id).
+ *   La credencial se devuelve como referencia (sólo id e idUsuario, sin hash ni salt).
+ * - SIN_CREDENCIAL: todos los campos de usuario, sin JOIN a 'credencial'.
+ * - COMPLETO: el modo de siempre (Eager Loading con la credencial completa).
+ */
+public enum ProyeccionUsuario {
+
+    RESUMEN("SELECT u.id, u.username, u.email, u.activo, c.id AS c_id "
+        + "FROM usuario u "
+        + "LEFT JOIN credencial c ON u.id = c.id_usuario AND c.eliminado = false "),
+
+    SIN_CREDENCIAL("SELECT u.id, u.eliminado, u.nombre, u.apellido, u.username, u.email, u.activo, u.fechaRegistro "
+        + "FROM usuario u "),
+
+    COMPLETO("SELECT u.*, "
+        + "c.id AS c_id, c.contraseña, c.salt, c.ultimo_cambio, c.require_reset, c.id_usuario "
+        + "FROM usuario u "
+        + "LEFT JOIN credencial c ON u.id = c.id_usuario AND c.eliminado = false ");
+
+    /** "SELECT ... FROM ..." listo para concatenarle el WHERE (alias 'u' para usuario). */
+    private final String select;
+
+    ProyeccionUsuario(String select) {
+        this.select = select;
+    }
+
+    String getSelect() {
+        return select;
+    }
+}
@@ -0,0 +1,373 @@
+// Paquete DAO
+package DAO;
+
+import Config.TransactionManager;
+import Models.CredencialAcceso;
+import Models.Usuario;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché "read-through" de Usuarios (con su credencial) delante de UsuarioDAO.
+ *
+ * Motivo:
+ * - getById y getByUsername dominan el tráfico y cada uno hace el LEFT JOIN completo
+ *   contra 'credencial' en la BD remota.
+ *
+ * Características:
+ * - Tres índices: por id (principal, LRU), por username y por email (apuntan al id).
+ * - Respuestas de existencia sin ir a la BD: un username/email cacheado pertenece a un
+ *   usuario activo (ver conoceUsername / conoceEmail).
+ * - Acotada por tamaño (LRU) y por tiempo de vida (TTL).
+ * - Devuelve COPIAS: el MenuHandler modifica el usuario antes de llamar a actualizar()
+ *   y esos cambios no deben "ensuciar" la caché si la escritura falla.
+ * - Invalidación exacta desde los DAOs (insertar, insertTx, actualizar, eliminar y
+ *   las escrituras de CredencialAccesoDAO).
+ * - Una carga que empezó ANTES de una invalidación no se guarda (contador de versión),
+ *   así no se re-cachea un dato viejo.
+ * - Dentro de una transacción (TransactionManager) no se consulta ni se llena: la lectura
+ *   ve las escrituras sin confirmar de la propia transacción, que no deben llegar a otros
+ *   hilos, y la transacción debe leer lo que ella misma escribió.
+ *
+ * Configuración (system properties):
+ * - -Dcache.usuario.max=1000 (0 = caché deshabilitada)
+ * - -Dcache.usuario.ttlMs=60000
+ */
+public final class UsuarioCache {
+
+    /**
+     * Función que va a la BD cuando hay un fallo de caché.
+     */
+    @FunctionalInterface
+    public interface Cargador {
+        Usuario cargar() throws Exception;
+    }
+
+    /**
+     * Foto de las métricas de la caché.
+     */
+    public record Estadisticas(long aciertos, long fallos, long desalojos, long cargas,
+                               double latenciaCargaPromedioMs, int tamanio) {
+
+        /** Proporción de aciertos entre 0 y 1. */
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+
+    private static final UsuarioCache INSTANCIA = new UsuarioCache(
+            Integer.getInteger("cache.usuario.max", 1000),
+            Long.getLong("cache.usuario.ttlMs", 60000L));
+
+    private static final class Entrada {
+        final Usuario usuario;
+        final long expiraEn;
+
+        Entrada(Usuario usuario, long expiraEn) {
+            this.usuario = usuario;
+            this.expiraEn = expiraEn;
+        }
+    }
+
+    private final int maximo;
+    private final long ttlNanos;
+
+    // Estado protegido por 'this'
+    private final LinkedHashMap<Integer, Entrada> porId;
+    private final Map<String, Integer> porUsername = new HashMap<>();
+    private final Map<String, Integer> porEmail = new HashMap<>();
+    private long version;
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long cargas;
+    private long nanosCarga;
+
+    public UsuarioCache(int maximo, long ttlMs) {
+        this.maximo = maximo;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.porId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+                if (size() <= UsuarioCache.this.maximo) {
+                    return false;
+                }
+                quitarIndices(eldest.getValue().usuario);
+                desalojos++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Instancia compartida por UsuarioDAO y CredencialAccesoDAO.
+     */
+    public static UsuarioCache getInstancia() {
+        return INSTANCIA;
+    }
+
+    public boolean isHabilitada() {
+        return maximo > 0;
+    }
+
+    /**
+     * Busca por id; si no está (o expiró) usa el cargador y guarda el resultado.
+     */
+    public Usuario getById(int id, Cargador cargador) throws Exception {
+        if (!usable()) {
+            return cargador.cargar();
+        }
+        long versionInicial;
+        synchronized (this) {
+            Usuario cacheado = buscarVigente(id);
+            if (cacheado != null) {
+                aciertos++;
+                return copiar(cacheado);
+            }
+            fallos++;
+            versionInicial = version;
+        }
+        return cargarYGuardar(cargador, versionInicial);
+    }
+
+    /**
+     * Busca por username; si no está (o expiró) usa el cargador y guarda el resultado.
+     */
+    public Usuario getByUsername(String username, Cargador cargador) throws Exception {
+        if (!usable() || username == null) {
+            return cargador.cargar();
+        }
+        long versionInicial;
+        synchronized (this) {
+            Integer id = porUsername.get(username);
+            Usuario cacheado = id == null ? null : buscarVigente(id);
+            if (cacheado != null) {
+                aciertos++;
+                return copiar(cacheado);
+            }
+            fallos++;
+            versionInicial = version;
+        }
+        return cargarYGuardar(cargador, versionInicial);
+    }
+
+    /**
+     * Busca por email; si no está (o expiró) usa el cargador y guarda el resultado.
+     */
+    public Usuario getByEmail(String email, Cargador cargador) throws Exception {
+        if (!usable() || email == null) {
+            return cargador.cargar();
+        }
+        long versionInicial;
+        synchronized (this) {
+            Integer id = porEmail.get(email);
+            Usuario cacheado = id == null ? null : buscarVigente(id);
+            if (cacheado != null) {
+                aciertos++;
+                return copiar(cacheado);
+            }
+            fallos++;
+            versionInicial = version;
+        }
+        return cargarYGuardar(cargador, versionInicial);
+    }
+
+    /**
+     * ¿Hay un usuario activo cacheado con ese username?
+     * true = existe seguro; false = no se sabe (hay que preguntarle a la BD).
+     */
+    public synchronized boolean conoceUsername(String username) {
+        return conoce(porUsername.get(username));
+    }
+
+    /**
+     * ¿Hay un usuario activo cacheado con ese email?
+     * true = existe seguro; false = no se sabe (hay que preguntarle a la BD).
+     */
+    public synchronized boolean conoceEmail(String email) {
+        return conoce(porEmail.get(email));
+    }
+
+    /**
+     * Invalida la entrada del usuario (por id), con su username y email, si estaba cacheado.
+     */
+    public synchronized void invalidar(int id) {
+        version++;
+        Entrada entrada = porId.remove(id);
+        if (entrada != null) {
+            quitarIndices(entrada.usuario);
+        }
+    }
+
+    /**
+     * Invalida por id y, además, por username (el username pudo cambiar o ser nuevo).
+     */
+    public synchronized void invalidar(int id, String username) {
+        invalidar(id, username, null);
+    }
+
+    /**
+     * Invalida por id y, además, por username y email (pudieron cambiar o ser nuevos).
+     */
+    public synchronized void invalidar(int id, String username, String email) {
+        invalidar(id);
+        invalidarClave(porUsername, username);
+        invalidarClave(porEmail, email);
+    }
+
+    /**
+     * Invalida al usuario dueño de una credencial que cambió.
+     * Si no se conoce el id_usuario (0), se busca entre las entradas cacheadas.
+     */
+    public synchronized void invalidarPorCredencial(int idCredencial, int idUsuario) {
+        if (idUsuario > 0) {
+            invalidar(idUsuario);
+            return;
+        }
+        version++;
+        Iterator<Entrada> it = porId.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            CredencialAcceso cred = entrada.usuario.getCredencial();
+            if (cred != null && cred.getId() == idCredencial) {
+                quitarIndices(entrada.usuario);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché completa.
+     */
+    public synchronized void limpiar() {
+        version++;
+        porId.clear();
+        porUsername.clear();
+        porEmail.clear();
+    }
+
+    public synchronized Estadisticas getEstadisticas() {
+        double promedio = cargas == 0 ? 0 : nanosCarga / (double) cargas / 1_000_000.0;
+        return new Estadisticas(aciertos, fallos, desalojos, cargas, promedio, porId.size());
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * ¿Se puede leer/llenar la caché desde este hilo? (no dentro de una transacción)
+     */
+    private boolean usable() {
+        return isHabilitada() && !TransactionManager.hayTransaccion();
+    }
+
+    /**
+     * Devuelve el usuario cacheado si existe y no expiró (llamar con el lock tomado).
+     */
+    private Usuario buscarVigente(int id) {
+        Entrada entrada = porId.get(id);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.expiraEn > 0) {
+            porId.remove(id);
+            quitarIndices(entrada.usuario);
+            desalojos++;
+            return null;
+        }
+        return entrada.usuario;
+    }
+
+    /**
+     * Respuesta de existencia desde un índice secundario (llamar con el lock tomado).
+     */
+    private boolean conoce(Integer id) {
+        if (!usable() || id == null || buscarVigente(id) == null) {
+            return false;
+        }
+        aciertos++;
+        return true;
+    }
+
+    /**
+     * Quita username y email de los índices secundarios (llamar con el lock tomado).
+     */
+    private void quitarIndices(Usuario usuario) {
+        porUsername.remove(usuario.getUsername());
+        if (usuario.getEmail() != null) {
+            porEmail.remove(usuario.getEmail());
+        }
+    }
+
+    /**
+     * Invalida el usuario al que apunta la clave secundaria (llamar con el lock tomado).
+     */
+    private void invalidarClave(Map<String, Integer> indice, String clave) {
+        if (clave == null) {
+            return;
+        }
+        Integer otroId = indice.remove(clave);
+        if (otroId != null) {
+            Entrada entrada = porId.remove(otroId);
+            if (entrada != null) {
+                quitarIndices(entrada.usuario);
+            }
+        }
+    }
+
+    private Usuario cargarYGuardar(Cargador cargador, long versionInicial) throws Exception {
+        long inicio = System.nanoTime();
+        Usuario cargado = cargador.cargar();
+        long duracion = System.nanoTime() - inicio;
+
+        synchronized (this) {
+            cargas++;
+            nanosCarga += duracion;
+            // Si hubo una invalidación mientras cargábamos, el dato puede ser viejo: no se guarda
+            if (cargado != null && version == versionInicial) {
+                porId.put(cargado.getId(), new Entrada(copiar(cargado), System.nanoTime() + ttlNanos));
+                porUsername.put(cargado.getUsername(), cargado.getId());
+                if (cargado.getEmail() != null) {
+                    porEmail.put(cargado.getEmail(), cargado.getId());
+                }
+            }
+        }
+        return cargado;
+    }
+
+    /**
+     * Copia "profunda" (usuario + credencial) para aislar la caché de los callers.
+     */
+    private static Usuario copiar(Usuario origen) {
+        Usuario copia = new Usuario();
+        copia.setId(origen.getId());
+        copia.setEliminado(origen.getEliminado());
+        copia.setNombre(origen.getNombre());
+        copia.setApellido(origen.getApellido());
+        copia.setUsername(origen.getUsername());
+        copia.setEmail(origen.getEmail());
+        copia.setActivo(origen.getActivo());
+        copia.setFechaRegistro(origen.getFechaRegistro());
+
+        CredencialAcceso cred = origen.getCredencial();
+        if (cred != null) {
+            CredencialAcceso credCopia = new CredencialAcceso();
+            credCopia.setId(cred.getId());
+            credCopia.setEliminado(cred.getEliminado());
+            credCopia.setHashPassword(cred.getHashPassword());
+            credCopia.setSalt(cred.getSalt());
+            credCopia.setUltimoCambio(cred.getUltimoCambio());
+            credCopia.setRequiereReset(cred.getRequiereReset());
+            credCopia.setIdUsuario(cred.getIdUsuario());
+            credCopia.marcarLimpio();
+            copia.setCredencial(credCopia);
+        }
+        // La caché sólo guarda lo leído de la BD: la copia arranca sin cambios pendientes
+        copia.marcarLimpio();
+        return copia;
+    }
+}
@@ -3,12 +3,22 @@ package DAO;
 
 //Clases de otras careptas del proyecto
 import Config.DatabaseConnection;  // clase de conexión está en un paquete 'Config' -> Emilce
+import Config.GeneradorIds;
+import Config.Replicas;
+import Config.Shards;
+import Config.TransactionManager;
 import Models.CredencialAcceso; // Clase CredencialAcceso en Models -> Joana
 import Models.Usuario; // Clase CredencialAcceso en Models -> Joana
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object para la entidad Usuario.
@@ -18,14 +28,63 @@ import java.util.List;
  * - Implementa GenericDAO<Usuario>.
  * - Usa LEFT JOIN con 'credencial' para Eager Loading o Carga temprana (estrategia de programación para obtener datos) -> cargar los datos principales y todos sus datos relacionados de inmediato, en una sola consulta
  * - Implementa 'soft delete' -> técnica de programación en donde la fila no se borra fisicamente sino que queda como eliminada en una columna especial para ello.
+ *   eliminarBatch da de baja muchos usuarios (y sus credenciales) con UPDATE ... IN (...) por trozos.
  * - Obtiene IDs generados (RETURN_GENERATED_KEYS).
- * - Proporciona métodos con conexión propia y métodos '...Tx'.
- * - Incluye búsqueda especializada por 'username' (único).
+ * - Proporciona métodos con conexión propia y métodos '...Tx'. Dentro de
+ *   TransactionManager.enTransaccion(...) los métodos "con conexión propia" reutilizan la de la transacción.
+ * - Incluye búsquedas especializadas por 'username' y 'email' (únicos) y chequeos de
+ *   existencia (existsByUsername / existsByEmail) que sólo tocan el índice.
+ * - actualizar escribe sólo las columnas modificadas (dirty tracking de Models.Base, ver
+ *   ActualizacionParcial); si no cambió nada, no va a la BD.
+ * - getById, getByUsername y getByEmail pasan por UsuarioCache (read-through); las escrituras la invalidan.
+ * - buscarTexto: búsqueda por prefijo/parcial en IndiceBusqueda (en memoria), que las
+ *   escrituras mantienen al día tras el commit; los resultados se hidratan con getByIds.
+ * - Con shards (ver Config.Shards): las altas van al shard del username con un id de
+ *   GeneradorIds; lo demás se enruta por id. actualizar rechaza un username nuevo de otro shard. Las consultas sin clave corren en todos los
+ *   shards en paralelo y se combinan (getAll y las páginas, ordenadas por id).
+ * - Cada operación registra métricas por fase (ver MetricasDAO / Cronometro).
  */
 public class UsuarioDAO implements GenericDAO<Usuario> {
 
-    
-    
+    /**
+     * Filas dadas de baja por eliminarBatch / eliminarBatchTx.
+     */
+    public record ResultadoBaja(int usuarios, int credenciales) {
+    }
+
+    /**
+     * Caché de lecturas por id/username (compartida con CredencialAccesoDAO).
+     */
+    private final UsuarioCache cache;
+
+    /**
+     * Índice de búsqueda por texto (compartido entre instancias).
+     */
+    private final IndiceBusqueda indice = IndiceBusqueda.getInstancia();
+
+    /**
+     * Contadores de EstadisticasDAO (se ajustan tras cada commit).
+     */
+    private final ContadoresUsuarios contadores = ContadoresUsuarios.getInstancia();
+
+    /**
+     * Filas por executeBatch en insertarBatch/insertBatchTx.
+     */
+    private int tamanioLote = InsercionPorLotes.TAMANIO_POR_DEFECTO;
+
+    /**
+     * Constructor por defecto: usa la caché compartida.
+     */
+    public UsuarioDAO() {
+        this(UsuarioCache.getInstancia());
+    }
+
+    /**
+     * Constructor con caché explícita (ej: una deshabilitada con tamaño 0).
+     */
+    public UsuarioDAO(UsuarioCache cache) {
+        this.cache = cache;
+    }
     
     // --- QUERIES ESTATICAS ---
     // 
@@ -33,25 +92,45 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
     /**
      * Query de inserción de usuario.
      * Inserta solo los campos de la tabla 'usuario'.
-     * 'id' es AUTO_INCREMENT. 'eliminado', 'activo', 'fechaRegistro' tienen DEFAULT.
+     * 'id' es AUTO_INCREMENT. 'eliminado' y 'fechaRegistro' tienen DEFAULT; 'activo' null se escribe como true.
+     */
+    private static final String INSERT_SQL = "INSERT INTO usuario (nombre, apellido, username, email, activo) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Inserción con shards: el id lo reserva GeneradorIds (el AUTO_INCREMENT se repetiría entre shards).
      */
-    private static final String INSERT_SQL = "INSERT INTO usuario (nombre, apellido, username, email) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_CON_ID_SQL = "INSERT INTO usuario (nombre, apellido, username, email, activo, id) VALUES (?, ?, ?, ?, ?, ?)";
 
     
     
     /**
-     * Query de actualización de usuario.
-     * Solo actualiza campos de la tabla 'usuario'.
+     * Actualización de usuario: sólo las columnas que cambiaron (ver ActualizacionParcial).
+     * Solo actualiza campos de la tabla 'usuario'. Una entidad no rastreada escribe las 5 columnas.
      */
-    private static final String UPDATE_SQL = "UPDATE usuario SET nombre = ?, apellido = ?, username = ?, email = ?, activo = ? WHERE id = ?";
+    private static final ActualizacionParcial<Usuario> UPDATE = new ActualizacionParcial<Usuario>("usuario")
+        .columna(Usuario.CAMPO_NOMBRE, "nombre", (stmt, i, u) -> stmt.setString(i, u.getNombre()))
+        .columna(Usuario.CAMPO_APELLIDO, "apellido", (stmt, i, u) -> stmt.setString(i, u.getApellido()))
+        .columna(Usuario.CAMPO_USERNAME, "username", (stmt, i, u) -> stmt.setString(i, u.getUsername()))
+        .columna(Usuario.CAMPO_EMAIL, "email", (stmt, i, u) -> stmt.setString(i, u.getEmail()))
+        .columna(Usuario.CAMPO_ACTIVO, "activo", (stmt, i, u) -> stmt.setBoolean(i, u.getActivo()));
 
     
     
     /**
      * Query de soft delete (baja lógica).
-     * Marca 'eliminado' y 'activo'.
+     * Marca 'eliminado' y 'activo', y la fecha de la baja (la usa ArchivoDAO).
      */
-    private static final String DELETE_SQL = "UPDATE usuario SET eliminado = true, activo = false WHERE id = ?";
+    private static final String DELETE_SQL = "UPDATE usuario SET eliminado = true, activo = false, fecha_eliminacion = CURRENT_TIMESTAMP WHERE id = ?";
+
+    /**
+     * Plantillas de baja masiva ("%s" = "?, ?, ..."; ver ConsultaPorLista).
+     * Sólo tocan filas todavía activas: los conteos reflejan lo que realmente cambió.
+     * La credencial se da de baja por su FK (id_usuario), sin leerla antes.
+     */
+    private static final String DELETE_BATCH_SQL = "UPDATE usuario SET eliminado = true, activo = false, fecha_eliminacion = CURRENT_TIMESTAMP "
+        + "WHERE id IN (%s) AND eliminado = false";
+    private static final String DELETE_CREDENCIALES_BATCH_SQL = "UPDATE credencial SET eliminado = true, fecha_eliminacion = CURRENT_TIMESTAMP "
+        + "WHERE id_usuario IN (%s) AND eliminado = false";
 
     
     
@@ -95,6 +174,117 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
         + SELECT_BASE
         + "WHERE u.username = ? AND u.eliminado = false";
 
+    /**
+     * Plantillas para búsquedas masivas (el "%s" se reemplaza por "?, ?, ...").
+     * Ver ConsultaPorLista.
+     */
+    private static final String SELECT_BY_IDS_SQL = "SELECT u.*, "
+        + "c.id AS c_id, c.contraseña, c.salt, c.ultimo_cambio, c.require_reset, c.id_usuario "
+        + SELECT_BASE
+        + "WHERE u.id IN (%s) AND u.eliminado = false";
+
+    private static final String SELECT_BY_USERNAMES_SQL = "SELECT u.*, "
+        + "c.id AS c_id, c.contraseña, c.salt, c.ultimo_cambio, c.require_reset, c.id_usuario "
+        + SELECT_BASE
+        + "WHERE u.username IN (%s) AND u.eliminado = false";
+
+    /**
+     * Filtros (WHERE) que se combinan con el SELECT de cada ProyeccionUsuario.
+     */
+    private static final String WHERE_BY_ID = "WHERE u.id = ? AND u.eliminado = false";
+    private static final String WHERE_ALL = "WHERE u.eliminado = false";
+    private static final String WHERE_BY_USERNAME = "WHERE u.username = ? AND u.eliminado = false";
+    private static final String WHERE_BY_EMAIL = "WHERE u.email = ? AND u.eliminado = false";
+
+    /**
+     * Filtro de paginación por clave (keyset / seek) hacia adelante.
+     * Usa la PK como cursor ("id > último visto") en lugar de OFFSET:
+     * el costo por página es constante sin importar en qué página estemos.
+     */
+    private static final String WHERE_PAGE = "WHERE u.eliminado = false AND u.id > ? ORDER BY u.id ASC LIMIT ?";
+
+    /**
+     * Filtro de paginación por clave hacia atrás ("id < primero visto", orden descendente).
+     */
+    private static final String WHERE_PAGE_DESC = "WHERE u.eliminado = false AND u.id < ? ORDER BY u.id DESC LIMIT ?";
+
+    /**
+     * Filtro por rango de ids [desde, hasta): permite repartir un recorrido completo entre hilos.
+     */
+    private static final String WHERE_RANGO = "WHERE u.eliminado = false AND u.id >= ? AND u.id < ? ORDER BY u.id ASC";
+
+    /**
+     * Chequeos de existencia: se responden sólo con el índice UNIQUE (sin leer la fila
+     * ni traer columnas). Incluyen a los eliminados a propósito: el UNIQUE también los
+     * cuenta, así que un username/email de un usuario dado de baja tampoco se puede reusar.
+     */
+    private static final String EXISTS_USERNAME_SQL = "SELECT 1 FROM usuario WHERE username = ? LIMIT 1";
+    private static final String EXISTS_EMAIL_SQL = "SELECT 1 FROM usuario WHERE email = ? LIMIT 1";
+
+    /**
+     * Extremos de los ids activos (para calcular los rangos). Resuelto con el índice de la PK.
+     */
+    private static final String SELECT_RANGO_IDS_SQL = "SELECT MIN(id), MAX(id) FROM usuario WHERE eliminado = false";
+
+
+    // --- MÉTRICAS (una por operación, ver MetricasDAO) ---
+
+    private static final OperacionDAO M_INSERTAR = MetricasDAO.operacion("UsuarioDAO.insertar");
+    private static final OperacionDAO M_INSERT_TX = MetricasDAO.operacion("UsuarioDAO.insertTx");
+    private static final OperacionDAO M_INSERT_BATCH_TX = MetricasDAO.operacion("UsuarioDAO.insertBatchTx");
+    private static final OperacionDAO M_ACTUALIZAR = MetricasDAO.operacion("UsuarioDAO.actualizar");
+    private static final OperacionDAO M_ACTUALIZAR_SIN_CAMBIOS = MetricasDAO.operacion("UsuarioDAO.actualizarSinCambios");
+    private static final OperacionDAO M_ELIMINAR = MetricasDAO.operacion("UsuarioDAO.eliminar");
+    private static final OperacionDAO M_ELIMINAR_BATCH_TX = MetricasDAO.operacion("UsuarioDAO.eliminarBatchTx");
+    private static final OperacionDAO M_GET_BY_ID = MetricasDAO.operacion("UsuarioDAO.getById");
+    private static final OperacionDAO M_GET_BY_USERNAME = MetricasDAO.operacion("UsuarioDAO.getByUsername");
+    private static final OperacionDAO M_GET_BY_EMAIL = MetricasDAO.operacion("UsuarioDAO.getByEmail");
+    private static final OperacionDAO M_EXISTS_BY_USERNAME = MetricasDAO.operacion("UsuarioDAO.existsByUsername");
+    private static final OperacionDAO M_EXISTS_BY_EMAIL = MetricasDAO.operacion("UsuarioDAO.existsByEmail");
+    private static final OperacionDAO M_GET_ALL = MetricasDAO.operacion("UsuarioDAO.getAll");
+    private static final OperacionDAO M_STREAM_ALL = MetricasDAO.operacion("UsuarioDAO.streamAll");
+    private static final OperacionDAO M_GET_BY_IDS = MetricasDAO.operacion("UsuarioDAO.getByIds");
+    private static final OperacionDAO M_GET_BY_USERNAMES = MetricasDAO.operacion("UsuarioDAO.getByUsernames");
+    private static final OperacionDAO M_GET_PAGE = MetricasDAO.operacion("UsuarioDAO.getPage");
+    private static final OperacionDAO M_GET_PAGE_DESC = MetricasDAO.operacion("UsuarioDAO.getPageDesc");
+    private static final OperacionDAO M_STREAM_RANGO = MetricasDAO.operacion("UsuarioDAO.streamRango");
+    private static final OperacionDAO M_GET_RANGO_IDS = MetricasDAO.operacion("UsuarioDAO.getRangoIds");
+
+    // --- MAPEO POR ÍNDICE (ver MapeoFilas) ---
+    // Las columnas se resuelven una vez por forma de SELECT; cada fila lee por índice.
+
+    /**
+     * Posiciones dentro de COLUMNAS (no son índices JDBC: el índice real se resuelve por query).
+     */
+    private static final int COL_ID = 0;
+    private static final int COL_ELIMINADO = 1;
+    private static final int COL_NOMBRE = 2;
+    private static final int COL_APELLIDO = 3;
+    private static final int COL_USERNAME = 4;
+    private static final int COL_EMAIL = 5;
+    private static final int COL_ACTIVO = 6;
+    private static final int COL_FECHA_REGISTRO = 7;
+    private static final int COL_C_ID = 8;
+    private static final int COL_C_CONTRASENIA = 9;
+    private static final int COL_C_SALT = 10;
+    private static final int COL_C_ULTIMO_CAMBIO = 11;
+    private static final int COL_C_REQUIERE_RESET = 12;
+    private static final int COL_C_ID_USUARIO = 13;
+
+    /**
+     * Etiquetas de todas las columnas que leen las proyecciones (cada una usa un subconjunto).
+     */
+    private static final String[] COLUMNAS = {"id", "eliminado", "nombre", "apellido", "username", "email",
+        "activo", "fechaRegistro", "c_id", "contraseña", "salt", "ultimo_cambio", "require_reset", "id_usuario"};
+
+    /**
+     * Todas las queries "con credencial" traen las columnas de ProyeccionUsuario.COMPLETO.
+     */
+    private static final String FORMA_COMPLETO = ProyeccionUsuario.COMPLETO.getSelect();
+
+    static final MapeoFilas<Usuario> MAPEO_COMPLETO = new MapeoFilas<>(COLUMNAS, UsuarioDAO::mapResultSetToUsuario);
+    static final MapeoFilas<Usuario> MAPEO_SIN_CREDENCIAL = new MapeoFilas<>(COLUMNAS, UsuarioDAO::mapCamposUsuario);
+    static final MapeoFilas<Usuario> MAPEO_RESUMEN = new MapeoFilas<>(COLUMNAS, UsuarioDAO::mapResumen);
 
     // --- IMPLEMENTACIÓN GenericDAO ---
 
@@ -103,13 +293,28 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
      */
     @Override
     public void insertar(Usuario usuario) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        Shards.enShard(Shards.deUsername(usuario.getUsername()), () -> insertarEnShard(usuario));
+    }
+
+    /**
+     * INSERT con conexión propia, en el shard del hilo.
+     */
+    private void insertarEnShard(Usuario usuario) throws Exception {
+        Cronometro c = M_INSERTAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(prepararInsert(conn))) {
             
-            setUsuarioParameters(stmt, usuario);
-            stmt.executeUpdate();
-            setGeneratedId(stmt, usuario); // Asigna el ID generado al objeto
+            insertarFila(stmt, usuario, c); // Asigna el ID (generado o reservado) al objeto
+            TransactionManager.alConfirmar(usuario::marcarLimpio);
+            indexar(conn, usuario);
+            int inactivos = esActivo(usuario) ? 0 : 1;
+            TransactionManager.alConfirmar(() -> contadores.usuariosInsertados(1, inactivos));
+            c.fin(1);
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
+        invalidarCache(() -> cache.invalidar(usuario.getId(), usuario.getUsername(), usuario.getEmail()));
     }
 
     /**
@@ -117,30 +322,130 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
      */
     @Override
     public void insertTx(Usuario usuario, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+        Shards.verificar(Shards.deUsername(usuario.getUsername()));
+        Cronometro c = M_INSERT_TX.iniciar();
+        try (PreparedStatement stmt = c.preparado(prepararInsert(conn))) {
             
-            setUsuarioParameters(stmt, usuario);
-            stmt.executeUpdate();
-            setGeneratedId(stmt, usuario); // Asigna el ID generado al objeto
+            insertarFila(stmt, usuario, c); // Asigna el ID (generado o reservado) al objeto
+            alConfirmarTx(conn, usuario::marcarLimpio);
+            indexar(conn, usuario);
+            int inactivos = esActivo(usuario) ? 0 : 1;
+            alConfirmarTx(conn, () -> contadores.usuariosInsertados(1, inactivos));
+            c.fin(1);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        invalidarCache(() -> cache.invalidar(usuario.getId(), usuario.getUsername(), usuario.getEmail()));
+    }
+
+    /**
+     * Inserta usuarios en lotes (versión con conexión propia).
+     * Todo el lote es una sola transacción: si falla una fila, no se inserta ninguna.
+     * Con shards, una transacción por shard (los shards ya confirmados no se deshacen).
+     * Si el hilo ya tiene una transacción abierta (TransactionManager), se une a ella.
+     */
+    @Override
+    public void insertarBatch(List<Usuario> usuarios) throws Exception {
+        for (Map.Entry<Integer, List<Usuario>> grupo : Shards.agrupar(usuarios, u -> Shards.deUsername(u.getUsername())).entrySet()) {
+            Shards.enShard(grupo.getKey(), () -> TransactionManager.enTransaccion(
+                    () -> insertBatchTx(grupo.getValue(), TransactionManager.getConexionActual())));
+        }
+    }
+
+    /**
+     * Inserta usuarios en lotes (versión transaccional).
+     * Al terminar, cada usuario tiene su ID generado (en el mismo orden de la lista).
+     * Con shards, todos los usuarios deben ser del shard de la transacción.
+     */
+    @Override
+    public void insertBatchTx(List<Usuario> usuarios, Connection conn) throws Exception {
+        Cronometro c = M_INSERT_BATCH_TX.iniciar();
+        try {
+            if (Shards.habilitado()) {
+                for (Usuario usuario : usuarios) {
+                    int shard = Shards.deUsername(usuario.getUsername());
+                    Shards.verificar(shard);
+                    usuario.setId(GeneradorIds.siguiente(GeneradorIds.USUARIO, shard));
+                }
+                InsercionPorLotes.insertar(conn, INSERT_CON_ID_SQL, usuarios, tamanioLote,
+                        this::setUsuarioParametersConId, null, c);
+            } else {
+                InsercionPorLotes.insertar(conn, INSERT_SQL, usuarios, tamanioLote,
+                        this::setUsuarioParameters, Usuario::setId, c);
+            }
+            c.fin(usuarios.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        int insertados = usuarios.size();
+        int inactivos = (int) usuarios.stream().filter(u -> !esActivo(u)).count();
+        alConfirmarTx(conn, () -> contadores.usuariosInsertados(insertados, inactivos));
+        for (Usuario usuario : usuarios) {
+            alConfirmarTx(conn, usuario::marcarLimpio);
+            indexar(conn, usuario);
+            invalidarCache(() -> cache.invalidar(usuario.getId(), usuario.getUsername(), usuario.getEmail()));
         }
     }
 
+    /**
+     * Cambia la cantidad de filas por executeBatch (por defecto -Ddb.batch.size o 500).
+     */
+    public void setTamanioLote(int tamanioLote) {
+        if (tamanioLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser >= 1");
+        }
+        this.tamanioLote = tamanioLote;
+    }
+
     /**
      * Actualiza un usuario (versión con conexión propia).
+     * Si el usuario se leyó con este DAO, sólo escribe las columnas que cambiaron; si no
+     * cambió nada, no va a la BD. Al terminar, el usuario queda "limpio".
      */
     @Override
     public void actualizar(Usuario usuario) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+        Shards.enShard(Shards.deId(usuario.getId()), () -> actualizarEnShard(usuario));
+    }
+
+    /**
+     * UPDATE en el shard del hilo.
+     */
+    private void actualizarEnShard(Usuario usuario) throws Exception {
+        int mascara = UPDATE.mascara(usuario);
+        if (mascara == 0) {
+            M_ACTUALIZAR_SIN_CAMBIOS.iniciar().fin(0);
+            return;
+        }
+        // El UNIQUE(username) vale por shard: sólo es global si cada username vive en el shard de su hash
+        if (Shards.habilitado() && usuario.isModificado(Usuario.CAMPO_USERNAME)
+                && Shards.deUsername(usuario.getUsername()) != Shards.deId(usuario.getId())) {
+            throw new SQLException("El username '" + usuario.getUsername() + "' corresponde a otro shard que el usuario "
+                + usuario.getId() + " (con shards, el username no puede cambiar de shard)");
+        }
+        Cronometro c = M_ACTUALIZAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(UPDATE.sql(mascara)))) {
             
-            setUsuarioParameters(stmt, usuario); // Reutilizamos el setter de params
-            stmt.setBoolean(5, usuario.getActivo()); // Param 5 es 'activo'
-            stmt.setInt(6, usuario.getId());       // Param 6 es 'id' en el WHERE
+            UPDATE.asignarParametros(stmt, mascara, usuario); // Columnas modificadas + 'id' en el WHERE
             
-            int rowsAffected = stmt.executeUpdate();
+            int rowsAffected = c.ejecutado(stmt.executeUpdate());
             if (rowsAffected == 0) {
                 throw new SQLException("No se pudo actualizar el usuario con ID: " + usuario.getId());
             }
+            indexar(conn, usuario); // Antes de marcarLimpio: sólo reindexa los campos modificados
+            if (usuario.isModificado(Usuario.CAMPO_ACTIVO)) {
+                TransactionManager.alConfirmar(contadores::invalidar); // No se sabe el valor anterior en la BD
+            }
+            TransactionManager.alConfirmar(usuario::marcarLimpio);
+            c.fin(rowsAffected);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        } finally {
+            // Invalida el id (y su username viejo) y el username nuevo
+            invalidarCache(() -> cache.invalidar(usuario.getId(), usuario.getUsername(), usuario.getEmail()));
         }
     }
 
@@ -149,73 +454,643 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
      */
     @Override
     public void eliminar(int id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        Shards.enShard(Shards.deId(id), () -> eliminarEnShard(id));
+    }
+
+    /**
+     * Soft delete en el shard del hilo.
+     */
+    private void eliminarEnShard(int id) throws Exception {
+        Cronometro c = M_ELIMINAR.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(DELETE_SQL))) {
             
             stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
+            int rowsAffected = c.ejecutado(stmt.executeUpdate());
             if (rowsAffected == 0) {
                 throw new SQLException("No se encontró usuario con ID: " + id);
             }
+            TransactionManager.alConfirmar(() -> indice.quitar(id));
+            TransactionManager.alConfirmar(contadores::invalidar);
+            c.fin(rowsAffected);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        } finally {
+            invalidarCache(() -> cache.invalidar(id));
+        }
+    }
+
+    /**
+     * Baja lógica masiva de usuarios y de sus credenciales (versión con conexión propia).
+     * Todo es una sola transacción (con shards, una por shard); si el hilo ya tiene una
+     * abierta, se une a ella. Los IDs inexistentes o ya eliminados no cuentan (no es error).
+     */
+    public ResultadoBaja eliminarBatch(Collection<Integer> ids) throws Exception {
+        int usuarios = 0;
+        int credenciales = 0;
+        for (Map.Entry<Integer, List<Integer>> grupo : Shards.agrupar(ids, Shards::deId).entrySet()) {
+            ResultadoBaja parcial = Shards.enShard(grupo.getKey(), () -> TransactionManager.enTransaccion(
+                    () -> eliminarBatchTx(grupo.getValue(), TransactionManager.getConexionActual())));
+            usuarios += parcial.usuarios();
+            credenciales += parcial.credenciales();
+        }
+        return new ResultadoBaja(usuarios, credenciales);
+    }
+
+    /**
+     * Baja lógica masiva (versión transaccional): un UPDATE ... WHERE id IN (...) por trozo
+     * para 'usuario' y otro por trozo para 'credencial' (cascada por id_usuario).
+     * Con shards, todos los IDs deben ser del shard de la transacción.
+     */
+    public ResultadoBaja eliminarBatchTx(Collection<Integer> ids, Connection conn) throws Exception {
+        Cronometro c = M_ELIMINAR_BATCH_TX.iniciar();
+        ResultadoBaja resultado;
+        try {
+            if (Shards.habilitado()) {
+                for (Integer id : ids) {
+                    if (id != null) {
+                        Shards.verificar(Shards.deId(id));
+                    }
+                }
+            }
+            int usuarios = ConsultaPorLista.actualizar(conn, DELETE_BATCH_SQL, ids, ConsultaPorLista.TAMANIO_POR_DEFECTO, c);
+            int credenciales = ConsultaPorLista.actualizar(conn, DELETE_CREDENCIALES_BATCH_SQL, ids, ConsultaPorLista.TAMANIO_POR_DEFECTO, c);
+            resultado = new ResultadoBaja(usuarios, credenciales);
+            if (usuarios + credenciales > 0) {
+                alConfirmarTx(conn, contadores::invalidar);
+            }
+            for (Integer id : ids) {
+                if (id != null) {
+                    alConfirmarTx(conn, () -> indice.quitar(id));
+                }
+            }
+            c.fin(usuarios + credenciales);
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        } finally {
+            for (Integer id : ids) {
+                if (id != null) {
+                    invalidarCache(() -> cache.invalidar(id));
+                }
+            }
         }
+        return resultado;
     }
 
     /**
      * Obtiene un usuario por su ID, incluyendo su credencial.
+     * Pasa primero por la caché; si no está, va a la BD (a una réplica si hay: ver Config.Replicas).
      */
     @Override
     public Usuario getById(int id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+        return cache.getById(id, () -> Replicas.leer(() -> Shards.enShard(Shards.deId(id), () -> cargarPorId(id))));
+    }
+
+    /**
+     * Lectura real por ID contra la BD (la usa la caché en un fallo).
+     */
+    private Usuario cargarPorId(int id) throws Exception {
+        Cronometro c = M_GET_BY_ID.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(SELECT_BY_ID_SQL))) {
             
             stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
                 if (rs.next()) {
-                    return mapResultSetToUsuario(rs);
+                    Usuario usuario = MAPEO_COMPLETO.mapear(FORMA_COMPLETO, rs);
+                    c.fin(1);
+                    return usuario;
                 }
             }
+            c.fin(0);
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
         return null; // No se encontró
     }
 
     /**
-     * Obtiene todos los usuarios activos, incluyendo sus credenciales.
+     * Obtiene todos los usuarios activos, incluyendo sus credenciales (de una réplica si hay).
      */
     @Override
     public List<Usuario> getAll() throws Exception {
+        return unirPorId(Replicas.leer(() -> Shards.enTodos(this::getAllEnShard)));
+    }
+
+    /**
+     * getAll() en el shard del hilo.
+     */
+    private List<Usuario> getAllEnShard() throws Exception {
         List<Usuario> usuarios = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL);
-             ResultSet rs = stmt.executeQuery()) {
+        Cronometro c = M_GET_ALL.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(SELECT_ALL_SQL));
+             ResultSet rs = c.ejecutado(stmt.executeQuery())) {
             
+            CursorStream.MapeadorFila<Usuario> mapeador = MAPEO_COMPLETO.para(FORMA_COMPLETO);
             while (rs.next()) {
-                usuarios.add(mapResultSetToUsuario(rs));
+                usuarios.add(mapeador.mapear(rs));
             }
+            c.fin(usuarios.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
         return usuarios;
     }
 
+    /**
+     * Recorre todos los usuarios activos con un cursor forward-only / read-only.
+     * La memoria se mantiene constante sin importar el tamaño de la tabla.
+     * Usar en try-with-resources (cerrar el Stream libera la conexión).
+     */
+    @Override
+    public Stream<Usuario> streamAll() throws Exception {
+        return streamAll(CursorStream.FETCH_POR_DEFECTO);
+    }
+
+    /**
+     * Igual que streamAll(), indicando cuántas filas trae cada viaje al servidor.
+     */
+    public Stream<Usuario> streamAll(int tamanioFetch) throws Exception {
+        return Shards.concatenar(() -> CursorStream.abrir(SELECT_ALL_SQL, tamanioFetch,
+                MAPEO_COMPLETO.para(FORMA_COMPLETO), M_STREAM_ALL));
+    }
+
+    // --- LECTURAS CON PROYECCIÓN ---
+    // El caller elige qué columnas trae cada llamada (ver ProyeccionUsuario).
+    // Sólo COMPLETO pasa por la caché (es lo que la caché guarda).
+
+    /**
+     * Obtiene un usuario por ID con la proyección indicada.
+     */
+    public Usuario getById(int id, ProyeccionUsuario proyeccion) throws Exception {
+        if (proyeccion == ProyeccionUsuario.COMPLETO) {
+            return getById(id);
+        }
+        List<Usuario> encontrados = Replicas.leer(() -> Shards.enShard(Shards.deId(id),
+                () -> buscar(M_GET_BY_ID, proyeccion, WHERE_BY_ID, id)));
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    /**
+     * Busca un usuario por username con la proyección indicada.
+     */
+    public Usuario getByUsername(String username, ProyeccionUsuario proyeccion) throws Exception {
+        if (proyeccion == ProyeccionUsuario.COMPLETO) {
+            return getByUsername(username);
+        }
+        return Replicas.leer(() -> porUsername(username, () -> {
+            List<Usuario> encontrados = buscar(M_GET_BY_USERNAME, proyeccion, WHERE_BY_USERNAME, username);
+            return encontrados.isEmpty() ? null : encontrados.get(0);
+        }));
+    }
+
+    /**
+     * Busca un usuario por email con la proyección indicada.
+     */
+    public Usuario getByEmail(String email, ProyeccionUsuario proyeccion) throws Exception {
+        if (proyeccion == ProyeccionUsuario.COMPLETO) {
+            return getByEmail(email);
+        }
+        return cargarPorEmail(email, proyeccion);
+    }
+
+    /**
+     * Obtiene todos los usuarios activos con la proyección indicada.
+     */
+    public List<Usuario> getAll(ProyeccionUsuario proyeccion) throws Exception {
+        return unirPorId(Replicas.leer(() -> Shards.enTodos(() -> buscar(M_GET_ALL, proyeccion, WHERE_ALL))));
+    }
+
+    /**
+     * Recorre todos los usuarios activos (cursor) con la proyección indicada.
+     */
+    public Stream<Usuario> streamAll(ProyeccionUsuario proyeccion) throws Exception {
+        return Shards.concatenar(() -> CursorStream.abrir(proyeccion.getSelect() + WHERE_ALL,
+                CursorStream.FETCH_POR_DEFECTO, mapeador(proyeccion), M_STREAM_ALL));
+    }
+
+    /**
+     * Recorre (cursor, orden por id) los usuarios activos con id en [desdeId, hastaId).
+     * Con shards, el orden por id es dentro de cada shard (se recorren uno detrás de otro).
+     * Usar en try-with-resources.
+     */
+    public Stream<Usuario> streamRango(int desdeId, int hastaId, ProyeccionUsuario proyeccion) throws Exception {
+        return Shards.concatenar(() -> CursorStream.abrir(proyeccion.getSelect() + WHERE_RANGO,
+                CursorStream.FETCH_POR_DEFECTO, mapeador(proyeccion), M_STREAM_RANGO, desdeId, hastaId));
+    }
+
+    /**
+     * Menor y mayor id de los usuarios activos.
+     *
+     * @return {min, max}, o null si no hay usuarios activos
+     */
+    public int[] getRangoIds() throws Exception {
+        int[] rango = null;
+        for (int[] parcial : Shards.enTodos(this::getRangoIdsEnShard)) {
+            if (parcial != null) {
+                rango = rango == null ? parcial
+                    : new int[]{Math.min(rango[0], parcial[0]), Math.max(rango[1], parcial[1])};
+            }
+        }
+        return rango;
+    }
+
+    /**
+     * getRangoIds() en el shard del hilo.
+     */
+    private int[] getRangoIdsEnShard() throws Exception {
+        Cronometro c = M_GET_RANGO_IDS.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(SELECT_RANGO_IDS_SQL));
+             ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+
+            int[] rango = null;
+            if (rs.next() && rs.getObject(1) != null) {
+                rango = new int[]{rs.getInt(1), rs.getInt(2)};
+            }
+            c.fin(rango == null ? 0 : 1);
+            return rango;
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+    }
+
     // --- MÉTODOS ESPECIALIZADOS ---
 
     /**
      * Busca un usuario por su 'username' (que es UNIQUE).
+     * Pasa primero por la caché; si no está, va a la BD (a una réplica si hay).
      */
     public Usuario getByUsername(String username) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_USERNAME_SQL)) {
+        return cache.getByUsername(username, () -> Replicas.leer(() -> porUsername(username, () -> cargarPorUsername(username))));
+    }
+
+    /**
+     * Lectura real por username contra la BD (la usa la caché en un fallo).
+     */
+    private Usuario cargarPorUsername(String username) throws Exception {
+        Cronometro c = M_GET_BY_USERNAME.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(SELECT_BY_USERNAME_SQL))) {
             
             stmt.setString(1, username);
-            try (ResultSet rs = stmt.executeQuery()) {
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
                 if (rs.next()) {
-                    return mapResultSetToUsuario(rs);
+                    Usuario usuario = MAPEO_COMPLETO.mapear(FORMA_COMPLETO, rs);
+                    c.fin(1);
+                    return usuario;
                 }
             }
+            c.fin(0);
+        } catch (Exception e) {
+            c.error();
+            throw e;
         }
         return null; // No se encontró
     }
 
+    /**
+     * Busca un usuario activo por su 'email' (UNIQUE).
+     * Pasa primero por la caché; si no está, va a la BD.
+     */
+    public Usuario getByEmail(String email) throws Exception {
+        return cache.getByEmail(email, () -> cargarPorEmail(email, ProyeccionUsuario.COMPLETO));
+    }
+
+    /**
+     * ¿Ya hay un usuario (activo o dado de baja) con ese username?
+     * Si la caché tiene un usuario activo con ese username responde sin ir a la BD;
+     * si no, una query que sólo toca el índice UNIQUE.
+     */
+    public boolean existsByUsername(String username) throws Exception {
+        return cache.conoceUsername(username) || porUsername(username,
+                () -> existe(M_EXISTS_BY_USERNAME, EXISTS_USERNAME_SQL, username) ? Boolean.TRUE : null) != null;
+    }
+
+    /**
+     * ¿Ya hay un usuario (activo o dado de baja) con ese email? Igual que existsByUsername.
+     */
+    public boolean existsByEmail(String email) throws Exception {
+        return cache.conoceEmail(email)
+                || Shards.enTodos(() -> existe(M_EXISTS_BY_EMAIL, EXISTS_EMAIL_SQL, email)).contains(Boolean.TRUE);
+    }
+
+    /**
+     * Búsqueda por texto (prefijo o parcial) en username, nombre y apellido, sin distinguir
+     * mayúsculas ni acentos. El ranking sale de IndiceBusqueda (en memoria, sin ir a la BD);
+     * sólo los ids resultantes se leen de la BD, en un único getByIds.
+     *
+     * @param maximo Cantidad máxima de resultados
+     * @return Usuarios (con credencial) en el orden del ranking
+     */
+    public List<Usuario> buscarTexto(String texto, int maximo) throws Exception {
+        List<Integer> ids = indice.buscar(texto, maximo, () -> streamAll(ProyeccionUsuario.SIN_CREDENCIAL));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Usuario> porId = getByIds(ids);
+        List<Usuario> resultado = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Usuario usuario = porId.get(id);
+            if (usuario != null) { // null: lo dio de baja otro proceso y el índice todavía no se recargó
+                resultado.add(usuario);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca muchos usuarios por ID en pocos round trips (IN-lists por trozos).
+     * Los IDs inexistentes o eliminados simplemente no aparecen en el mapa.
+     *
+     * @return Mapa id -> Usuario (con credencial)
+     */
+    public Map<Integer, Usuario> getByIds(Collection<Integer> ids) throws Exception {
+        Map<Integer, List<Integer>> grupos = Shards.agrupar(ids, Shards::deId);
+        Map<Integer, Usuario> resultado = new LinkedHashMap<>();
+        for (Map<Integer, Usuario> parcial : Shards.enParalelo(grupos.keySet(), shard -> getByIdsEnShard(grupos.get(shard)))) {
+            resultado.putAll(parcial);
+        }
+        return resultado;
+    }
+
+    /**
+     * getByIds(...) en el shard del hilo.
+     */
+    private Map<Integer, Usuario> getByIdsEnShard(Collection<Integer> ids) throws Exception {
+        Map<Integer, Usuario> resultado = new LinkedHashMap<>();
+        Cronometro c = M_GET_BY_IDS.iniciar();
+        try {
+            ConsultaPorLista.consultar(SELECT_BY_IDS_SQL, ids, ConsultaPorLista.TAMANIO_POR_DEFECTO,
+                    MAPEO_COMPLETO.para(FORMA_COMPLETO), u -> resultado.put(u.getId(), u), c);
+            c.fin(resultado.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca muchos usuarios por username en pocos round trips (IN-lists por trozos).
+     *
+     * @return Mapa username -> Usuario (con credencial)
+     */
+    public Map<String, Usuario> getByUsernames(Collection<String> usernames) throws Exception {
+        Map<Integer, List<String>> grupos = Shards.agrupar(usernames, Shards::deUsername);
+        Map<String, Usuario> resultado = new LinkedHashMap<>();
+        for (Map<String, Usuario> parcial : Shards.enParalelo(grupos.keySet(), shard -> getByUsernamesEnShard(grupos.get(shard)))) {
+            resultado.putAll(parcial);
+        }
+        return resultado;
+    }
+
+    /**
+     * getByUsernames(...) en el shard del hilo.
+     */
+    private Map<String, Usuario> getByUsernamesEnShard(Collection<String> usernames) throws Exception {
+        Map<String, Usuario> resultado = new LinkedHashMap<>();
+        Cronometro c = M_GET_BY_USERNAMES.iniciar();
+        try {
+            ConsultaPorLista.consultar(SELECT_BY_USERNAMES_SQL, usernames, ConsultaPorLista.TAMANIO_POR_DEFECTO,
+                    MAPEO_COMPLETO.para(FORMA_COMPLETO), u -> resultado.put(u.getUsername(), u), c);
+            c.fin(resultado.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        return resultado;
+    }
+
+    /**
+     * Página de usuarios con id mayor a 'afterId', en orden ascendente.
+     * Primera página: afterId = 0. Siguiente: el id del último de la página actual.
+     */
+    public List<Usuario> getPage(int afterId, int limit) throws Exception {
+        return getPage(afterId, limit, ProyeccionUsuario.COMPLETO);
+    }
+
+    /**
+     * Igual que getPage(afterId, limit), con la proyección indicada.
+     */
+    public List<Usuario> getPage(int afterId, int limit, ProyeccionUsuario proyeccion) throws Exception {
+        return getPage(M_GET_PAGE, proyeccion, WHERE_PAGE, afterId, limit, false);
+    }
+
+    /**
+     * Página de usuarios con id menor a 'beforeId', en orden DESCENDENTE.
+     * Última página: beforeId = Integer.MAX_VALUE. Anterior: el id del primero de la página actual.
+     */
+    public List<Usuario> getPageDesc(int beforeId, int limit) throws Exception {
+        return getPageDesc(beforeId, limit, ProyeccionUsuario.COMPLETO);
+    }
+
+    /**
+     * Igual que getPageDesc(beforeId, limit), con la proyección indicada.
+     */
+    public List<Usuario> getPageDesc(int beforeId, int limit, ProyeccionUsuario proyeccion) throws Exception {
+        return getPage(M_GET_PAGE_DESC, proyeccion, WHERE_PAGE_DESC, beforeId, limit, true);
+    }
+
+    // --- VERIFICACIÓN DE PLANES (ver VerificadorPlanes) ---
+
+    /**
+     * Las queries de este DAO con parámetros de ejemplo, para revisar su plan con EXPLAIN.
+     * getAll recorre 'usuario' a propósito; la credencial del JOIN igual debe ir por índice.
+     */
+    static List<VerificadorPlanes.Consulta> consultasVerificables() {
+        String completo = ProyeccionUsuario.COMPLETO.getSelect();
+        return List.of(
+            new VerificadorPlanes.Consulta("UsuarioDAO.getById", completo + WHERE_BY_ID, null, 1),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getByUsername", completo + WHERE_BY_USERNAME, null, "usuario"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getByEmail", completo + WHERE_BY_EMAIL, null, "usuario@mail.com"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.existsByUsername", EXISTS_USERNAME_SQL, null, "usuario"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.existsByEmail", EXISTS_EMAIL_SQL, null, "usuario@mail.com"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getAll", completo + WHERE_ALL, "u"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getByIds", String.format(SELECT_BY_IDS_SQL, "?, ?"), null, 1, 2),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getByUsernames", String.format(SELECT_BY_USERNAMES_SQL, "?, ?"),
+                null, "usuario1", "usuario2"),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getPage", completo + WHERE_PAGE, null, 0, 50),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getPageDesc", completo + WHERE_PAGE_DESC, null, Integer.MAX_VALUE, 50),
+            new VerificadorPlanes.Consulta("UsuarioDAO.streamRango", completo + WHERE_RANGO, null, 1, 1001),
+            new VerificadorPlanes.Consulta("UsuarioDAO.getRangoIds", SELECT_RANGO_IDS_SQL, null),
+            new VerificadorPlanes.Consulta("UsuarioDAO.actualizar", UPDATE.sql(1), null, "nombre", 1),
+            new VerificadorPlanes.Consulta("UsuarioDAO.eliminar", DELETE_SQL, null, 1),
+            new VerificadorPlanes.Consulta("UsuarioDAO.eliminarBatch", String.format(DELETE_BATCH_SQL, "?, ?"), null, 1, 2),
+            new VerificadorPlanes.Consulta("UsuarioDAO.eliminarBatch(credencial)",
+                String.format(DELETE_CREDENCIALES_BATCH_SQL, "?, ?"), null, 1, 2));
+    }
+
     // --- MÉTODOS PRIVADOS (HELPERS) ---
 
+    /**
+     * Invalida ahora y, si hay una transacción abierta, otra vez al terminar: así no queda
+     * cacheado un dato sin confirmar (rollback) ni uno viejo leído antes del commit.
+     * Con réplicas, también marca la escritura (read-your-writes) e invalida una vez más
+     * cuando las réplicas ya tienen el cambio (ver Config.Replicas).
+     */
+    private void invalidarCache(Runnable invalidacion) {
+        invalidacion.run();
+        TransactionManager.alTerminar(invalidacion);
+        Replicas.registrarEscritura(invalidacion);
+    }
+
+    /**
+     * TransactionManager.alConfirmar(conn, tarea) para los métodos '...Tx'. Si el caller
+     * maneja la transacción por su cuenta (sin TransactionManager, autocommit apagado) no se
+     * sabe si va a confirmar: en vez de aplicar la tarea se descartan el índice de búsqueda
+     * y los contadores, y la entidad no se marca limpia (la próxima escritura repite sus campos).
+     */
+    private void alConfirmarTx(Connection conn, Runnable tarea) throws SQLException {
+        if (!TransactionManager.alConfirmar(conn, tarea)) {
+            indice.invalidar();
+            contadores.invalidar();
+        }
+    }
+
+    /**
+     * Actualiza IndiceBusqueda cuando la transacción confirme. En una entidad rastreada sólo
+     * pasa los campos de búsqueda modificados (los demás pueden no haberse leído).
+     */
+    private void indexar(Connection conn, Usuario usuario) throws SQLException {
+        String username = usuario.isModificado(Usuario.CAMPO_USERNAME) ? usuario.getUsername() : null;
+        String nombre = usuario.isModificado(Usuario.CAMPO_NOMBRE) ? usuario.getNombre() : null;
+        String apellido = usuario.isModificado(Usuario.CAMPO_APELLIDO) ? usuario.getApellido() : null;
+        if (username != null || nombre != null || apellido != null) {
+            int id = usuario.getId();
+            alConfirmarTx(conn, () -> indice.registrar(id, username, nombre, apellido));
+        }
+    }
+
+    /**
+     * Ejecuta un chequeo de existencia ("SELECT 1 ... LIMIT 1").
+     */
+    private boolean existe(OperacionDAO operacion, String sql, String valor) throws Exception {
+        Cronometro c = operacion.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(sql))) {
+
+            stmt.setString(1, valor);
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                boolean existe = rs.next();
+                c.fin(existe ? 1 : 0);
+                return existe;
+            }
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta una de las queries de paginación por clave. Con shards, cada shard devuelve su
+     * página y se combinan: las primeras 'limit' por id son la página global.
+     */
+    private List<Usuario> getPage(OperacionDAO operacion, ProyeccionUsuario proyeccion, String where,
+                                  int idCursor, int limit, boolean descendente) throws Exception {
+        if (limit < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser >= 1");
+        }
+        List<List<Usuario>> paginas = Shards.enTodos(() -> buscar(operacion, proyeccion, where, idCursor, limit));
+        if (paginas.size() == 1) {
+            return paginas.get(0);
+        }
+        List<Usuario> pagina = unirPorId(paginas);
+        if (descendente) {
+            pagina.sort(Comparator.comparingInt(Usuario::getId).reversed());
+        }
+        return new ArrayList<>(pagina.subList(0, Math.min(limit, pagina.size())));
+    }
+
+    /**
+     * Lectura por username: sólo en el shard del hash (actualizar no deja que un username
+     * cambie de shard, así que ningún usuario vive en otro).
+     */
+    private <T> T porUsername(String username, TransactionManager.Trabajo<T> lectura) throws Exception {
+        return Shards.enShard(Shards.deUsername(username), lectura);
+    }
+
+    /**
+     * Lectura por email: el email no determina el shard, se busca en todos.
+     */
+    private Usuario cargarPorEmail(String email, ProyeccionUsuario proyeccion) throws Exception {
+        return primero(Shards.enTodos(() -> {
+            List<Usuario> encontrados = buscar(M_GET_BY_EMAIL, proyeccion, WHERE_BY_EMAIL, email);
+            return encontrados.isEmpty() ? null : encontrados.get(0);
+        }));
+    }
+
+    private static <T> T primero(List<T> resultados) {
+        for (T resultado : resultados) {
+            if (resultado != null) {
+                return resultado;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Une los resultados de cada shard ordenados por id (con un solo shard, tal cual).
+     */
+    private static List<Usuario> unirPorId(List<List<Usuario>> porShard) {
+        if (porShard.size() == 1) {
+            return porShard.get(0);
+        }
+        List<Usuario> todos = new ArrayList<>();
+        for (List<Usuario> parte : porShard) {
+            todos.addAll(parte);
+        }
+        todos.sort(Comparator.comparingInt(Usuario::getId));
+        return todos;
+    }
+
+    /**
+     * Ejecuta "SELECT de la proyección + WHERE" con los parámetros dados, en orden.
+     */
+    private List<Usuario> buscar(OperacionDAO operacion, ProyeccionUsuario proyeccion, String where,
+                                 Object... parametros) throws Exception {
+        List<Usuario> usuarios = new ArrayList<>();
+        Cronometro c = operacion.iniciar();
+        try (Connection conn = c.adquirida(DatabaseConnection.getConnection());
+             PreparedStatement stmt = c.preparado(conn.prepareStatement(proyeccion.getSelect() + where))) {
+
+            for (int i = 0; i < parametros.length; i++) {
+                stmt.setObject(i + 1, parametros[i]);
+            }
+            try (ResultSet rs = c.ejecutado(stmt.executeQuery())) {
+                CursorStream.MapeadorFila<Usuario> mapeador = mapeador(proyeccion);
+                while (rs.next()) {
+                    usuarios.add(mapeador.mapear(rs));
+                }
+            }
+            c.fin(usuarios.size());
+        } catch (Exception e) {
+            c.error();
+            throw e;
+        }
+        return usuarios;
+    }
+
+    /**
+     * Mapeador (por índice) para las columnas que trae la proyección. Uno por query.
+     */
+    private static CursorStream.MapeadorFila<Usuario> mapeador(ProyeccionUsuario proyeccion) {
+        switch (proyeccion) {
+            case COMPLETO:
+                return MAPEO_COMPLETO.para(proyeccion.getSelect());
+            case SIN_CREDENCIAL:
+                return MAPEO_SIN_CREDENCIAL.para(proyeccion.getSelect());
+            default:
+                return MAPEO_RESUMEN.para(proyeccion.getSelect());
+        }
+    }
+
     /**
      * Método helper para setear parámetros de INSERT/UPDATE.
      */
@@ -224,6 +1099,47 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
         stmt.setString(2, usuario.getApellido());
         stmt.setString(3, usuario.getUsername());
         stmt.setString(4, usuario.getEmail());
+        stmt.setBoolean(5, esActivo(usuario));
+    }
+
+    /**
+     * Parámetros del INSERT con id (con shards): los de setUsuarioParameters + el id reservado.
+     */
+    private void setUsuarioParametersConId(PreparedStatement stmt, Usuario usuario) throws SQLException {
+        setUsuarioParameters(stmt, usuario);
+        stmt.setInt(6, usuario.getId());
+    }
+
+    /**
+     * Valor de 'activo' que escribe el INSERT (null = el DEFAULT de la tabla, true).
+     */
+    private static boolean esActivo(Usuario usuario) {
+        return !Boolean.FALSE.equals(usuario.getActivo());
+    }
+
+    /**
+     * Prepara el INSERT: sin shards pide el id generado; con shards el id ya viaja en el INSERT.
+     */
+    private PreparedStatement prepararInsert(Connection conn) throws SQLException {
+        return Shards.habilitado()
+            ? conn.prepareStatement(INSERT_CON_ID_SQL)
+            : conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * Ejecuta el INSERT preparado con prepararInsert y asigna el id al usuario: sin shards lo
+     * genera la BD (AUTO_INCREMENT); con shards se reserva antes en GeneradorIds.
+     */
+    private void insertarFila(PreparedStatement stmt, Usuario usuario, Cronometro c) throws SQLException {
+        if (Shards.habilitado()) {
+            usuario.setId(GeneradorIds.siguiente(GeneradorIds.USUARIO, Shards.deUsername(usuario.getUsername())));
+            setUsuarioParametersConId(stmt, usuario);
+            c.ejecutado(stmt.executeUpdate());
+        } else {
+            setUsuarioParameters(stmt, usuario);
+            c.ejecutado(stmt.executeUpdate());
+            setGeneratedId(stmt, usuario);
+        }
     }
 
     /**
@@ -240,38 +1156,76 @@ public class UsuarioDAO implements GenericDAO<Usuario> {
     }
 
     /**
-     * Método helper para "mapear" el ResultSet (con JOIN) a un objeto Usuario.
-     * Este es el "mapResultSetToPersona" del ejemplo.
+     * Mapea la proyección RESUMEN: datos básicos + referencia a la credencial (si existe).
      */
-    private Usuario mapResultSetToUsuario(ResultSet rs) throws SQLException {
+    private static Usuario mapResumen(ResultSet rs, int[] col) throws SQLException {
         Usuario usuario = new Usuario();
-        
+        usuario.setId(rs.getInt(col[COL_ID]));
+        usuario.setUsername(rs.getString(col[COL_USERNAME]));
+        usuario.setEmail(rs.getString(col[COL_EMAIL]));
+        usuario.setActivo(rs.getBoolean(col[COL_ACTIVO]));
+
+        int credId = rs.getInt(col[COL_C_ID]);
+        if (!rs.wasNull()) {
+            // Sólo la referencia: sin hash ni salt (no viajan en esta proyección)
+            CredencialAcceso referencia = new CredencialAcceso();
+            referencia.setId(credId);
+            referencia.setIdUsuario(usuario.getId());
+            referencia.marcarLimpio();
+            usuario.setCredencial(referencia);
+        }
+        // Rastreada aunque sea parcial: un actualizar() posterior sólo escribe lo que se cambie
+        usuario.marcarLimpio();
+        return usuario;
+    }
+
+    /**
+     * Método helper para "mapear" el ResultSet (con JOIN) a un objeto Usuario.
+     * Este es el "mapResultSetToPersona" del ejemplo. 'col' viene de MapeoFilas:
+     * lee por índice, la búsqueda por nombre se hizo una sola vez para la query.
+     */
+    private static Usuario mapResultSetToUsuario(ResultSet rs, int[] col) throws SQLException {
         // Mapear campos de Usuario (tabla 'u')
-        usuario.setId(rs.getInt("id"));
-        usuario.setEliminado(rs.getBoolean("eliminado"));
-        usuario.setNombre(rs.getString("nombre"));
-        usuario.setApellido(rs.getString("apellido"));
-        usuario.setUsername(rs.getString("username"));
-        usuario.setEmail(rs.getString("email"));
-        usuario.setActivo(rs.getBoolean("activo"));
-        usuario.setFechaRegistro(rs.getTimestamp("fechaRegistro").toLocalDateTime());
+        Usuario usuario = mapCamposUsuario(rs, col);
 
         // Mapear campos de Credencial (tabla 'c')
         // Usamos el alias 'c_id' para el ID de la credencial
-        int credId = rs.getInt("c_id");
+        int credId = rs.getInt(col[COL_C_ID]);
         if (!rs.wasNull()) { // ¡Importante! Verifica si el LEFT JOIN trajo algo
             CredencialAcceso credencial = new CredencialAcceso();
             credencial.setId(credId);
-            credencial.setHashPassword(rs.getString("contraseña"));
-            credencial.setSalt(rs.getString("salt"));
-            credencial.setUltimoCambio(rs.getTimestamp("ultimo_cambio").toLocalDateTime());
-            credencial.setRequiereReset(rs.getBoolean("require_reset"));
-            credencial.setIdUsuario(rs.getInt("id_usuario")); // Este es el FK
-            
+            credencial.setHashPassword(rs.getString(col[COL_C_CONTRASENIA]));
+            credencial.setSalt(rs.getString(col[COL_C_SALT]));
+            credencial.setUltimoCambio(aFecha(rs.getTimestamp(col[COL_C_ULTIMO_CAMBIO])));
+            credencial.setRequiereReset(rs.getBoolean(col[COL_C_REQUIERE_RESET]));
+            credencial.setIdUsuario(rs.getInt(col[COL_C_ID_USUARIO])); // Este es el FK
+            credencial.marcarLimpio();
+
             // Asignamos la credencial al usuario (Eager Loading)
             usuario.setCredencial(credencial);
         }
-        
+
+        return usuario;
+    }
+
+    /**
+     * Mapea sólo los campos de la tabla 'usuario' (sin credencial).
+     */
+    private static Usuario mapCamposUsuario(ResultSet rs, int[] col) throws SQLException {
+        Usuario usuario = new Usuario();
+        usuario.setId(rs.getInt(col[COL_ID]));
+        usuario.setEliminado(rs.getBoolean(col[COL_ELIMINADO]));
+        usuario.setNombre(rs.getString(col[COL_NOMBRE]));
+        usuario.setApellido(rs.getString(col[COL_APELLIDO]));
+        usuario.setUsername(rs.getString(col[COL_USERNAME]));
+        usuario.setEmail(rs.getString(col[COL_EMAIL]));
+        usuario.setActivo(rs.getBoolean(col[COL_ACTIVO]));
+        usuario.setFechaRegistro(aFecha(rs.getTimestamp(col[COL_FECHA_REGISTRO])));
+        usuario.marcarLimpio(); // Recién leído: sin cambios pendientes
         return usuario;
     }
+
+    private static LocalDateTime aFecha(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
 }
@@ -0,0 +1,46 @@
+// Paquete DAO
+package DAO;
+
+import Models.Usuario;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fachada asíncrona de UsuarioDAO (ver DAOAsincrono).
+ * Agrega las búsquedas especializadas por username/email y los chequeos de existencia.
+ */
+public class UsuarioDAOAsincrono extends DAOAsincrono<Usuario> {
+
+    private final UsuarioDAO usuarioDAO;
+
+    public UsuarioDAOAsincrono(UsuarioDAO usuarioDAO) {
+        super(usuarioDAO);
+        this.usuarioDAO = usuarioDAO;
+    }
+
+    public CompletableFuture<Usuario> getByUsername(String username) {
+        return ejecutar(() -> usuarioDAO.getByUsername(username));
+    }
+
+    public CompletableFuture<Usuario> getByEmail(String email) {
+        return ejecutar(() -> usuarioDAO.getByEmail(email));
+    }
+
+    public CompletableFuture<Boolean> existsByUsername(String username) {
+        return ejecutar(() -> usuarioDAO.existsByUsername(username));
+    }
+
+    public CompletableFuture<Boolean> existsByEmail(String email) {
+        return ejecutar(() -> usuarioDAO.existsByEmail(email));
+    }
+
+    public CompletableFuture<Map<String, Usuario>> getByUsernames(Collection<String> usernames) {
+        return ejecutar(() -> usuarioDAO.getByUsernames(usernames));
+    }
+
+    public CompletableFuture<Map<Integer, Usuario>> getByIds(Collection<Integer> ids) {
+        return ejecutar(() -> usuarioDAO.getByIds(ids));
+    }
+}
@@ -0,0 +1,139 @@
+// Paquete DAO
+package DAO;
+
+import Config.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifica con EXPLAIN que ninguna query de los DAOs recorra una tabla completa.
+ *
+ * Funcionamiento:
+ * - Cada DAO declara sus queries (el mismo SQL que ejecuta, con parámetros de ejemplo)
+ *   en consultasVerificables().
+ * - Se ejecuta EXPLAIN de cada una contra la BD configurada y se revisa el 'type' de
+ *   cada tabla del plan: "ALL" = full table scan.
+ * - getAll/streamAll recorren la tabla principal a propósito: esa tabla (y sólo esa)
+ *   se declara como recorrido permitido. Las demás tablas del plan (ej: la credencial
+ *   del LEFT JOIN) igual tienen que resolverse por índice.
+ *
+ * Importante:
+ * - El optimizador elige según las estadísticas: verificar contra una BD con datos
+ *   representativos (con tablas casi vacías MySQL puede preferir un scan aunque exista el índice).
+ * - EXPLAIN de UPDATE no modifica nada.
+ *
+ * Uso: java DAO.VerificadorPlanes (termina con código 1 si hay recorridos no permitidos),
+ * o al iniciar la aplicación con -Ddb.migraciones.verificarPlanes=true.
+ */
+public final class VerificadorPlanes {
+
+    /**
+     * Query a verificar.
+     *
+     * @param nombre Operación del DAO (ej: "UsuarioDAO.getById")
+     * @param sql SQL tal cual lo ejecuta el DAO (plantillas IN ya expandidas)
+     * @param recorridoPermitido Tabla (o alias) que puede recorrerse completa; null = ninguna
+     * @param parametros Valores de ejemplo para los placeholders
+     */
+    record Consulta(String nombre, String sql, String recorridoPermitido, Object... parametros) {
+    }
+
+    /**
+     * Una fila del plan: cómo accede la query a una tabla.
+     *
+     * @param tipo 'type' de EXPLAIN (const, eq_ref, ref, range, index, ALL...)
+     * @param indice Índice elegido (null = ninguno)
+     * @param filas Filas estimadas a examinar
+     * @param permitido false si es un full table scan no declarado
+     */
+    public record Paso(String consulta, String tabla, String tipo, String indice, long filas, boolean permitido) {
+    }
+
+    private VerificadorPlanes() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * EXPLAIN de todas las queries de los DAOs.
+     *
+     * @return Los pasos de todos los planes, en orden
+     */
+    public static List<Paso> analizar() throws Exception {
+        List<Consulta> consultas = new ArrayList<>();
+        consultas.addAll(UsuarioDAO.consultasVerificables());
+        consultas.addAll(CredencialAccesoDAO.consultasVerificables());
+        consultas.addAll(EstadisticasDAO.consultasVerificables());
+        consultas.addAll(ArchivoDAO.consultasVerificables());
+
+        List<Paso> pasos = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Consulta consulta : consultas) {
+                explicar(conn, consulta, pasos);
+            }
+        }
+        return pasos;
+    }
+
+    /**
+     * Falla si alguna query hace un full table scan no permitido.
+     *
+     * @throws SQLException Con la lista de queries que recorren tablas completas
+     */
+    public static void verificar() throws Exception {
+        List<Paso> fallas = analizar().stream().filter(p -> !p.permitido()).toList();
+        if (!fallas.isEmpty()) {
+            StringBuilder sb = new StringBuilder("Queries que recorren la tabla completa (type=ALL):");
+            for (Paso p : fallas) {
+                sb.append("\n  ").append(p.consulta()).append(" -> tabla ").append(p.tabla())
+                  .append(", ~").append(p.filas()).append(" filas");
+            }
+            throw new SQLException(sb.toString());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Paso> pasos = analizar();
+        System.out.printf("%-36s %-12s %-8s %-30s %10s%n", "CONSULTA", "TABLA", "TIPO", "ÍNDICE", "FILAS");
+        int fallas = 0;
+        for (Paso p : pasos) {
+            System.out.printf("%-36s %-12s %-8s %-30s %10d%s%n", p.consulta(), p.tabla(), p.tipo(),
+                    p.indice() == null ? "-" : p.indice(), p.filas(), p.permitido() ? "" : "  <-- FULL SCAN");
+            if (!p.permitido()) {
+                fallas++;
+            }
+        }
+        if (fallas > 0) {
+            System.out.println(fallas + " paso(s) con recorrido completo no permitido.");
+            System.exit(1);
+        }
+        System.out.println("OK: ninguna query recorre una tabla completa sin declararlo.");
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static void explicar(Connection conn, Consulta consulta, List<Paso> pasos) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + consulta.sql())) {
+            for (int i = 0; i < consulta.parametros().length; i++) {
+                stmt.setObject(i + 1, consulta.parametros()[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String tipo = rs.getString("type");
+                    if (tipo == null) {
+                        continue; // Resuelto sin leer la tabla (ej: "Select tables optimized away")
+                    }
+                    String tabla = rs.getString("table");
+                    boolean permitido = !"ALL".equalsIgnoreCase(tipo) || tabla.equals(consulta.recorridoPermitido());
+                    pasos.add(new Paso(consulta.nombre(), tabla, tipo, rs.getString("key"), rs.getLong("rows"), permitido));
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLException("No se pudo ejecutar EXPLAIN de " + consulta.nombre() + ": " + e.getMessage(), e);
+        }
+    }
+}
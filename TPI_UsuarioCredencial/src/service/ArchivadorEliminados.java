@@ -0,0 +1,241 @@
+// Paquete Service
+package Service;
+
+import Config.Shards;
+import DAO.ArchivoDAO;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivador de bajas: mueve a las tablas de archivo los usuarios y credenciales dados de
+ * baja hace más de 'retencionDias' (ver DAO.ArchivoDAO). Las tablas vivas quedan con las
+ * filas vivas y las bajas recientes: su tamaño (y la latencia de las consultas) deja de
+ * depender de cuántas bajas se acumularon con los años.
+ *
+ * Funcionamiento:
+ * - Una pasada archiva de a lotes de 'tamanioLote' filas, cada lote en su transacción
+ *   corta, con una pausa de 'pausaMs' entre lotes: nunca retiene locks por mucho tiempo y
+ *   deja lugar al tráfico normal. Termina cuando un lote ya no encuentra bajas para archivar.
+ * - Con shards, la pasada recorre los shards uno por uno.
+ * - archivar(...) hace una pasada en el hilo que llama. iniciar(...) programa una pasada
+ *   cada 'intervaloMs' en un hilo daemon de fondo. Nunca corren dos pasadas a la vez.
+ * - El avance (filas archivadas, lotes, filas/s) se informa después de cada lote y la
+ *   última foto queda en getUltimoAvance().
+ * - detener() corta la pasada en curso al terminar el lote actual (lo confirmado queda).
+ *
+ * Configuración (system properties):
+ * - -Darchivo.retencionDias=90 -Darchivo.lote=200 -Darchivo.pausaMs=100
+ * - -Darchivo.intervaloMs=3600000 (período de la pasada de fondo)
+ */
+public class ArchivadorEliminados implements AutoCloseable {
+
+    /**
+     * Parámetros del archivado.
+     *
+     * @param retencionDias Días que una baja queda en la tabla viva
+     * @param tamanioLote Usuarios (y credenciales sueltas) por transacción
+     * @param pausaMs Pausa entre lotes (throttling)
+     * @param intervaloMs Período entre pasadas de fondo
+     */
+    public record Opciones(int retencionDias, int tamanioLote, long pausaMs, long intervaloMs) {
+
+        public Opciones {
+            if (retencionDias < 0 || tamanioLote < 1 || pausaMs < 0 || intervaloMs < 1) {
+                throw new IllegalArgumentException("Opciones de archivado inválidas");
+            }
+        }
+
+        public static Opciones porDefecto() {
+            return new Opciones(Integer.getInteger("archivo.retencionDias", 90),
+                    Integer.getInteger("archivo.lote", 200),
+                    Long.getLong("archivo.pausaMs", 100L),
+                    Long.getLong("archivo.intervaloMs", 3_600_000L));
+        }
+    }
+
+    /**
+     * Foto del progreso de una pasada.
+     *
+     * @param estimadas Bajas pendientes al empezar la pasada (para el porcentaje)
+     * @param filasPorSegundo Filas archivadas por segundo, pausas incluidas
+     */
+    public record Avance(long usuarios, long credenciales, long lotes, long estimadas,
+                         double segundos, double filasPorSegundo, boolean terminada) {
+
+        public long filas() {
+            return usuarios + credenciales;
+        }
+
+        public double porcentaje() {
+            return estimadas == 0 ? 100 : Math.min(100, 100.0 * filas() / estimadas);
+        }
+    }
+
+    /**
+     * Recibe el avance (se llama desde el hilo que archiva).
+     */
+    @FunctionalInterface
+    public interface Progreso {
+        void informar(Avance avance);
+    }
+
+    private final ArchivoDAO archivoDAO;
+    private final Opciones opciones;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private volatile boolean detenido;
+    private volatile Avance ultimoAvance;
+    private ScheduledExecutorService programador; // Protegido por 'this'
+
+    public ArchivadorEliminados(ArchivoDAO archivoDAO) {
+        this(archivoDAO, Opciones.porDefecto());
+    }
+
+    public ArchivadorEliminados(ArchivoDAO archivoDAO, Opciones opciones) {
+        this.archivoDAO = archivoDAO;
+        this.opciones = opciones;
+    }
+
+    /**
+     * Hace una pasada completa en el hilo que llama.
+     *
+     * @param progreso Recibe el avance después de cada lote (puede ser null)
+     * @return El avance final
+     * @throws IllegalStateException Si ya hay una pasada en curso
+     */
+    public Avance archivar(Progreso progreso) throws Exception {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay un archivado en curso");
+        }
+        detenido = false;
+        try {
+            return pasada(progreso);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    /**
+     * Programa una pasada cada 'intervaloMs' en segundo plano (la primera, ya).
+     * Los errores de una pasada se informan por System.err y la siguiente se intenta igual.
+     */
+    public synchronized void iniciar(Progreso progreso) {
+        if (programador != null) {
+            return;
+        }
+        detenido = false;
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivador-eliminados");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                if (!enCurso.get()) {
+                    archivar(progreso);
+                }
+            } catch (IllegalStateException e) {
+                // Otra pasada (manual) empezó al mismo tiempo: esta se saltea
+            } catch (Exception e) {
+                System.err.println("Aviso: falló el archivado de bajas: " + e.getMessage());
+            }
+        }, 0, opciones.intervaloMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene la pasada de fondo (y la que esté en curso, al terminar su lote actual).
+     */
+    public synchronized void detener() {
+        detenido = true;
+        if (programador != null) {
+            programador.shutdownNow();
+            programador = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        detener();
+    }
+
+    /**
+     * @return El avance informado por última vez (null si nunca se archivó)
+     */
+    public Avance getUltimoAvance() {
+        return ultimoAvance;
+    }
+
+    public Opciones getOpciones() {
+        return opciones;
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private Avance pasada(Progreso progreso) throws Exception {
+        LocalDateTime limite = LocalDateTime.now().minusDays(opciones.retencionDias());
+        long estimadas = 0;
+        for (ArchivoDAO.Pendientes pendientes : Shards.enTodos(() -> archivoDAO.getPendientes(limite))) {
+            estimadas += pendientes.filas();
+        }
+
+        long t0 = System.nanoTime();
+        long usuarios = 0;
+        long credenciales = 0;
+        long lotes = 0;
+        informar(progreso, new Avance(0, 0, 0, estimadas, 0, 0, false));
+
+        for (int shard = 0; shard < Shards.cantidad() && !detenido; shard++) {
+            boolean quedan = true;
+            while (quedan && !detenido) {
+                ArchivoDAO.Lote lote = Shards.enShard(shard, () -> archivoDAO.archivarLote(limite, opciones.tamanioLote()));
+                if (lote.filas() > 0) {
+                    usuarios += lote.usuarios();
+                    credenciales += lote.credenciales();
+                    lotes++;
+                    informar(progreso, avance(usuarios, credenciales, lotes, estimadas, t0, false));
+                }
+                quedan = lote.filas() > 0;
+                if (quedan && !pausar()) {
+                    break;
+                }
+            }
+        }
+        Avance fin = avance(usuarios, credenciales, lotes, estimadas, t0, true);
+        informar(progreso, fin);
+        return fin;
+    }
+
+    private static Avance avance(long usuarios, long credenciales, long lotes, long estimadas, long t0, boolean terminada) {
+        double segundos = Math.max(1e-9, (System.nanoTime() - t0) / 1e9);
+        return new Avance(usuarios, credenciales, lotes, estimadas, segundos, (usuarios + credenciales) / segundos, terminada);
+    }
+
+    private void informar(Progreso progreso, Avance avance) {
+        ultimoAvance = avance;
+        if (progreso != null) {
+            progreso.informar(avance);
+        }
+    }
+
+    /**
+     * Pausa entre lotes.
+     *
+     * @return false si el hilo fue interrumpido (hay que cortar la pasada)
+     */
+    private boolean pausar() {
+        if (opciones.pausaMs() == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(opciones.pausaMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+// Paquete Service
+package Service;
+
+import DAO.ProyeccionUsuario;
+import DAO.UsuarioDAO;
+import Models.Usuario;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de los usuarios activos a CSV o JSONL con memoria constante.
+ *
+ * Funcionamiento:
+ * - Cada fila sale del cursor de la BD (UsuarioDAO.streamRango, proyección SIN_CREDENCIAL:
+ *   nunca se exportan hash ni salt) y se formatea en un StringBuilder reutilizado.
+ * - El texto se codifica a UTF-8 directo en un ByteBuffer de 256 KB y se escribe con un
+ *   FileChannel: pocas llamadas al sistema y ninguna lista en memoria.
+ * - Con 'hilos' > 1 el rango de ids [min, max] se reparte en tramos iguales; cada hilo
+ *   exporta su tramo a un archivo parcial y al final se concatenan EN ORDEN con
+ *   transferTo (copia dentro del kernel, sin pasar por la JVM).
+ *
+ * Columnas: id, nombre, apellido, username, email, activo, fecha_registro.
+ */
+public class ExportadorUsuarios {
+
+    /**
+     * Resultado de la exportación.
+     */
+    public record Resultado(long filas, long bytes, int tramos, double segundos, Path archivo) {
+
+        public double filasPorSegundo() {
+            return segundos == 0 ? 0 : filas / segundos;
+        }
+    }
+
+    private static final String[] COLUMNAS = {"id", "nombre", "apellido", "username", "email", "activo", "fecha_registro"};
+    private static final int TAMANIO_BUFFER = 256 * 1024;
+
+    /** Se vuelca el StringBuilder al buffer cuando supera este tamaño (en caracteres). */
+    private static final int UMBRAL_TEXTO = 16 * 1024;
+
+    private final UsuarioDAO usuarioDAO;
+    private final int hilos;
+
+    /**
+     * Hilos por defecto: -Dexport.hilos=4
+     */
+    public ExportadorUsuarios(UsuarioDAO usuarioDAO) {
+        this(usuarioDAO, Integer.getInteger("export.hilos", 4));
+    }
+
+    public ExportadorUsuarios(UsuarioDAO usuarioDAO, int hilos) {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("La cantidad de hilos debe ser >= 1");
+        }
+        this.usuarioDAO = usuarioDAO;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Exporta los usuarios activos (formato según la extensión: .csv o .jsonl).
+     * Si el archivo existe, se reemplaza.
+     */
+    public Resultado exportar(Path archivo) throws Exception {
+        FormatoArchivo formato = FormatoArchivo.deRuta(archivo);
+        long t0 = System.nanoTime();
+
+        int[] rango = usuarioDAO.getRangoIds();
+        List<int[]> tramos = rango == null ? List.of() : calcularTramos(rango[0], rango[1]);
+
+        long filas;
+        try (Escritor salida = new Escritor(archivo)) {
+            if (formato == FormatoArchivo.CSV) {
+                salida.escribirEncabezado();
+            }
+            if (tramos.size() <= 1) {
+                filas = tramos.isEmpty() ? 0 : exportarTramo(tramos.get(0), formato, salida);
+            } else {
+                filas = exportarEnParalelo(archivo, tramos, formato, salida);
+            }
+            salida.vaciar();
+        }
+        return new Resultado(filas, Files.size(archivo), Math.max(1, tramos.size()),
+                (System.nanoTime() - t0) / 1e9, archivo);
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Reparte [min, max] en hasta 'hilos' tramos [desde, hasta) de igual cantidad de ids.
+     */
+    private List<int[]> calcularTramos(int min, int max) {
+        long total = (long) max - min + 1;
+        int cantidad = (int) Math.min(hilos, total);
+        List<int[]> tramos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            long desde = min + total * i / cantidad;
+            long hasta = min + total * (i + 1) / cantidad;
+            tramos.add(new int[]{(int) desde, (int) hasta});
+        }
+        return tramos;
+    }
+
+    private long exportarEnParalelo(Path archivo, List<int[]> tramos, FormatoArchivo formato,
+                                    Escritor salida) throws Exception {
+        List<Path> partes = new ArrayList<>(tramos.size());
+        ExecutorService pool = Executors.newFixedThreadPool(tramos.size(), r -> new Thread(r, "export-tramo"));
+        try {
+            List<Future<Long>> futuros = new ArrayList<>(tramos.size());
+            for (int i = 0; i < tramos.size(); i++) {
+                Path parte = archivo.resolveSibling(archivo.getFileName() + ".parte-" + i);
+                partes.add(parte);
+                int[] tramo = tramos.get(i);
+                futuros.add(pool.submit(() -> {
+                    try (Escritor escritor = new Escritor(parte)) {
+                        long n = exportarTramo(tramo, formato, escritor);
+                        escritor.vaciar();
+                        return n;
+                    }
+                }));
+            }
+
+            long filas = 0;
+            for (Future<Long> futuro : futuros) {
+                filas += esperar(futuro);
+            }
+            salida.vaciar();
+            for (Path parte : partes) {
+                salida.anexar(parte);
+            }
+            return filas;
+        } finally {
+            pool.shutdownNow();
+            for (Path parte : partes) {
+                Files.deleteIfExists(parte);
+            }
+        }
+    }
+
+    private long exportarTramo(int[] tramo, FormatoArchivo formato, Escritor escritor) throws Exception {
+        long filas = 0;
+        try (Stream<Usuario> usuarios = usuarioDAO.streamRango(tramo[0], tramo[1], ProyeccionUsuario.SIN_CREDENCIAL)) {
+            Iterator<Usuario> it = usuarios.iterator();
+            while (it.hasNext()) {
+                escritor.escribir(it.next(), formato);
+                filas++;
+            }
+        }
+        return filas;
+    }
+
+    private static long esperar(Future<Long> futuro) throws Exception {
+        try {
+            return futuro.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Escritor con buffer sobre un FileChannel. Un escritor por hilo (no es thread-safe).
+     */
+    private static final class Escritor implements AutoCloseable {
+        private final FileChannel canal;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder texto = new StringBuilder(UMBRAL_TEXTO * 2);
+
+        Escritor(Path archivo) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void escribirEncabezado() throws IOException {
+            texto.append(String.join(",", COLUMNAS)).append('\n');
+            volcarSiHaceFalta();
+        }
+
+        void escribir(Usuario u, FormatoArchivo formato) throws IOException {
+            String fecha = u.getFechaRegistro() == null ? null : u.getFechaRegistro().toString();
+            if (formato == FormatoArchivo.CSV) {
+                texto.append(u.getId()).append(',');
+                FormatoArchivo.escribirCsv(texto, u.getNombre());
+                texto.append(',');
+                FormatoArchivo.escribirCsv(texto, u.getApellido());
+                texto.append(',');
+                FormatoArchivo.escribirCsv(texto, u.getUsername());
+                texto.append(',');
+                FormatoArchivo.escribirCsv(texto, u.getEmail());
+                texto.append(',').append(Boolean.TRUE.equals(u.getActivo())).append(',');
+                FormatoArchivo.escribirCsv(texto, fecha);
+            } else {
+                texto.append("{\"id\":").append(u.getId()).append(",\"nombre\":");
+                FormatoArchivo.escribirJson(texto, u.getNombre());
+                texto.append(",\"apellido\":");
+                FormatoArchivo.escribirJson(texto, u.getApellido());
+                texto.append(",\"username\":");
+                FormatoArchivo.escribirJson(texto, u.getUsername());
+                texto.append(",\"email\":");
+                FormatoArchivo.escribirJson(texto, u.getEmail());
+                texto.append(",\"activo\":").append(Boolean.TRUE.equals(u.getActivo())).append(",\"fecha_registro\":");
+                FormatoArchivo.escribirJson(texto, fecha);
+                texto.append('}');
+            }
+            texto.append('\n');
+            volcarSiHaceFalta();
+        }
+
+        /**
+         * Copia un archivo parcial al final de este (zero-copy con transferTo).
+         */
+        void anexar(Path parte) throws IOException {
+            try (FileChannel origen = FileChannel.open(parte, StandardOpenOption.READ)) {
+                long posicion = 0;
+                long tamanio = origen.size();
+                while (posicion < tamanio) {
+                    posicion += origen.transferTo(posicion, tamanio - posicion, canal);
+                }
+            }
+        }
+
+        /**
+         * Codifica el texto pendiente y escribe todo lo que quedó en el buffer.
+         */
+        void vaciar() throws IOException {
+            codificar();
+            escribirBuffer();
+        }
+
+        private void volcarSiHaceFalta() throws IOException {
+            if (texto.length() >= UMBRAL_TEXTO) {
+                codificar();
+            }
+        }
+
+        private void codificar() throws IOException {
+            CharBuffer pendiente = CharBuffer.wrap(texto);
+            while (true) {
+                CoderResult r = encoder.encode(pendiente, bytes, true);
+                if (r.isOverflow()) {
+                    escribirBuffer();
+                } else if (r.isError()) {
+                    r.throwException();
+                } else {
+                    break;
+                }
+            }
+            encoder.reset();
+            texto.setLength(0);
+        }
+
+        private void escribirBuffer() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+// Paquete Service
+package Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Formatos de archivo soportados por la importación/exportación masiva.
+ *
+ * - CSV: primera línea = encabezado; separador ','; campos con comas o comillas van entre
+ *   comillas dobles (las comillas internas se duplican: ""). Un registro = una línea.
+ * - JSONL: un objeto JSON plano por línea (claves string; valores string, número,
+ *   true/false o null).
+ *
+ * Los parsers y escritores trabajan de a UNA línea: no se arma el archivo entero en memoria.
+ */
+public enum FormatoArchivo {
+    CSV,
+    JSONL;
+
+    /**
+     * Deduce el formato por la extensión (.csv, .jsonl / .ndjson).
+     */
+    public static FormatoArchivo deRuta(Path ruta) {
+        String nombre = ruta.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nombre.endsWith(".csv")) {
+            return CSV;
+        }
+        if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        throw new IllegalArgumentException("Formato no soportado (use .csv o .jsonl): " + nombre);
+    }
+
+    // --- PARSERS (usados por ImportadorUsuarios) ---
+
+    /**
+     * Parte una línea CSV en campos (respeta comillas dobles y "" como comilla escapada).
+     */
+    static List<String> partirCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Parsea un objeto JSON plano ({"clave": valor, ...}) a un mapa clave -> texto.
+     * Los null quedan como null; números y booleanos, como su texto.
+     */
+    static Map<String, String> parsearJson(String linea) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        int[] pos = {saltarEspacios(linea, 0)};
+        esperar(linea, pos, '{');
+        if (siguiente(linea, pos) == '}') {
+            pos[0]++;
+            return campos;
+        }
+        while (true) {
+            String clave = leerString(linea, pos);
+            esperar(linea, pos, ':');
+            campos.put(clave, leerValor(linea, pos));
+            char c = siguiente(linea, pos);
+            pos[0]++;
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Se esperaba ',' o '}' en la posición " + (pos[0] - 1));
+            }
+        }
+        if (saltarEspacios(linea, pos[0]) != linea.length()) {
+            throw new IllegalArgumentException("Texto sobrante después del objeto JSON");
+        }
+        return campos;
+    }
+
+    // --- ESCRITORES (usados por ExportadorUsuarios) ---
+
+    /**
+     * Agrega un campo CSV (entre comillas sólo si hace falta). null = campo vacío.
+     */
+    static void escribirCsv(StringBuilder sb, String valor) {
+        if (valor == null) {
+            return;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            sb.append(valor);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Agrega un string JSON con comillas y escapes. null = literal null.
+     */
+    static void escribirJson(StringBuilder sb, String valor) {
+        if (valor == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    private static String leerValor(String s, int[] pos) {
+        char c = siguiente(s, pos);
+        if (c == '"') {
+            return leerString(s, pos);
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("No se admiten objetos ni arreglos anidados");
+        }
+        int inicio = pos[0];
+        while (pos[0] < s.length() && ",} \t".indexOf(s.charAt(pos[0])) < 0) {
+            pos[0]++;
+        }
+        String literal = s.substring(inicio, pos[0]);
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Valor vacío en la posición " + inicio);
+        }
+        return literal.equals("null") ? null : literal;
+    }
+
+    private static String leerString(String s, int[] pos) {
+        esperar(s, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < s.length()) {
+            char c = s.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos[0] >= s.length()) {
+                break;
+            }
+            char e = s.charAt(pos[0]++);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos[0] + 4 > s.length()) {
+                        throw new IllegalArgumentException("Escape \\u incompleto");
+                    }
+                    sb.append((char) Integer.parseInt(s.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                }
+                default -> sb.append(e); // \" \\ \/
+            }
+        }
+        throw new IllegalArgumentException("String sin cerrar");
+    }
+
+    private static void esperar(String s, int[] pos, char esperado) {
+        if (siguiente(s, pos) != esperado) {
+            throw new IllegalArgumentException("Se esperaba '" + esperado + "' en la posición " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    /**
+     * Salta espacios y devuelve el próximo carácter (sin consumirlo).
+     */
+    private static char siguiente(String s, int[] pos) {
+        pos[0] = saltarEspacios(s, pos[0]);
+        if (pos[0] >= s.length()) {
+            throw new IllegalArgumentException("Fin de línea inesperado");
+        }
+        return s.charAt(pos[0]);
+    }
+
+    private static int saltarEspacios(String s, int pos) {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -1 +1,46 @@
 //Rol 4: Responsable de la lógica de negocio, transacciones y consola
+
+// Paquete Service
+package Service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Interfaz genérica de la capa de Servicio (estilo cátedra).
+ * Valida las reglas de negocio y delega la persistencia en los DAOs.
+ * Lanza 'Exception' para ser consistente con GenericDAO.
+ */
+public interface GenericService<T> {
+
+    /**
+     * Valida e inserta una entidad.
+     */
+    void insertar(T entidad) throws Exception;
+
+    /**
+     * Valida y actualiza una entidad.
+     */
+    void actualizar(T entidad) throws Exception;
+
+    /**
+     * Elimina (lógicamente) una entidad por su ID.
+     */
+    void eliminar(int id) throws Exception;
+
+    /**
+     * Obtiene una entidad por su ID.
+     */
+    T getById(int id) throws Exception;
+
+    /**
+     * Obtiene todas las entidades activas.
+     */
+    List<T> getAll() throws Exception;
+
+    /**
+     * Recorre todas las entidades activas sin cargarlas en memoria.
+     * Usar SIEMPRE en try-with-resources.
+     */
+    Stream<T> streamAll() throws Exception;
+}
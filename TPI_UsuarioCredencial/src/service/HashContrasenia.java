@@ -0,0 +1,68 @@
+// Paquete Service
+package Service;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hash de contraseñas con PBKDF2 (HMAC-SHA256) y salt aleatorio por credencial.
+ *
+ * - El hash y el salt se guardan en Base64 en 'credencial.contraseña' y 'credencial.salt'.
+ * - Es deliberadamente CARO (muchas iteraciones): por eso la importación masiva
+ *   lo calcula en paralelo (ver ImportadorUsuarios).
+ * - Iteraciones: -Dseguridad.pbkdf2.iteraciones=65536
+ */
+public final class HashContrasenia {
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int ITERACIONES = Integer.getInteger("seguridad.pbkdf2.iteraciones", 65536);
+    private static final int BYTES_SALT = 16;
+    private static final int BITS_HASH = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Par hash/salt listo para guardar en CredencialAcceso.
+     */
+    public record Resultado(String hash, String salt) {
+    }
+
+    private HashContrasenia() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Genera un salt nuevo y calcula el hash de la contraseña.
+     */
+    public static Resultado hashear(String contrasenia) {
+        byte[] salt = new byte[BYTES_SALT];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return new Resultado(base64.encodeToString(derivar(contrasenia, salt)), base64.encodeToString(salt));
+    }
+
+    /**
+     * Compara en tiempo constante la contraseña contra el hash/salt guardados.
+     */
+    public static boolean verificar(String contrasenia, String hash, String salt) {
+        Base64.Decoder base64 = Base64.getDecoder();
+        byte[] esperado = base64.decode(hash);
+        byte[] calculado = derivar(contrasenia, base64.decode(salt));
+        return MessageDigest.isEqual(esperado, calculado);
+    }
+
+    private static byte[] derivar(String contrasenia, byte[] salt) {
+        PBEKeySpec spec = new PBEKeySpec(contrasenia.toCharArray(), salt, ITERACIONES, BITS_HASH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo calcular el hash de la contraseña: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,671 @@
+// Paquete Service
+package Service;
+
+import Config.Shards;
+import Config.TransactionManager;
+import DAO.CredencialAccesoDAO;
+import DAO.UsuarioDAO;
+import Models.CredencialAcceso;
+import Models.Usuario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Importación masiva de usuarios + credenciales desde CSV o JSONL.
+ *
+ * Pipeline (memoria acotada sin importar el tamaño del archivo):
+ * 1. Lectura: un hilo lee el archivo con un FileChannel (buffer de 64 KB) y lo corta en
+ *    lotes de 'tamanioLote' líneas.
+ * 2. Validación + hash: cada lote se parsea, valida y hashea (PBKDF2) en un pool de
+ *    'hilos' threads. Hay como máximo 'lotesEnVuelo' lotes en memoria (backpressure).
+ * 3. Escritura: el hilo que llamó a importar() toma los lotes EN ORDEN y escribe cada uno
+ *    en UNA transacción: insertBatchTx de usuarios y luego de credenciales con los IDs generados.
+ *    Si el lote choca con un UNIQUE (username/email ya existentes), se reescribe fila por
+ *    fila con savepoints y sólo las filas en conflicto se rechazan.
+ *    Con shards (ver Config.Shards), el lote se parte por shard y cada parte va en su
+ *    transacción, en el shard del username.
+ *
+ * Reanudación:
+ * - Tras cada lote confirmado se guarda un checkpoint (offset en bytes) en
+ *   "<archivo>.checkpoint". Si la importación se corta, la siguiente arranca desde ahí.
+ * - Si el corte fue entre el commit y el checkpoint, el lote se re-procesa y sus filas
+ *   quedan rechazadas como duplicadas (nunca se insertan dos veces).
+ * - Las filas rechazadas (número de línea + motivo) van a "<archivo>.rechazos.txt".
+ *
+ * Columnas (encabezado CSV o claves JSONL): username, email, password, nombre, apellido
+ * (obligatorias); activo (opcional: true/false o 1/0, por defecto true).
+ * Los largos se validan contra el esquema (VARCHAR): una fila demasiado larga o sin un campo
+ * obligatorio se rechaza al validar, sin llegar a la BD.
+ */
+public class ImportadorUsuarios {
+
+    /**
+     * Parámetros de la importación.
+     *
+     * @param tamanioLote Filas por transacción
+     * @param hilos Threads de validación/hash
+     * @param lotesEnVuelo Máximo de lotes leídos pero no escritos (acota la memoria)
+     * @param reanudar Si existe un checkpoint, continuar desde él
+     */
+    public record Opciones(int tamanioLote, int hilos, int lotesEnVuelo, boolean reanudar) {
+
+        public Opciones {
+            if (tamanioLote < 1 || hilos < 1 || lotesEnVuelo < 1) {
+                throw new IllegalArgumentException("Opciones de importación inválidas");
+            }
+        }
+
+        /**
+         * -Dimport.lote=500 -Dimport.hilos=(núcleos) -Dimport.enVuelo=(2 x hilos)
+         */
+        public static Opciones porDefecto() {
+            int hilos = Integer.getInteger("import.hilos", Runtime.getRuntime().availableProcessors());
+            return new Opciones(Integer.getInteger("import.lote", 500), hilos,
+                    Integer.getInteger("import.enVuelo", 2 * hilos), true);
+        }
+    }
+
+    /**
+     * Foto del progreso, informada después de cada lote.
+     */
+    public record Avance(long lineasProcesadas, long importadas, long rechazadas,
+                         long bytesLeidos, long bytesTotales, double filasPorSegundo) {
+
+        public double porcentaje() {
+            return bytesTotales == 0 ? 100 : 100.0 * bytesLeidos / bytesTotales;
+        }
+    }
+
+    /**
+     * Recibe el avance (se llama desde el hilo que importa).
+     */
+    @FunctionalInterface
+    public interface Progreso {
+        void informar(Avance avance);
+    }
+
+    /**
+     * Resultado final de la importación.
+     */
+    public record Resultado(long importadas, long rechazadas, boolean reanudada,
+                            double segundos, double filasPorSegundo, Path archivoRechazos) {
+    }
+
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    /** Largos de las columnas VARCHAR de 'usuario' (ver sql/migraciones/V1__esquema_inicial.sql). */
+    private static final int LARGO_NOMBRE = 80;
+    private static final int LARGO_USERNAME = 30;
+    private static final int LARGO_EMAIL = 120;
+
+    private final UsuarioDAO usuarioDAO;
+    private final CredencialAccesoDAO credencialDAO;
+    private final Opciones opciones;
+
+    public ImportadorUsuarios(UsuarioDAO usuarioDAO, CredencialAccesoDAO credencialDAO) {
+        this(usuarioDAO, credencialDAO, Opciones.porDefecto());
+    }
+
+    public ImportadorUsuarios(UsuarioDAO usuarioDAO, CredencialAccesoDAO credencialDAO, Opciones opciones) {
+        this.usuarioDAO = usuarioDAO;
+        this.credencialDAO = credencialDAO;
+        this.opciones = opciones;
+    }
+
+    /**
+     * Importa el archivo (formato según la extensión: .csv o .jsonl).
+     *
+     * @param archivo Archivo a importar
+     * @param progreso Recibe el avance después de cada lote (puede ser null)
+     * @return Totales de la importación (incluye lo importado antes del checkpoint)
+     */
+    public Resultado importar(Path archivo, Progreso progreso) throws Exception {
+        FormatoArchivo formato = FormatoArchivo.deRuta(archivo);
+        Path rutaCheckpoint = archivo.resolveSibling(archivo.getFileName() + ".checkpoint");
+        Path rutaRechazos = archivo.resolveSibling(archivo.getFileName() + ".rechazos.txt");
+        long tamanio = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+
+        Checkpoint inicio = opciones.reanudar() ? Checkpoint.leer(rutaCheckpoint, tamanio, modificado) : null;
+        boolean reanudada = inicio != null;
+        if (inicio == null) {
+            inicio = new Checkpoint(0, 0, 0, 0, tamanio, modificado);
+            Files.deleteIfExists(rutaRechazos);
+        }
+
+        ExecutorService validadores = Executors.newFixedThreadPool(opciones.hilos(), r -> {
+            Thread t = new Thread(r, "import-validacion");
+            t.setDaemon(true);
+            return t;
+        });
+        ExecutorService lector = Executors.newSingleThreadExecutor(r -> new Thread(r, "import-lectura"));
+        BlockingQueue<CompletableFuture<LoteProcesado>> cola = new ArrayBlockingQueue<>(opciones.lotesEnVuelo());
+
+        long t0 = System.nanoTime();
+        Checkpoint actual = inicio;
+        try (LectorLineas lineas = new LectorLineas(archivo);
+             BufferedWriter rechazos = Files.newBufferedWriter(rutaRechazos, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+            String[] encabezado = formato == FormatoArchivo.CSV ? leerEncabezado(lineas) : null;
+            Checkpoint desde = inicio;
+            Future<?> lectura = lector.submit(() -> {
+                leerLotes(lineas, desde, formato, encabezado, validadores, cola);
+                return null;
+            });
+
+            try {
+                while (true) {
+                    LoteProcesado lote = esperarLote(cola.take());
+                    if (lote == null) {
+                        break; // Fin del archivo
+                    }
+                    long importadas = escribirLote(lote, rechazos);
+                    rechazos.flush();
+                    actual = new Checkpoint(lote.offsetFin(), lote.lineaFin(),
+                            actual.importadas() + importadas,
+                            actual.rechazadas() + lote.filas() - importadas, tamanio, modificado);
+                    actual.guardar(rutaCheckpoint);
+
+                    if (progreso != null) {
+                        double segundos = Math.max(1e-9, (System.nanoTime() - t0) / 1e9);
+                        long procesadas = actual.lineaFin() - inicio.lineaFin();
+                        progreso.informar(new Avance(actual.lineaFin(), actual.importadas(), actual.rechazadas(),
+                                actual.offset(), tamanio, procesadas / segundos));
+                    }
+                }
+                lectura.get(); // Propaga errores de lectura (si los hubo)
+            } catch (Exception e) {
+                lectura.cancel(true); // Desbloquea al lector si estaba esperando lugar en la cola
+                throw e;
+            }
+        } finally {
+            lector.shutdownNow();
+            validadores.shutdownNow();
+        }
+
+        Files.deleteIfExists(rutaCheckpoint); // Terminó completa: la próxima vez empieza de cero
+        double segundos = (System.nanoTime() - t0) / 1e9;
+        long procesadas = actual.lineaFin() - inicio.lineaFin();
+        return new Resultado(actual.importadas(), actual.rechazadas(), reanudada, segundos,
+                segundos == 0 ? 0 : procesadas / segundos,
+                actual.rechazadas() == 0 ? null : rutaRechazos);
+    }
+
+    // --- ETAPA 1: LECTURA ---
+
+    /**
+     * Lote "crudo": líneas leídas del archivo, todavía sin validar.
+     */
+    private record Lote(List<String> lineas, long primeraLinea, long lineaFin, long offsetFin) {
+    }
+
+    private String[] leerEncabezado(LectorLineas lineas) throws IOException {
+        String primera = lineas.siguiente();
+        if (primera == null) {
+            throw new IllegalArgumentException("El archivo CSV está vacío (falta el encabezado)");
+        }
+        List<String> columnas = FormatoArchivo.partirCsv(primera);
+        String[] encabezado = new String[columnas.size()];
+        for (int i = 0; i < encabezado.length; i++) {
+            encabezado[i] = columnas.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+        for (String obligatoria : List.of("username", "email", "password")) {
+            if (!Arrays.asList(encabezado).contains(obligatoria)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria '" + obligatoria + "' en el encabezado");
+            }
+        }
+        return encabezado;
+    }
+
+    /**
+     * Corta el archivo en lotes y los envía al pool de validación, en orden.
+     * Termina encolando un lote "vacío" (null) como marca de fin.
+     */
+    private void leerLotes(LectorLineas lineas, Checkpoint desde, FormatoArchivo formato, String[] encabezado,
+                           ExecutorService validadores, BlockingQueue<CompletableFuture<LoteProcesado>> cola)
+            throws IOException, InterruptedException {
+        long numeroLinea = lineas.lineasLeidas();
+        if (desde.offset() > lineas.posicion()) {
+            lineas.saltarA(desde.offset());
+            numeroLinea = desde.lineaFin();
+        }
+
+        List<String> actual = new ArrayList<>(opciones.tamanioLote());
+        long primera = numeroLinea + 1;
+        String linea;
+        while ((linea = lineas.siguiente()) != null) {
+            numeroLinea++;
+            actual.add(linea);
+            if (actual.size() == opciones.tamanioLote()) {
+                Lote lote = new Lote(actual, primera, numeroLinea, lineas.posicion());
+                cola.put(CompletableFuture.supplyAsync(() -> procesar(lote, formato, encabezado), validadores));
+                actual = new ArrayList<>(opciones.tamanioLote());
+                primera = numeroLinea + 1;
+            }
+        }
+        if (!actual.isEmpty()) {
+            Lote lote = new Lote(actual, primera, numeroLinea, lineas.posicion());
+            cola.put(CompletableFuture.supplyAsync(() -> procesar(lote, formato, encabezado), validadores));
+        }
+        cola.put(CompletableFuture.completedFuture(null));
+    }
+
+    // --- ETAPA 2: VALIDACIÓN + HASH ---
+
+    /**
+     * Lote listo para escribir: filas válidas (usuario + credencial alineados por índice)
+     * y las rechazadas por validación.
+     */
+    private record LoteProcesado(List<Usuario> usuarios, List<CredencialAcceso> credenciales, List<Long> lineas,
+                                 List<String> rechazos, int filas, long lineaFin, long offsetFin) {
+    }
+
+    private LoteProcesado procesar(Lote lote, FormatoArchivo formato, String[] encabezado) {
+        int n = lote.lineas().size();
+        List<Usuario> usuarios = new ArrayList<>(n);
+        List<CredencialAcceso> credenciales = new ArrayList<>(n);
+        List<Long> lineas = new ArrayList<>(n);
+        List<String> rechazos = new ArrayList<>();
+        int filas = 0;
+
+        for (int i = 0; i < n; i++) {
+            String texto = lote.lineas().get(i);
+            long numeroLinea = lote.primeraLinea() + i;
+            if (texto.isBlank()) {
+                continue; // Las líneas vacías no cuentan como filas
+            }
+            filas++;
+            try {
+                Map<String, String> campos = formato == FormatoArchivo.CSV
+                        ? camposCsv(texto, encabezado)
+                        : FormatoArchivo.parsearJson(texto);
+                Usuario usuario = crearUsuario(campos);
+                String password = obligatorio(campos, "password");
+
+                HashContrasenia.Resultado hash = HashContrasenia.hashear(password);
+                CredencialAcceso credencial = new CredencialAcceso();
+                credencial.setHashPassword(hash.hash());
+                credencial.setSalt(hash.salt());
+                credencial.setUltimoCambio(usuario.getFechaRegistro());
+                credencial.setRequiereReset(false);
+
+                usuarios.add(usuario);
+                credenciales.add(credencial);
+                lineas.add(numeroLinea);
+            } catch (IllegalArgumentException e) {
+                rechazos.add("Línea " + numeroLinea + ": " + e.getMessage());
+            }
+        }
+        return new LoteProcesado(usuarios, credenciales, lineas, rechazos, filas, lote.lineaFin(), lote.offsetFin());
+    }
+
+    private Map<String, String> camposCsv(String texto, String[] encabezado) {
+        List<String> valores = FormatoArchivo.partirCsv(texto);
+        if (valores.size() != encabezado.length) {
+            throw new IllegalArgumentException("Se esperaban " + encabezado.length + " columnas y hay " + valores.size());
+        }
+        Map<String, String> campos = new HashMap<>(encabezado.length * 2);
+        for (int i = 0; i < encabezado.length; i++) {
+            campos.put(encabezado[i], valores.get(i));
+        }
+        return campos;
+    }
+
+    /**
+     * Mismas reglas que el alta interactiva (UsuarioServiceImpl) + formato de email, columnas
+     * NOT NULL y largos de la tabla 'usuario'.
+     */
+    private Usuario crearUsuario(Map<String, String> campos) {
+        String username = obligatorio(campos, "username", LARGO_USERNAME);
+        String email = obligatorio(campos, "email", LARGO_EMAIL);
+        if (email.indexOf('@') <= 0 || email.indexOf('@') == email.length() - 1) {
+            throw new IllegalArgumentException("Email inválido: " + email);
+        }
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre(obligatorio(campos, "nombre", LARGO_NOMBRE));
+        usuario.setApellido(obligatorio(campos, "apellido", LARGO_NOMBRE));
+        usuario.setUsername(username);
+        usuario.setEmail(email);
+        usuario.setActivo(activo(opcional(campos, "activo")));
+        usuario.setFechaRegistro(LocalDateTime.now());
+        usuario.setEliminado(false);
+        return usuario;
+    }
+
+    private static String obligatorio(Map<String, String> campos, String clave) {
+        String valor = campos.get(clave);
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("El campo '" + clave + "' no puede estar vacío");
+        }
+        return valor.trim();
+    }
+
+    private static String obligatorio(Map<String, String> campos, String clave, int largoMaximo) {
+        String valor = obligatorio(campos, clave);
+        if (valor.length() > largoMaximo) {
+            throw new IllegalArgumentException("El campo '" + clave + "' supera los " + largoMaximo + " caracteres");
+        }
+        return valor;
+    }
+
+    private static String opcional(Map<String, String> campos, String clave) {
+        String valor = campos.get(clave);
+        return valor == null ? null : valor.trim();
+    }
+
+    /**
+     * Columna 'activo': vacía = true; si no, true/false o 1/0.
+     */
+    private static boolean activo(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return true;
+        }
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "1" -> true;
+            case "false", "0" -> false;
+            default -> throw new IllegalArgumentException("Valor inválido para 'activo': " + valor);
+        };
+    }
+
+    // --- ETAPA 3: ESCRITURA ---
+
+    private LoteProcesado esperarLote(CompletableFuture<LoteProcesado> futuro) throws Exception {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Escribe el lote en una transacción (con shards, una por shard).
+     *
+     * @return Cantidad de filas insertadas
+     */
+    private long escribirLote(LoteProcesado lote, BufferedWriter rechazos) throws Exception {
+        for (String rechazo : lote.rechazos()) {
+            rechazos.write(rechazo);
+            rechazos.newLine();
+        }
+        if (lote.usuarios().isEmpty()) {
+            return 0;
+        }
+        if (!Shards.habilitado()) {
+            return escribirEnTransaccion(lote, rechazos);
+        }
+        Map<Integer, List<Integer>> porShard = Shards.agrupar(
+                IntStream.range(0, lote.usuarios().size()).boxed().toList(),
+                i -> Shards.deUsername(lote.usuarios().get(i).getUsername()));
+        long importadas = 0;
+        for (Map.Entry<Integer, List<Integer>> grupo : porShard.entrySet()) {
+            LoteProcesado parte = parte(lote, grupo.getValue());
+            importadas += Shards.enShard(grupo.getKey(), () -> escribirEnTransaccion(parte, rechazos));
+        }
+        return importadas;
+    }
+
+    /**
+     * Las filas indicadas del lote (alineadas por índice), sin los rechazos de validación.
+     */
+    private static LoteProcesado parte(LoteProcesado lote, List<Integer> indices) {
+        List<Usuario> usuarios = new ArrayList<>(indices.size());
+        List<CredencialAcceso> credenciales = new ArrayList<>(indices.size());
+        List<Long> lineas = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            usuarios.add(lote.usuarios().get(i));
+            credenciales.add(lote.credenciales().get(i));
+            lineas.add(lote.lineas().get(i));
+        }
+        return new LoteProcesado(usuarios, credenciales, lineas, List.of(), indices.size(),
+                lote.lineaFin(), lote.offsetFin());
+    }
+
+    /**
+     * Escribe las filas en una transacción; si chocan con un UNIQUE, las reescribe fila por fila.
+     *
+     * @return Cantidad de filas insertadas
+     */
+    private long escribirEnTransaccion(LoteProcesado lote, BufferedWriter rechazos) throws Exception {
+        try {
+            TransactionManager.enTransaccion(() -> {
+                Connection conn = TransactionManager.getConexionActual();
+                usuarioDAO.insertBatchTx(lote.usuarios(), conn);
+                enlazarCredenciales(lote);
+                credencialDAO.insertBatchTx(lote.credenciales(), conn);
+            });
+            return lote.usuarios().size();
+        } catch (SQLException e) {
+            if (!esViolacionDeRestriccion(e)) {
+                throw e;
+            }
+            return escribirFilaPorFila(lote, rechazos);
+        }
+    }
+
+    /**
+     * Plan B: misma transacción, pero cada fila en su savepoint. Las que violan un UNIQUE
+     * (ej: username ya existente) se rechazan; el resto se inserta.
+     */
+    private long escribirFilaPorFila(LoteProcesado lote, BufferedWriter rechazos) throws Exception {
+        List<String> rechazosLote = new ArrayList<>();
+        long importadas = TransactionManager.enTransaccion(() -> {
+            rechazosLote.clear(); // Por si la transacción se reintenta
+            long ok = 0;
+            Connection conn = TransactionManager.getConexionActual();
+            for (int i = 0; i < lote.usuarios().size(); i++) {
+                Usuario usuario = lote.usuarios().get(i);
+                CredencialAcceso credencial = lote.credenciales().get(i);
+                try {
+                    TransactionManager.anidada(() -> {
+                        usuarioDAO.insertTx(usuario, conn);
+                        credencial.setIdUsuario(usuario.getId());
+                        credencialDAO.insertTx(credencial, conn);
+                    });
+                    ok++;
+                } catch (SQLException e) {
+                    if (!esViolacionDeRestriccion(e)) {
+                        throw e;
+                    }
+                    rechazosLote.add("Línea " + lote.lineas().get(i) + ": " + e.getMessage());
+                }
+            }
+            return ok;
+        });
+        for (String rechazo : rechazosLote) {
+            rechazos.write(rechazo);
+            rechazos.newLine();
+        }
+        return importadas;
+    }
+
+    private void enlazarCredenciales(LoteProcesado lote) {
+        for (int i = 0; i < lote.usuarios().size(); i++) {
+            lote.credenciales().get(i).setIdUsuario(lote.usuarios().get(i).getId());
+        }
+    }
+
+    /**
+     * SQLState clase 23 = violación de integridad (UNIQUE, FK, NOT NULL).
+     */
+    private static boolean esViolacionDeRestriccion(SQLException e) {
+        for (SQLException s = e; s != null; s = s.getNextException()) {
+            if (s.getSQLState() != null && s.getSQLState().startsWith("23")) {
+                return true;
+            }
+            if (s.getCause() instanceof SQLException causa && causa.getSQLState() != null
+                    && causa.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- CHECKPOINT ---
+
+    /**
+     * Hasta dónde quedó confirmada la importación. Se invalida si el archivo cambió.
+     */
+    private record Checkpoint(long offset, long lineaFin, long importadas, long rechazadas,
+                              long tamanio, long modificado) {
+
+        static Checkpoint leer(Path ruta, long tamanio, long modificado) throws IOException {
+            if (!Files.exists(ruta)) {
+                return null;
+            }
+            Properties p = new Properties();
+            try (InputStream in = Files.newInputStream(ruta)) {
+                p.load(in);
+            }
+            Checkpoint c = new Checkpoint(Long.parseLong(p.getProperty("offset")),
+                    Long.parseLong(p.getProperty("linea")),
+                    Long.parseLong(p.getProperty("importadas")),
+                    Long.parseLong(p.getProperty("rechazadas")),
+                    Long.parseLong(p.getProperty("tamanio")),
+                    Long.parseLong(p.getProperty("modificado")));
+            if (c.tamanio() != tamanio || c.modificado() != modificado) {
+                throw new IllegalStateException("El archivo cambió desde el último checkpoint; borre "
+                        + ruta.getFileName() + " para empezar de cero");
+            }
+            return c;
+        }
+
+        /**
+         * Escritura atómica (archivo temporal + move) para no dejar un checkpoint a medias.
+         */
+        void guardar(Path ruta) throws IOException {
+            Properties p = new Properties();
+            p.setProperty("offset", Long.toString(offset));
+            p.setProperty("linea", Long.toString(lineaFin));
+            p.setProperty("importadas", Long.toString(importadas));
+            p.setProperty("rechazadas", Long.toString(rechazadas));
+            p.setProperty("tamanio", Long.toString(tamanio));
+            p.setProperty("modificado", Long.toString(modificado));
+            Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                p.store(out, "Checkpoint de importación");
+            }
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // --- LECTOR DE LÍNEAS (NIO) ---
+
+    /**
+     * Lee líneas UTF-8 de un FileChannel con un buffer fijo, llevando la posición EXACTA
+     * en bytes del final de la última línea (para el checkpoint).
+     */
+    private static final class LectorLineas implements AutoCloseable {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private byte[] linea = new byte[256];
+        private long posicion;       // Bytes consumidos (hasta el fin de la última línea)
+        private long lineasLeidas;
+        private boolean fin;
+
+        LectorLineas(Path archivo) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+            buffer.flip(); // Vacío
+        }
+
+        long posicion() {
+            return posicion;
+        }
+
+        long lineasLeidas() {
+            return lineasLeidas;
+        }
+
+        void saltarA(long offset) throws IOException {
+            canal.position(offset);
+            buffer.clear().flip();
+            posicion = offset;
+            fin = false;
+        }
+
+        /**
+         * @return La próxima línea (sin \r\n), o null al final del archivo
+         */
+        String siguiente() throws IOException {
+            int largo = 0;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    if (fin || !llenar()) {
+                        fin = true;
+                        if (largo == 0) {
+                            return null;
+                        }
+                        return terminar(largo); // Última línea sin '\n'
+                    }
+                }
+                byte b = buffer.get();
+                posicion++;
+                if (b == '\n') {
+                    return terminar(largo);
+                }
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, largo * 2);
+                }
+                linea[largo++] = b;
+            }
+        }
+
+        private String terminar(int largo) {
+            if (largo > 0 && linea[largo - 1] == '\r') {
+                largo--;
+            }
+            int desde = 0;
+            if (lineasLeidas == 0 && largo >= 3 && (linea[0] & 0xFF) == 0xEF
+                    && (linea[1] & 0xFF) == 0xBB && (linea[2] & 0xFF) == 0xBF) {
+                desde = 3; // BOM UTF-8
+            }
+            lineasLeidas++;
+            return new String(linea, desde, largo - desde, StandardCharsets.UTF_8);
+        }
+
+        private boolean llenar() throws IOException {
+            buffer.clear();
+            int leidos = canal.read(buffer);
+            buffer.flip();
+            return leidos > 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
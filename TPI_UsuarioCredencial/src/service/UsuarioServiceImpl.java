@@ -0,0 +1,293 @@
+// Paquete Service
+package Service;
+
+import Config.Shards;
+import Config.TransactionManager;
+import DAO.CredencialAccesoDAO;
+import DAO.EstadisticasDAO;
+import DAO.ProyeccionUsuario;
+import DAO.UsuarioDAO;
+import Models.CredencialAcceso;
+import Models.Usuario;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de Usuarios (el "cerebro" que usa el MenuHandler).
+ *
+ * RESPONSABILIDAD:
+ * 1. Validar las reglas de negocio antes de llegar a la BD.
+ * 2. Coordinar las operaciones que involucran a más de un DAO (Usuario + Credencial)
+ *    dentro de una misma transacción (y, si está habilitado, en group commit).
+ * 3. Delegar el resto de las operaciones en UsuarioDAO.
+ */
+public class UsuarioServiceImpl implements GenericService<Usuario> {
+
+    private final UsuarioDAO usuarioDAO;
+    private final CredencialAccesoDAO credencialDAO;
+    private final EstadisticasDAO estadisticasDAO;
+    private final ArchivadorEliminados archivador;
+
+    /**
+     * Constructor para Inyección de Dependencias.
+     *
+     * @param usuarioDAO DAO de Usuario.
+     * @param credencialDAO DAO de CredencialAcceso.
+     * @param estadisticasDAO DAO de estadísticas (conteos agregados).
+     * @param archivador Archivador de bajas antiguas (puede correr en segundo plano).
+     */
+    public UsuarioServiceImpl(UsuarioDAO usuarioDAO, CredencialAccesoDAO credencialDAO, EstadisticasDAO estadisticasDAO,
+                              ArchivadorEliminados archivador) {
+        this.usuarioDAO = usuarioDAO;
+        this.credencialDAO = credencialDAO;
+        this.estadisticasDAO = estadisticasDAO;
+        this.archivador = archivador;
+    }
+
+    /**
+     * Crea un Usuario y su Credencial en UNA transacción.
+     * Si falla la credencial, el usuario tampoco queda insertado.
+     */
+    public void crearUsuarioConCredencial(Usuario usuario, CredencialAcceso credencial) throws Exception {
+        validarUsuario(usuario);
+        if (credencial == null || credencial.getHashPassword() == null || credencial.getHashPassword().isBlank()) {
+            throw new IllegalArgumentException("La contraseña no puede estar vacía.");
+        }
+
+        // Una conexión y un commit: los DAOs reutilizan la conexión ligada al hilo.
+        // Con group commit habilitado, el commit se comparte con otros hilos.
+        // Con shards, la transacción se abre en el shard del usuario (la credencial va al mismo).
+        Shards.enShard(Shards.deUsername(usuario.getUsername()), () -> TransactionManager.enTransaccionAgrupada(() -> {
+            usuarioDAO.insertar(usuario);
+            credencial.setIdUsuario(usuario.getId()); // FK con el ID recién generado
+            credencialDAO.insertar(credencial);
+        }));
+        usuario.setCredencial(credencial);
+    }
+
+    @Override
+    public void insertar(Usuario usuario) throws Exception {
+        validarUsuario(usuario);
+        escribir(() -> usuarioDAO.insertar(usuario));
+    }
+
+    @Override
+    public void actualizar(Usuario usuario) throws Exception {
+        validarUsuario(usuario);
+        if (usuario.getId() <= 0) {
+            throw new IllegalArgumentException("El ID del usuario debe ser mayor a cero.");
+        }
+        escribir(() -> usuarioDAO.actualizar(usuario));
+    }
+
+    @Override
+    public void eliminar(int id) throws Exception {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID debe ser mayor a cero.");
+        }
+        escribir(() -> usuarioDAO.eliminar(id));
+    }
+
+    /**
+     * Baja lógica de muchos usuarios (y sus credenciales) en una transacción, con pocas
+     * sentencias set-based. Los deadlocks se reintentan como en cualquier transacción.
+     *
+     * @return Cantidad de usuarios y de credenciales que efectivamente se dieron de baja
+     */
+    public UsuarioDAO.ResultadoBaja eliminarUsuarios(Collection<Integer> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("Debe indicar los IDs a eliminar.");
+        }
+        for (Integer id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("Todos los IDs deben ser mayores a cero.");
+            }
+        }
+        return usuarioDAO.eliminarBatch(ids);
+    }
+
+    @Override
+    public Usuario getById(int id) throws Exception {
+        return usuarioDAO.getById(id);
+    }
+
+    @Override
+    public List<Usuario> getAll() throws Exception {
+        return usuarioDAO.getAll();
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() throws Exception {
+        return usuarioDAO.streamAll();
+    }
+
+    /**
+     * Busca un usuario por su username (único).
+     */
+    public Usuario getByUsername(String username) throws Exception {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("El username no puede estar vacío.");
+        }
+        return usuarioDAO.getByUsername(username.trim());
+    }
+
+    /**
+     * Búsqueda "mientras se escribe": prefijo o parte de username, nombre o apellido
+     * (sin distinguir mayúsculas ni acentos). Ver UsuarioDAO.buscarTexto.
+     */
+    public List<Usuario> buscarUsuarios(String texto, int maximo) throws Exception {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Ingrese al menos un carácter para buscar.");
+        }
+        if (maximo < 1) {
+            throw new IllegalArgumentException("La cantidad de resultados debe ser mayor a cero.");
+        }
+        return usuarioDAO.buscarTexto(texto, maximo);
+    }
+
+    /**
+     * Conteos de usuarios y credenciales, sin cargar usuarios (ver EstadisticasDAO).
+     */
+    public EstadisticasDAO.Resumen getEstadisticas() throws Exception {
+        return estadisticasDAO.getResumen();
+    }
+
+    /**
+     * Altas de usuarios de los últimos 'dias' días, uno por día (hoy incluido).
+     */
+    public List<EstadisticasDAO.AltasPorDia> getAltasPorDia(int dias) throws Exception {
+        if (dias < 1) {
+            throw new IllegalArgumentException("La cantidad de días debe ser mayor a cero.");
+        }
+        return estadisticasDAO.getAltasPorDia(dias);
+    }
+
+    /**
+     * Busca un usuario activo por su email (único).
+     */
+    public Usuario getByEmail(String email) throws Exception {
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("El email no puede estar vacío.");
+        }
+        return usuarioDAO.getByEmail(email.trim());
+    }
+
+    /**
+     * ¿El username ya está tomado? (también por usuarios dados de baja: no se puede reusar)
+     * No carga el usuario: sólo consulta el índice (o la caché, si lo tiene).
+     */
+    public boolean existeUsername(String username) throws Exception {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("El username no puede estar vacío.");
+        }
+        return usuarioDAO.existsByUsername(username.trim());
+    }
+
+    /**
+     * ¿El email ya está registrado? Igual que existeUsername.
+     */
+    public boolean existeEmail(String email) throws Exception {
+        if (email == null || email.isBlank()) {
+            throw new IllegalArgumentException("El email no puede estar vacío.");
+        }
+        return usuarioDAO.existsByEmail(email.trim());
+    }
+
+    /**
+     * Página siguiente: usuarios con id mayor a 'afterId' (0 = primera página).
+     * Proyección RESUMEN: la lista no necesita hash ni salt.
+     */
+    public List<Usuario> getPagina(int afterId, int tamanio) throws Exception {
+        return usuarioDAO.getPage(afterId, tamanio, ProyeccionUsuario.RESUMEN);
+    }
+
+    /**
+     * Página anterior: usuarios con id menor a 'beforeId', devueltos en orden ascendente.
+     */
+    public List<Usuario> getPaginaAnterior(int beforeId, int tamanio) throws Exception {
+        List<Usuario> pagina = usuarioDAO.getPageDesc(beforeId, tamanio, ProyeccionUsuario.RESUMEN);
+        Collections.reverse(pagina); // El DAO la trae descendente
+        return pagina;
+    }
+
+    /**
+     * Importación masiva desde CSV/JSONL (ver ImportadorUsuarios).
+     */
+    public ImportadorUsuarios.Resultado importarUsuarios(Path archivo, ImportadorUsuarios.Progreso progreso) throws Exception {
+        if (archivo == null) {
+            throw new IllegalArgumentException("Debe indicar el archivo a importar.");
+        }
+        return new ImportadorUsuarios(usuarioDAO, credencialDAO).importar(archivo, progreso);
+    }
+
+    /**
+     * Exportación de los usuarios activos a CSV/JSONL (ver ExportadorUsuarios).
+     */
+    public ExportadorUsuarios.Resultado exportarUsuarios(Path archivo) throws Exception {
+        if (archivo == null) {
+            throw new IllegalArgumentException("Debe indicar el archivo de salida.");
+        }
+        return new ExportadorUsuarios(usuarioDAO).exportar(archivo);
+    }
+
+    /**
+     * Archiva ahora las bajas más antiguas que la retención (ver ArchivadorEliminados).
+     *
+     * @throws IllegalStateException Si ya hay un archivado en curso (ej: el de fondo)
+     */
+    public ArchivadorEliminados.Avance archivarEliminados(ArchivadorEliminados.Progreso progreso) throws Exception {
+        return archivador.archivar(progreso);
+    }
+
+    public int getRetencionArchivadoDias() {
+        return archivador.getOpciones().retencionDias();
+    }
+
+    /**
+     * Programa el archivado periódico en segundo plano (-Darchivo.intervaloMs).
+     */
+    public void iniciarArchivadoEnSegundoPlano() {
+        archivador.iniciar(null);
+    }
+
+    /**
+     * Detiene el archivado de fondo (al salir de la aplicación).
+     */
+    public void detenerArchivado() {
+        archivador.detener();
+    }
+
+    // --- MÉTODOS PRIVADOS (HELPERS) ---
+
+    /**
+     * Escritura de una sola sentencia: con group commit habilitado comparte el commit con
+     * otros hilos; si no, va directo (autocommit, sin el costo de abrir una transacción).
+     * En ambos casos los deadlocks / lock wait timeouts se reintentan con backoff.
+     */
+    private void escribir(TransactionManager.Accion escritura) throws Exception {
+        if (TransactionManager.isCommitAgrupadoHabilitado()) {
+            TransactionManager.enTransaccionAgrupada(escritura);
+        } else {
+            TransactionManager.conReintentos(escritura);
+        }
+    }
+
+    /**
+     * Reglas mínimas de negocio para un Usuario.
+     */
+    private void validarUsuario(Usuario usuario) {
+        if (usuario == null) {
+            throw new IllegalArgumentException("El usuario no puede ser nulo.");
+        }
+        if (usuario.getUsername() == null || usuario.getUsername().isBlank()) {
+            throw new IllegalArgumentException("El username no puede estar vacío.");
+        }
+        if (usuario.getEmail() == null || usuario.getEmail().isBlank()) {
+            throw new IllegalArgumentException("El email no puede estar vacío.");
+        }
+    }
+}
@@ -1 +1,88 @@
+-- Estructura completa de la BD (referencia de lectura).
+--
+-- La fuente de verdad son las migraciones versionadas de sql/migraciones/, que
+-- Config.Migraciones aplica al iniciar la aplicación y registra en 'esquema_version'.
+-- Este archivo es el resultado de aplicarlas todas; si se agrega una migración,
+-- actualizarlo también. NO ejecutarlo sobre una BD administrada por migraciones.
 
+CREATE TABLE usuario (
+    id            INT          NOT NULL AUTO_INCREMENT,
+    eliminado     BOOLEAN      NOT NULL DEFAULT FALSE,
+    nombre        VARCHAR(80)  NOT NULL,
+    apellido      VARCHAR(80)  NOT NULL,
+    username      VARCHAR(30)  NOT NULL,
+    email         VARCHAR(120) NOT NULL,
+    activo        BOOLEAN      NOT NULL DEFAULT TRUE,
+    fechaRegistro DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_eliminacion DATETIME NULL,                                   -- V6
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuario_username UNIQUE (username),                  -- V1
+    CONSTRAINT uk_usuario_email UNIQUE (email),                        -- V3
+    INDEX idx_usuario_eliminado_id (eliminado, id),                    -- V2
+    INDEX idx_usuario_eliminado_activo (eliminado, activo),            -- V4
+    INDEX idx_usuario_fecha_registro (fechaRegistro),                  -- V4
+    INDEX idx_usuario_eliminado_fecha (eliminado, fecha_eliminacion)   -- V6
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE credencial (
+    id            INT          NOT NULL AUTO_INCREMENT,
+    eliminado     BOOLEAN      NOT NULL DEFAULT FALSE,
+    `contraseña`  VARCHAR(255) NOT NULL,
+    salt          VARCHAR(64)  NOT NULL,
+    ultimo_cambio DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    require_reset BOOLEAN      NOT NULL DEFAULT FALSE,
+    id_usuario    INT          NOT NULL,
+    fecha_eliminacion DATETIME NULL,                                   -- V6
+    PRIMARY KEY (id),
+    CONSTRAINT uk_credencial_id_usuario UNIQUE (id_usuario),           -- V1
+    INDEX idx_credencial_eliminado_reset (eliminado, require_reset),   -- V4
+    INDEX idx_credencial_eliminado_fecha (eliminado, fecha_eliminacion), -- V6
+    CONSTRAINT fk_credencial_usuario FOREIGN KEY (id_usuario) REFERENCES usuario (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+-- Archivo de bajas con más antigüedad que la retención (V6, ver Service.ArchivadorEliminados).
+CREATE TABLE usuario_archivo (
+    id                INT          NOT NULL,
+    nombre            VARCHAR(80)  NOT NULL,
+    apellido          VARCHAR(80)  NOT NULL,
+    username          VARCHAR(30)  NOT NULL,
+    email             VARCHAR(120) NOT NULL,
+    activo            BOOLEAN      NOT NULL,
+    fechaRegistro     DATETIME     NOT NULL,
+    fecha_eliminacion DATETIME     NULL,
+    fecha_archivado   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX idx_usuario_archivo_username (username)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE credencial_archivo (
+    id                INT          NOT NULL,
+    `contraseña`      VARCHAR(255) NOT NULL,
+    salt              VARCHAR(64)  NOT NULL,
+    ultimo_cambio     DATETIME     NOT NULL,
+    require_reset     BOOLEAN      NOT NULL,
+    id_usuario        INT          NOT NULL,
+    fecha_eliminacion DATETIME     NULL,
+    fecha_archivado   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX idx_credencial_archivo_id_usuario (id_usuario)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+-- Secuencias de ids generados por la aplicación, usadas con shards (V5, ver Config.GeneradorIds).
+CREATE TABLE secuencia_id (
+    nombre VARCHAR(50) NOT NULL,
+    valor  BIGINT      NOT NULL,
+    PRIMARY KEY (nombre)
+) ENGINE = InnoDB;
+
+INSERT INTO secuencia_id (nombre, valor) VALUES ('usuario', 0), ('credencial', 0);
+
+-- Control de migraciones (lo crea Config.Migraciones).
+CREATE TABLE esquema_version (
+    version     INT          NOT NULL,
+    descripcion VARCHAR(200) NOT NULL,
+    checksum    CHAR(64)     NOT NULL,
+    aplicada_en DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    duracion_ms BIGINT       NOT NULL,
+    PRIMARY KEY (version)
+) ENGINE = InnoDB;
@@ -0,0 +1,33 @@
+-- V1: esquema inicial (tablas, claves primarias, UNIQUE y FK).
+--
+-- IF NOT EXISTS: en una BD creada antes de las migraciones las tablas ya existen;
+-- esta versión sólo queda registrada y el resto de las migraciones sigue desde acá.
+
+CREATE TABLE IF NOT EXISTS usuario (
+    id            INT          NOT NULL AUTO_INCREMENT,
+    eliminado     BOOLEAN      NOT NULL DEFAULT FALSE,
+    nombre        VARCHAR(80)  NOT NULL,
+    apellido      VARCHAR(80)  NOT NULL,
+    username      VARCHAR(30)  NOT NULL,
+    email         VARCHAR(120) NOT NULL,
+    activo        BOOLEAN      NOT NULL DEFAULT TRUE,
+    fechaRegistro DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    -- getByUsername / getByUsernames: "username = ? AND eliminado = false" (const por UNIQUE)
+    CONSTRAINT uk_usuario_username UNIQUE (username)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS credencial (
+    id            INT          NOT NULL AUTO_INCREMENT,
+    eliminado     BOOLEAN      NOT NULL DEFAULT FALSE,
+    `contraseña`  VARCHAR(255) NOT NULL,
+    salt          VARCHAR(64)  NOT NULL,
+    ultimo_cambio DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    require_reset BOOLEAN      NOT NULL DEFAULT FALSE,
+    id_usuario    INT          NOT NULL,
+    PRIMARY KEY (id),
+    -- Relación 1 a 1. El UNIQUE es el índice del LEFT JOIN (c.id_usuario = u.id),
+    -- de getByIdUsuario(s) y de la baja en cascada "id_usuario IN (...)".
+    CONSTRAINT uk_credencial_id_usuario UNIQUE (id_usuario),
+    CONSTRAINT fk_credencial_usuario FOREIGN KEY (id_usuario) REFERENCES usuario (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
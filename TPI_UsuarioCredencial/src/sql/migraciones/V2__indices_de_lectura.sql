@@ -0,0 +1,14 @@
+-- V2: índices para los predicados de UsuarioDAO que no cubren la PK ni los UNIQUE.
+--
+-- Todas las lecturas filtran "eliminado = false". Con una sola columna booleana el índice
+-- no sirve (selectividad ~0); por eso 'eliminado' va COMBINADO con la columna de búsqueda.
+
+-- Búsqueda por email: "email = ? AND eliminado = false".
+-- (email, eliminado) responde el filtro completo desde el índice, sin leer la fila.
+CREATE INDEX idx_usuario_email_eliminado ON usuario (email, eliminado);
+
+-- Paginación por clave, rangos del export y MIN/MAX de ids activos:
+-- "eliminado = false AND id > ? ORDER BY id LIMIT ?" recorre el índice ya ordenado
+-- (InnoDB agrega la PK al final de cada índice secundario: es (eliminado, id)).
+-- MIN(id)/MAX(id) con "eliminado = false" se resuelven leyendo un extremo del índice.
+CREATE INDEX idx_usuario_eliminado_id ON usuario (eliminado, id);
@@ -0,0 +1,11 @@
+-- V3: email único (como username), para buscar y validar altas por email.
+--
+-- getByEmail: "email = ? AND eliminado = false" -> const por el UNIQUE.
+-- existsByEmail: "SELECT 1 ... WHERE email = ? LIMIT 1" -> se responde sólo con el índice.
+-- El índice (email, eliminado) de V2 queda cubierto por este y se elimina.
+-- Si la tabla ya tiene emails repetidos, esta migración falla (error 1062): hay que
+-- resolver los duplicados antes de volver a iniciar.
+
+CREATE UNIQUE INDEX uk_usuario_email ON usuario (email);
+
+DROP INDEX idx_usuario_email_eliminado ON usuario;
@@ -0,0 +1,13 @@
+-- V4: índices para las estadísticas (EstadisticasDAO).
+--
+-- Cada índice CUBRE su consulta: el conteo se hace recorriendo el índice (angosto y
+-- ordenado), sin leer las filas de la tabla.
+
+-- "GROUP BY eliminado, activo": activos / inactivos / eliminados.
+CREATE INDEX idx_usuario_eliminado_activo ON usuario (eliminado, activo);
+
+-- "WHERE fechaRegistro >= ? GROUP BY DATE(fechaRegistro)": altas por día (rango de fechas).
+CREATE INDEX idx_usuario_fecha_registro ON usuario (fechaRegistro);
+
+-- "WHERE eliminado = false GROUP BY require_reset": credenciales con reset pendiente.
+CREATE INDEX idx_credencial_eliminado_reset ON credencial (eliminado, require_reset);
@@ -0,0 +1,13 @@
+-- V5: secuencias para los ids que genera la aplicación (GeneradorIds).
+--
+-- Con shards (-Ddb.shards > 1) los ids no salen del AUTO_INCREMENT de cada base (se
+-- repetirían entre shards): se reservan de esta tabla, de a bloques. Sin shards la tabla
+-- existe pero no se usa.
+CREATE TABLE IF NOT EXISTS secuencia_id (
+    nombre VARCHAR(50) NOT NULL,
+    valor BIGINT NOT NULL,
+    PRIMARY KEY (nombre)
+) ENGINE = InnoDB;
+
+-- La reserva arranca por encima del MAX(id) de cada tabla (ver GeneradorIds).
+INSERT INTO secuencia_id (nombre, valor) VALUES ('usuario', 0), ('credencial', 0);
@@ -0,0 +1,49 @@
+-- V6: archivo de filas dadas de baja (ArchivoDAO / Service.ArchivadorEliminados).
+--
+-- El soft delete deja las filas en las tablas "calientes" para siempre: los índices
+-- (eliminado, ...) las saltean, pero igual ocupan páginas del buffer pool y crecen sin fin.
+-- El archivador mueve las bajas con más antigüedad que la retención a tablas de archivo.
+
+-- Fecha de la baja: la marca el soft delete de los DAOs.
+-- El índice (eliminado, fecha_eliminacion) resuelve "eliminado = true AND fecha_eliminacion < ?"
+-- como un rango, sin recorrer las filas vivas.
+ALTER TABLE usuario
+    ADD COLUMN fecha_eliminacion DATETIME NULL,
+    ADD INDEX idx_usuario_eliminado_fecha (eliminado, fecha_eliminacion);
+
+ALTER TABLE credencial
+    ADD COLUMN fecha_eliminacion DATETIME NULL,
+    ADD INDEX idx_credencial_eliminado_fecha (eliminado, fecha_eliminacion);
+
+-- Las bajas anteriores a esta versión no tienen fecha: cuentan desde hoy.
+UPDATE usuario SET fecha_eliminacion = CURRENT_TIMESTAMP WHERE eliminado = true;
+UPDATE credencial SET fecha_eliminacion = CURRENT_TIMESTAMP WHERE eliminado = true;
+
+-- Tablas de archivo: mismas columnas (sin 'eliminado': todo lo archivado es baja) y la
+-- fecha de archivo. Sin UNIQUE: un username liberado puede volver a darse de baja.
+CREATE TABLE IF NOT EXISTS usuario_archivo (
+    id                INT          NOT NULL,
+    nombre            VARCHAR(80)  NOT NULL,
+    apellido          VARCHAR(80)  NOT NULL,
+    username          VARCHAR(30)  NOT NULL,
+    email             VARCHAR(120) NOT NULL,
+    activo            BOOLEAN      NOT NULL,
+    fechaRegistro     DATETIME     NOT NULL,
+    fecha_eliminacion DATETIME     NULL,
+    fecha_archivado   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX idx_usuario_archivo_username (username)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+CREATE TABLE IF NOT EXISTS credencial_archivo (
+    id                INT          NOT NULL,
+    `contraseña`      VARCHAR(255) NOT NULL,
+    salt              VARCHAR(64)  NOT NULL,
+    ultimo_cambio     DATETIME     NOT NULL,
+    require_reset     BOOLEAN      NOT NULL,
+    id_usuario        INT          NOT NULL,
+    fecha_eliminacion DATETIME     NULL,
+    fecha_archivado   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX idx_credencial_archivo_id_usuario (id_usuario)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;